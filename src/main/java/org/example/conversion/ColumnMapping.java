@@ -0,0 +1,194 @@
+package org.example.conversion;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Description déclarative des colonnes CSV conservées dans le XML.
+ * <p>
+ * Chaque colonne indique son index dans le CSV, le nom de l'élément produit (par défaut
+ * le nom de la colonne dans l'en-tête), sa nature (simple, liste, liste de listes) et
+ * la balise de ses enfants. Le fichier de mapping suit ce format :
+ * <pre>{@code
+ * <columns>
+ *     <column index="0" role="identifiant"/>
+ *     <column index="1" element="ImageDir"/>
+ *     <column index="29" element="Labels" kind="list" child="Label"/>
+ *     <column index="31" element="LabelsLocalizationsBySentence" kind="listOfLists"
+ *             child="Sentence" first="Label" other="Localization"/>
+ * </columns>
+ * }</pre>
+ * Le mapping est compilé une fois en {@link ColumnProjection}.
+ */
+final class ColumnMapping {
+
+    enum Kind { SCALAR, LIST, LIST_OF_LISTS }
+
+    /**
+     * Une colonne conservée. element == null : nom repris de l'en-tête CSV.
+     */
+    record Column(int index, boolean identifiant, String element, Kind kind,
+                  String child, String first, String other) {
+    }
+
+    private final List<Column> columns;
+
+    ColumnMapping(List<Column> columns) {
+        this.columns = List.copyOf(columns);
+    }
+
+    List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * Mapping par défaut : les 17 colonnes PadChest historiquement conservées,
+     * nommées d'après l'en-tête du CSV.
+     */
+    static ColumnMapping padchest() {
+        List<Column> columns = new ArrayList<>();
+        columns.add(new Column(0, true, null, Kind.SCALAR, null, null, null)); // ImageID
+        for (int index : new int[]{
+                1,  // ImageDir
+                2,  // StudyID
+                4,  // PatientID
+                5,  // PatientBirth
+                6,  // PatientSex_DICOM
+                9,  // Projection
+                10, // MethodProjection
+                11, // MethodLabel
+                28  // ViewPosition
+        }) {
+            columns.add(scalar(index));
+        }
+        columns.add(list(29, "Label"));            // Labels
+        columns.add(list(30, "Localization"));     // Localizations
+        columns.add(new Column(31, false, null, Kind.LIST_OF_LISTS, "Sentence", "Label", "Localization"));
+        columns.add(list(32, "labelCUI"));         // labelCUIS
+        columns.add(list(33, "LocalizationsCUI")); // LocalizationsCUIS
+        columns.add(scalar(34));                   // Report
+        columns.add(scalar(35));                   // ReportID
+        return new ColumnMapping(columns);
+    }
+
+    /**
+     * Charge un fichier de mapping (format décrit dans la documentation de la classe).
+     */
+    static ColumnMapping load(String mappingPath) throws IOException {
+        Document document;
+        try {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(mappingPath));
+        } catch (Exception e) {
+            throw new IOException("Fichier de mapping illisible : " + mappingPath, e);
+        }
+
+        List<Column> columns = new ArrayList<>();
+        NodeList nodes = document.getElementsByTagName("column");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element node = (Element) nodes.item(i);
+            int index;
+            try {
+                index = Integer.parseInt(node.getAttribute("index"));
+            } catch (NumberFormatException e) {
+                throw new IOException("Index de colonne invalide dans " + mappingPath + " : '" + node.getAttribute("index") + "'");
+            }
+            boolean identifiant = "identifiant".equalsIgnoreCase(node.getAttribute("role"));
+            Kind kind = parseKind(node.getAttribute("kind"), mappingPath);
+            String element = attribute(node, "element");
+            String child = attribute(node, "child");
+            if (kind != Kind.SCALAR && child == null) {
+                throw new IOException("Attribut 'child' manquant pour la colonne " + index + " dans " + mappingPath);
+            }
+            columns.add(new Column(index, identifiant, element, kind, child,
+                    attribute(node, "first") != null ? attribute(node, "first") : "Label",
+                    attribute(node, "other") != null ? attribute(node, "other") : "Localization"));
+        }
+        return new ColumnMapping(columns);
+    }
+
+    /**
+     * Compile le mapping pour un en-tête CSV donné. Chaque projection a son propre
+     * {@link TokenDictionary} pour les colonnes de type liste.
+     */
+    ColumnProjection compile(String[] csvHeaders) throws IOException {
+        int slots = columns.size();
+        int[] indexes = new int[slots];
+        ColumnProjection.ColumnWriter[] writers = new ColumnProjection.ColumnWriter[slots];
+        Column[] layout = new Column[slots];
+        int idSlot = -1;
+        TokenDictionary dictionary = new TokenDictionary();
+        ColumnProjection.ListEncoder lists = new ColumnProjection.ListEncoder(dictionary);
+
+        for (int slot = 0; slot < slots; slot++) {
+            Column column = columns.get(slot);
+            indexes[slot] = column.index();
+            layout[slot] = column;
+            if (column.identifiant()) {
+                if (idSlot >= 0) {
+                    throw new IOException("Le mapping définit plusieurs colonnes identifiant");
+                }
+                idSlot = slot;
+                continue;
+            }
+
+            String name = column.element();
+            if (name == null) {
+                if (column.index() >= csvHeaders.length) {
+                    throw new IOException("Colonne " + column.index() + " absente de l'en-tête CSV et sans nom d'élément");
+                }
+                name = csvHeaders[column.index()];
+            }
+            layout[slot] = new Column(column.index(), false, name, column.kind(),
+                    column.child(), column.first(), column.other());
+
+            XmlEmitter.Tag tag = XmlEmitter.tag(name);
+            writers[slot] = switch (column.kind()) {
+                case SCALAR -> ColumnProjection.scalar(tag, lists);
+                case LIST -> ColumnProjection.list(tag, XmlEmitter.tag(column.child()), lists);
+                case LIST_OF_LISTS -> ColumnProjection.listOfLists(tag, XmlEmitter.tag(column.child()),
+                        XmlEmitter.tag(column.first()), XmlEmitter.tag(column.other()), lists);
+            };
+        }
+
+        if (idSlot < 0) {
+            throw new IOException("Le mapping doit définir une colonne role=\"identifiant\"");
+        }
+        return new ColumnProjection(indexes, idSlot, writers, layout, lists);
+    }
+
+    private static Column scalar(int index) {
+        return new Column(index, false, null, Kind.SCALAR, null, null, null);
+    }
+
+    private static Column list(int index, String child) {
+        return new Column(index, false, null, Kind.LIST, child, null, null);
+    }
+
+    private static Kind parseKind(String value, String mappingPath) throws IOException {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "":
+            case "scalar":
+                return Kind.SCALAR;
+            case "list":
+                return Kind.LIST;
+            case "listoflists":
+                return Kind.LIST_OF_LISTS;
+            default:
+                throw new IOException("Nature de colonne inconnue '" + value + "' dans " + mappingPath
+                        + " (scalar, list ou listOfLists)");
+        }
+    }
+
+    private static String attribute(Element node, String name) {
+        String value = node.getAttribute(name);
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,337 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Projection compilée d'un {@link ColumnMapping} : tableau des colonnes CSV à décoder
+ * (dans l'ordre de sortie) et un écrivain par colonne. Le chemin par ligne ne fait
+ * ni recherche dans un ensemble ni switch sur des noms de balise.
+ */
+final class ColumnProjection {
+
+    private static final XmlEmitter.Tag IMAGE_TAG = XmlEmitter.tag("image");
+
+    private final int[] columns;
+    private final int idSlot;
+    private final ColumnWriter[] writers;
+    private final ColumnMapping.Column[] layout;
+    private final ListEncoder lists;
+    private ConversionStatistics statistics;
+
+    /**
+     * @param layout colonnes du mapping, nom d'élément résolu d'après l'en-tête
+     */
+    ColumnProjection(int[] columns, int idSlot, ColumnWriter[] writers, ColumnMapping.Column[] layout,
+                     ListEncoder lists) {
+        this.columns = columns;
+        this.idSlot = idSlot;
+        this.writers = writers;
+        this.layout = layout;
+        this.lists = lists;
+    }
+
+    /**
+     * Écriture d'une colonne sous forme d'élément(s) XML.
+     */
+    interface ColumnWriter {
+        void write(String value, XmlEmitter out) throws IOException;
+    }
+
+    /** Colonnes CSV décodées, dans l'ordre de sortie. */
+    int[] columns() {
+        return columns;
+    }
+
+    /** Dictionnaire des valeurs des colonnes de type liste. */
+    TokenDictionary dictionary() {
+        return lists.dictionary;
+    }
+
+    /** Nom de l'élément produit pour un emplacement (null pour l'identifiant). */
+    String elementName(int slot) {
+        return slot == idSlot ? null : layout[slot].element();
+    }
+
+    /** Description de la colonne d'un emplacement (nature, balises des enfants). */
+    ColumnMapping.Column column(int slot) {
+        return layout[slot];
+    }
+
+    int idSlot() {
+        return idSlot;
+    }
+
+    /**
+     * Emplacement de l'élément, ou -1 s'il n'est pas produit.
+     */
+    int slot(String element) {
+        for (int slot = 0; slot < layout.length; slot++) {
+            if (element.equals(elementName(slot))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Alimente les statistiques au fil de l'écriture (même thread que l'écriture).
+     */
+    void collectStatistics(ConversionStatistics statistics) {
+        this.statistics = statistics;
+        lists.statistics = statistics;
+    }
+
+    /**
+     * Décode uniquement les colonnes projetées de l'enregistrement courant.
+     */
+    String[] decode(CsvTokenizer tokenizer) {
+        return tokenizer.fields(columns);
+    }
+
+    /**
+     * Écrit un élément {@code <image>} à partir des valeurs rendues par {@link #decode}.
+     */
+    void writeImage(String[] values, XmlEmitter out) throws IOException {
+        String identifiant = values[idSlot];
+        out.openTagWithAttribute(IMAGE_TAG, identifiant != null ? identifiant : "");
+        if (statistics != null) {
+            statistics.startImage();
+        }
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null && values[i] != null) {
+                writers[i].write(values[i], out);
+                if (statistics != null) {
+                    statistics.slotWritten(i);
+                }
+            }
+        }
+        if (statistics != null) {
+            statistics.endImage();
+        }
+        out.closeTag(IMAGE_TAG);
+    }
+
+    static ColumnWriter scalar(XmlEmitter.Tag tag, ListEncoder lists) {
+        return (value, out) -> lists.writeScalar(tag, value, out);
+    }
+
+    /**
+     * Liste {@code ['a', 'b']} → un enfant par valeur. Sans crochet, la valeur reste un élément simple.
+     */
+    static ColumnWriter list(XmlEmitter.Tag tag, XmlEmitter.Tag child, ListEncoder lists) {
+        return (value, out) -> {
+            int[] range = lists.openList(value, tag, out);
+            if (range != null) {
+                lists.writeSimpleArray(value, range[0], range[1], child, out);
+                out.closeTag(tag);
+            }
+        };
+    }
+
+    /**
+     * Liste de listes {@code [['label', 'loc', ...], ...]} → un enfant par sous-liste,
+     * le premier terme sous {@code first}, les suivants sous {@code other}.
+     */
+    static ColumnWriter listOfLists(XmlEmitter.Tag tag, XmlEmitter.Tag child,
+                                    XmlEmitter.Tag first, XmlEmitter.Tag other, ListEncoder lists) {
+        return (value, out) -> {
+            int[] range = lists.openList(value, tag, out);
+            if (range != null) {
+                lists.writeArrayOfArrays(value, range[0], range[1], child, first, other, out);
+                out.closeTag(tag);
+            }
+        };
+    }
+
+    /**
+     * Découpe les listes et écrit chaque valeur à partir du {@link TokenDictionary} :
+     * la valeur courante est accumulée dans un tampon réutilisé et n'est convertie en chaîne
+     * que la première fois qu'elle est rencontrée. Une instance par projection (non partagée
+     * entre threads).
+     */
+    static final class ListEncoder {
+        private final TokenDictionary dictionary;
+        private final StringBuilder token = new StringBuilder();
+        private int[] sentence = new int[16];
+        private ConversionStatistics statistics;
+
+        ListEncoder(TokenDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        private void writeScalar(XmlEmitter.Tag tag, String value, XmlEmitter out) throws IOException {
+            out.element(tag, value);
+            if (statistics != null) {
+                statistics.value(tag, value);
+            }
+        }
+
+        private void writeValue(XmlEmitter.Tag tag, int id, XmlEmitter out) throws IOException {
+            out.element(tag, dictionary.encoded(id));
+            if (statistics != null) {
+                statistics.value(tag, id);
+            }
+        }
+
+        /**
+         * Ouvre l'élément de liste et retourne la plage [début, fin) entre crochets (inclus), ou
+         * null si l'élément est déjà complet (valeur simple, liste vide ou mal formée).
+         */
+        private int[] openList(String value, XmlEmitter.Tag tag, XmlEmitter out) throws IOException {
+            int startIdx = value.indexOf('[');
+            if (startIdx == -1) {
+                writeScalar(tag, value, out);
+                return null;
+            }
+
+            out.openTag(tag);
+
+            int endIdx = value.lastIndexOf(']');
+            if (endIdx == -1 || endIdx <= startIdx) {
+                out.closeTag(tag);
+                return null;
+            }
+
+            if (endIdx == startIdx + 1) {
+                // []
+                out.closeTag(tag);
+                return null;
+            }
+            return new int[]{startIdx, endIdx + 1};
+        }
+
+        private void writeSimpleArray(String value, int start, int end, XmlEmitter.Tag subTag,
+                                      XmlEmitter out) throws IOException {
+            boolean inQuotes = false;
+            token.setLength(0);
+
+            for (int i = start; i < end; i++) {
+                char character = value.charAt(i);
+
+                if (character == '\'') {
+                    inQuotes = !inQuotes;
+                    continue;
+                }
+
+                if (character == ',' && !inQuotes) {
+                    writeToken(subTag, out);
+                    continue;
+                }
+
+                token.append(character);
+            }
+
+            writeToken(subTag, out);
+        }
+
+        private void writeToken(XmlEmitter.Tag subTag, XmlEmitter out) throws IOException {
+            int id = cleanToken();
+            if (id >= 0) {
+                writeValue(subTag, id, out);
+            }
+        }
+
+        private void writeArrayOfArrays(String value, int start, int end, XmlEmitter.Tag child,
+                                        XmlEmitter.Tag first, XmlEmitter.Tag other,
+                                        XmlEmitter out) throws IOException {
+            boolean inQuotes = false;
+            int bracketDepth = 0;
+            int sentenceSize = 0;
+            token.setLength(0);
+
+            for (int i = start; i < end; i++) {
+                char character = value.charAt(i);
+
+                if (character == '\'') {
+                    inQuotes = !inQuotes;
+                    continue;
+                }
+
+                if (!inQuotes) {
+                    if (character == '[') {
+                        bracketDepth++;
+                        continue;
+                    }
+
+                    if (character == ']') {
+                        if (bracketDepth == 2) {
+                            sentenceSize = addToSentence(sentenceSize);
+
+                            if (sentenceSize > 0) {
+                                out.openTag(child);
+                                writeValue(first, sentence[0], out);
+
+                                for (int k = 1; k < sentenceSize; k++) {
+                                    writeValue(other, sentence[k], out);
+                                }
+
+                                out.closeTag(child);
+                            }
+                            sentenceSize = 0;
+                        }
+                        bracketDepth--;
+                        continue;
+                    }
+
+                    if (character == ',' && bracketDepth == 2) {
+                        sentenceSize = addToSentence(sentenceSize);
+                        continue;
+                    }
+                }
+
+                if (bracketDepth == 2) {
+                    token.append(character);
+                }
+            }
+        }
+
+        private int addToSentence(int sentenceSize) {
+            int id = cleanToken();
+            if (id < 0) {
+                return sentenceSize;
+            }
+            if (sentenceSize == sentence.length) {
+                sentence = Arrays.copyOf(sentence, sentenceSize * 2);
+            }
+            sentence[sentenceSize] = id;
+            return sentenceSize + 1;
+        }
+
+        /**
+         * Nettoie la valeur accumulée comme l'ancien clean() (espaces, crochets, "None"),
+         * la compte dans le dictionnaire et vide le tampon.
+         *
+         * @return l'identifiant de la valeur, ou -1 si elle est vide
+         */
+        private int cleanToken() {
+            int start = 0;
+            int end = token.length();
+            while (start < end && token.charAt(start) <= ' ') start++;
+            while (end > start && token.charAt(end - 1) <= ' ') end--;
+            if (start < end && token.charAt(start) == '[') start++;
+            if (start < end && token.charAt(end - 1) == ']') end--;
+            while (start < end && token.charAt(start) <= ' ') start++;
+            while (end > start && token.charAt(end - 1) <= ' ') end--;
+
+            int id = -1;
+            if (start < end && !isNone(start, end)) {
+                id = dictionary.add(token, start, end);
+            }
+            token.setLength(0);
+            return id;
+        }
+
+        private boolean isNone(int start, int end) {
+            if (end - start != 4) {
+                return false;
+            }
+            for (int i = 0; i < 4; i++) {
+                if (Character.toLowerCase(token.charAt(start + i)) != "none".charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+
+/**
+ * Point de reprise d'une conversion, stocké à côté du XML ({@code <xml>.checkpoint}).
+ * <p>
+ * inputOffset : premier octet du CSV non encore converti ;
+ * outputOffset : longueur valide du XML (ou position de {@code </Images>} si complete) ;
+ * rowsEmitted : nombre d'éléments {@code <image>} déjà écrits ;
+ * headerHash : empreinte de la ligne d'en-tête, pour refuser un CSV différent ;
+ * mappingHash : empreinte du fichier de mapping ({@link #PADCHEST_MAPPING} par défaut), pour
+ * refuser une reprise avec un autre mapping.
+ */
+final class ConversionCheckpoint {
+
+    static final String SUFFIX = ".checkpoint";
+    static final String PADCHEST_MAPPING = "padchest";
+
+    long inputOffset;
+    long outputOffset;
+    long rowsEmitted;
+    String headerHash;
+    String mappingHash;
+    boolean complete;
+
+    static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Charge le point de reprise, ou null s'il n'existe pas.
+     */
+    static ConversionCheckpoint load(Path xmlPath) throws IOException {
+        Path path = pathFor(xmlPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        ConversionCheckpoint checkpoint = new ConversionCheckpoint();
+        try {
+            checkpoint.inputOffset = Long.parseLong(properties.getProperty("inputOffset"));
+            checkpoint.outputOffset = Long.parseLong(properties.getProperty("outputOffset"));
+            checkpoint.rowsEmitted = Long.parseLong(properties.getProperty("rowsEmitted"));
+        } catch (NumberFormatException e) {
+            throw new IOException("Point de reprise illisible : " + path, e);
+        }
+        checkpoint.headerHash = properties.getProperty("headerHash");
+        // Points de reprise antérieurs au mapping : toujours le mapping PadChest
+        checkpoint.mappingHash = properties.getProperty("mappingHash", PADCHEST_MAPPING);
+        checkpoint.complete = Boolean.parseBoolean(properties.getProperty("complete"));
+        return checkpoint;
+    }
+
+    /**
+     * Écrit le point de reprise de façon atomique (fichier temporaire puis renommage).
+     */
+    void save(Path xmlPath) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("inputOffset", Long.toString(inputOffset));
+        properties.setProperty("outputOffset", Long.toString(outputOffset));
+        properties.setProperty("rowsEmitted", Long.toString(rowsEmitted));
+        properties.setProperty("headerHash", headerHash);
+        properties.setProperty("mappingHash", mappingHash);
+        properties.setProperty("complete", Boolean.toString(complete));
+
+        Path path = pathFor(xmlPath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Point de reprise CsvToXmlConverter");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String hashHeader(String headerLine) {
+        return sha256(headerLine.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Empreinte du contenu du fichier de mapping, ou {@link #PADCHEST_MAPPING} (null ou "-").
+     */
+    static String hashMapping(String mappingPath) throws IOException {
+        if (mappingPath == null || "-".equals(mappingPath)) {
+            return PADCHEST_MAPPING;
+        }
+        return sha256(Files.readAllBytes(Path.of(mappingPath)));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques calculées pendant la conversion, sans relire le XML :
+ * mêmes résultats que le {@code ImageHandler} de SAXValidator (images contenant
+ * 'loc right' dans une {@code <Localization>}, fréquence des {@code <Label>}), plus le
+ * contrôle de conformité de la structure produite ({@link SchemaContentModel}).
+ * <p>
+ * Les valeurs de listes sont comptées par identifiant du {@link TokenDictionary}.
+ */
+final class ConversionStatistics {
+
+    static final String SUFFIX = ".rapport.txt";
+    private static final String LOC_RIGHT = "loc right";
+
+    private final ColumnProjection projection;
+    private final String schemaName;
+    private final List<SchemaContentModel.Issue> issues;
+
+    private long imageCount;
+    private long locRightCount;
+    private boolean currentImageHasLocRight;
+    private final long[] slotCounts;
+    private long[] labelCounts = new long[64];
+    // Valeur par identifiant : 1 = 'loc right', -1 = autre, 0 = pas encore vue
+    private byte[] locRightIds = new byte[64];
+    private final Map<String, Long> scalarLabels = new HashMap<>();
+
+    /**
+     * @param model modèle de contenu du schéma, ou null pour ne pas contrôler la structure
+     */
+    ConversionStatistics(ColumnProjection projection, SchemaContentModel model) {
+        this.projection = projection;
+        this.slotCounts = new long[projection.columns().length];
+        this.schemaName = model != null ? model.name() : null;
+        this.issues = model != null ? model.check(projection) : List.of();
+        projection.collectStatistics(this);
+    }
+
+    static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    void startImage() {
+        imageCount++;
+        currentImageHasLocRight = false;
+    }
+
+    void endImage() {
+        if (currentImageHasLocRight) {
+            locRightCount++;
+        }
+    }
+
+    void slotWritten(int slot) {
+        slotCounts[slot]++;
+    }
+
+    /**
+     * Valeur de liste écrite sous la balise tag (identifiant du dictionnaire).
+     */
+    void value(XmlEmitter.Tag tag, int id) {
+        if (isLabel(tag)) {
+            if (id >= labelCounts.length) {
+                labelCounts = Arrays.copyOf(labelCounts, Math.max(id + 1, labelCounts.length * 2));
+            }
+            labelCounts[id]++;
+        } else if (isLocalization(tag) && !currentImageHasLocRight) {
+            if (id >= locRightIds.length) {
+                locRightIds = Arrays.copyOf(locRightIds, Math.max(id + 1, locRightIds.length * 2));
+            }
+            if (locRightIds[id] == 0) {
+                locRightIds[id] = (byte) (LOC_RIGHT.equalsIgnoreCase(projection.dictionary().token(id)) ? 1 : -1);
+            }
+            currentImageHasLocRight = locRightIds[id] == 1;
+        }
+    }
+
+    /**
+     * Valeur simple écrite sous la balise tag.
+     */
+    void value(XmlEmitter.Tag tag, String value) {
+        if (isLabel(tag)) {
+            String content = value.trim();
+            if (!content.isEmpty()) {
+                scalarLabels.merge(content, 1L, Long::sum);
+            }
+        } else if (isLocalization(tag) && LOC_RIGHT.equalsIgnoreCase(value.trim())) {
+            currentImageHasLocRight = true;
+        }
+    }
+
+    private static boolean isLabel(XmlEmitter.Tag tag) {
+        return tag.name.equalsIgnoreCase("label");
+    }
+
+    private static boolean isLocalization(XmlEmitter.Tag tag) {
+        return tag.name.equalsIgnoreCase("localization");
+    }
+
+    long imageCount() {
+        return imageCount;
+    }
+
+    long locRightCount() {
+        return locRightCount;
+    }
+
+    /**
+     * Fréquence de chaque label (valeurs de listes et valeurs simples confondues).
+     */
+    Map<String, Long> labelFrequency() {
+        Map<String, Long> frequency = new HashMap<>(scalarLabels);
+        TokenDictionary dictionary = projection.dictionary();
+        for (int id = 0; id < labelCounts.length && id < dictionary.size(); id++) {
+            if (labelCounts[id] > 0) {
+                frequency.merge(dictionary.token(id), labelCounts[id], Long::sum);
+            }
+        }
+        return frequency;
+    }
+
+    List<Map.Entry<String, Long>> topLabels(int count) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(labelFrequency().entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+
+    List<SchemaContentModel.Issue> issues() {
+        return issues;
+    }
+
+    /**
+     * Rapport texte : statistiques puis conformité de la structure.
+     */
+    String report(String xmlPath) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.println("=== RAPPORT DE CONVERSION ===");
+        out.println("Fichier XML : " + xmlPath);
+        out.println();
+        out.println("--- RÉSULTATS DE L'ANALYSE ---");
+        out.println();
+        out.println("1. Images contenant 'loc right' : " + locRightCount);
+        out.println();
+        out.println("2. Top 10 des labels les plus fréquents :");
+        int rank = 1;
+        for (Map.Entry<String, Long> entry : topLabels(10)) {
+            out.printf("   %2d. %-40s : %6d occurrences%n", rank++, entry.getKey(), entry.getValue());
+        }
+        out.println();
+        out.println("Total d'images traitées : " + imageCount);
+        out.println("Total de labels différents : " + labelFrequency().size());
+
+        if (schemaName != null) {
+            out.println();
+            out.println("--- CONFORMITÉ DE LA STRUCTURE (" + schemaName + ") ---");
+            if (issues.isEmpty()) {
+                out.println("✓ Structure des éléments conforme au schéma");
+            } else {
+                out.println("✗ " + issues.size() + " écart(s) :");
+                for (SchemaContentModel.Issue issue : issues) {
+                    long images = issue.slot() >= 0 ? slotCounts[issue.slot()] : imageCount;
+                    out.println("   - " + issue.message() + " (" + images + " image(s) concernée(s))");
+                }
+            }
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    void saveReport(Path xmlPath) throws IOException {
+        Files.writeString(pathFor(xmlPath), report(xmlPath.toString()), StandardCharsets.UTF_8);
+    }
+}
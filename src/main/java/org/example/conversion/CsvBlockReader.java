@@ -0,0 +1,158 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture d'un CSV par gros blocs d'octets depuis un canal quelconque.
+ * Chaque bloc rendu se termine sur une vraie fin d'enregistrement (fin de ligne
+ * hors guillemets), il peut donc être découpé seul par un {@link CsvTokenizer}.
+ * Comme dans le mode séquentiel, une ligne vide termine la lecture.
+ */
+final class CsvBlockReader {
+
+    static final int DEFAULT_BLOCK_SIZE = 4 << 20;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfInput;
+    private boolean endOfRecords;
+    private long blockOffset;
+
+    CsvBlockReader(ReadableByteChannel channel, int blockSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(blockSize);
+    }
+
+    /**
+     * Position dans le flux du prochain bloc (en octets).
+     */
+    long position() {
+        return blockOffset;
+    }
+
+    /**
+     * Lit la ligne d'en-tête telle quelle (comme readLine, sans gestion des guillemets).
+     */
+    String readHeaderLine() throws IOException {
+        while (true) {
+            int position = buffer.position();
+            for (int i = 0; i < position; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || (b == '\r' && (i + 1 < position || endOfInput))) {
+                    int next = (b == '\r' && i + 1 < position && buffer.get(i + 1) == '\n') ? i + 2 : i + 1;
+                    String header = decode(i);
+                    consume(next);
+                    return header;
+                }
+            }
+            if (endOfInput) {
+                if (position == 0) {
+                    return null;
+                }
+                String header = decode(position);
+                consume(position);
+                return header;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Bloc suivant, composé uniquement d'enregistrements complets.
+     *
+     * @return un buffer prêt à être lu de 0 à limit, ou null à la fin des données
+     */
+    ByteBuffer nextBlock() throws IOException {
+        if (endOfRecords) {
+            return null;
+        }
+        while (true) {
+            fill();
+            int cut = findLastRecordEnd();
+            if (cut > 0) {
+                ByteBuffer block = ByteBuffer.allocate(cut);
+                block.put(0, buffer, 0, cut);
+                consume(cut);
+                return block;
+            }
+            if (endOfRecords || (endOfInput && buffer.position() == 0)) {
+                endOfRecords = true;
+                return null;
+            }
+            if (!buffer.hasRemaining()) {
+                // Un seul enregistrement plus grand que le bloc : on agrandit
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Fin du dernier enregistrement complet présent dans le buffer (0 si aucun).
+     */
+    private int findLastRecordEnd() {
+        int position = buffer.position();
+        int lastEnd = 0;
+        boolean inQuotes = false;
+        boolean atRecordStart = true;
+        int i = 0;
+        while (i < position) {
+            byte b = buffer.get(i);
+            if ((b == '\n' || b == '\r') && !inQuotes) {
+                if (atRecordStart) {
+                    endOfRecords = true;
+                    return lastEnd;
+                }
+                if (b == '\r' && i + 1 == position && !endOfInput) {
+                    // On ne sait pas encore si un '\n' suit
+                    return lastEnd;
+                }
+                i = (b == '\r' && i + 1 < position && buffer.get(i + 1) == '\n') ? i + 2 : i + 1;
+                lastEnd = i;
+                atRecordStart = true;
+                continue;
+            }
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            }
+            atRecordStart = false;
+            i++;
+        }
+        if (endOfInput && !atRecordStart) {
+            // Dernier enregistrement sans fin de ligne
+            endOfRecords = true;
+            return position;
+        }
+        return lastEnd;
+    }
+
+    private void fill() throws IOException {
+        while (!endOfInput && buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                endOfInput = true;
+            }
+        }
+    }
+
+    private void consume(int count) {
+        buffer.flip();
+        buffer.position(count);
+        buffer.compact();
+        blockOffset += count;
+    }
+
+    private String decode(int end) {
+        int length = end;
+        while (length > 0 && (buffer.get(length - 1) == '\n' || buffer.get(length - 1) == '\r')) {
+            length--;
+        }
+        byte[] raw = new byte[length];
+        buffer.get(0, raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+}
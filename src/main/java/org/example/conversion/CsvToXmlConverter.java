@@ -1,62 +1,161 @@
 package org.example.conversion;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
+import org.example.index.ReportIndex;
+import org.example.index.ReportIndexWriter;
+import org.example.io.CompressedFiles;
+
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class CsvToXmlConverter {
 
-    private static final Set<Integer> INCLUDED_COLUMNS = Set.of(
-            0,  // ImageID
-            1,  // ImageDir
-            2,  // StudyID
-            4,  // PatientID
-            5,  // PatientBirth
-            6,  // PatientSex_DICOM
-            9,  // Projection
-            10, // MethodProjection
-            11, // MethodLabel
-            28, // ViewPosition
-            29, // Labels
-            30, // Localizations
-            31, // LabelsLocalizationsBySentence
-            32, // labelCUIS
-            33, // LocalizationsCUIS
-            34, // Report
-            35  // ReportID
-    );
-
-    private static final String ROOT_ELEMENT = "Images";
-
-    private FileReader fileReader;
-    private BufferedReader bufferedReader;
-    private FileWriter xmlWriter;
-    private int depth;
+    static final String ROOT_ELEMENT = "Images";
+    private static final String INDEX_OPTION = "index-comptes-rendus";
+    // Option des main : export du dictionnaire des valeurs de listes (<xml>.dict)
+    static final String DICTIONARY_OPTION = "dictionnaire";
+
+    private final ColumnMapping mapping;
+    private Closeable csvInput;
+    private CsvBlockReader blockReader;
+    private CsvTokenizer tokenizer;
+    private XmlEmitter emitter;
+    private ColumnProjection projection;
+    private boolean collectStatistics;
+    private SchemaContentModel schemaModel;
+    private ConversionStatistics statistics;
+    private ReportIndexWriter reportIndex;
+    private int reportSlot = -1;
+
+    CsvToXmlConverter(ColumnMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Convertisseur travaillant sur un découpeur et un émetteur déjà ouverts (modes
+     * parallèle, pipeline et reprenable ; tokenizer null s'il n'écrit que la racine).
+     */
+    CsvToXmlConverter(CsvTokenizer tokenizer, XmlEmitter emitter, ColumnMapping mapping) {
+        this.tokenizer = tokenizer;
+        this.emitter = emitter;
+        this.mapping = mapping;
+    }
 
     public static void main(String[] args) {
         String csvPath = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
         String xmlPath = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        // Fichier de mapping des colonnes ("-" ou absent : mapping PadChest par défaut)
+        String mappingPath = args.length > 0 && !"-".equals(args[0]) && !isOption(args[0]) ? args[0] : null;
+        // "rapport" : statistiques et conformité calculées pendant la conversion
+        boolean rapport = args.length > 1 && "rapport".equalsIgnoreCase(args[1]);
+        String schemaPath = args.length > 2 && !isOption(args[2]) ? args[2] : "src/main/java/org/example/structures/images.dtd";
+        // "index-comptes-rendus" : index plein texte des Report construit pendant la conversion
+        boolean indexReports = Arrays.asList(args).contains(INDEX_OPTION);
+        // "dictionnaire" : export du dictionnaire des valeurs de listes
+        boolean dictionary = Arrays.asList(args).contains(DICTIONARY_OPTION);
+
+        execute(csvPath, xmlPath, mappingPath, rapport, rapport ? schemaPath : null, indexReports, dictionary);
+    }
 
+    private static boolean isOption(String arg) {
+        return INDEX_OPTION.equals(arg) || DICTIONARY_OPTION.equals(arg);
+    }
 
+    public static void convert(String csvPath, String xmlPath) {
+        convert(csvPath, xmlPath, null);
+    }
 
-        convert(csvPath, xmlPath);
+    /**
+     * @param mappingPath fichier de mapping des colonnes, ou null pour {@link ColumnMapping#padchest()}
+     */
+    public static void convert(String csvPath, String xmlPath, String mappingPath) {
+        execute(csvPath, xmlPath, mappingPath, false, null, false, false);
     }
 
-    public static void convert(String csvPath, String xmlPath) {
-        CsvToXmlConverter converter = new CsvToXmlConverter();
+    /**
+     * Conversion qui exporte aussi le dictionnaire des valeurs de listes à côté du XML
+     * ({@code <xml>.dict}, rechargeable avec {@link TokenDictionary#load}).
+     */
+    public static void convertWithDictionary(String csvPath, String xmlPath, String mappingPath) {
+        execute(csvPath, xmlPath, mappingPath, false, null, false, true);
+    }
+
+    /**
+     * Conversion qui calcule en même temps les statistiques de SAXValidator ('loc right',
+     * top 10 des labels) et contrôle la structure produite par rapport au schéma. Le rapport
+     * est écrit à côté du XML ({@code <xml>.rapport.txt}) : inutile de relire le XML.
+     *
+     * @param schemaPath images.dtd ou images.xsd (null : pas de contrôle de structure)
+     */
+    public static void convertWithReport(String csvPath, String xmlPath, String mappingPath, String schemaPath) {
+        execute(csvPath, xmlPath, mappingPath, true, schemaPath, false, false);
+    }
+
+    /**
+     * Conversion qui construit en même temps l'index plein texte des comptes rendus
+     * ({@code <xml>.reports.idx}, voir {@link ReportIndex}) : inutile de relire le XML.
+     */
+    public static void convertWithReportIndex(String csvPath, String xmlPath, String mappingPath) {
+        execute(csvPath, xmlPath, mappingPath, false, null, true, false);
+    }
+
+    /**
+     * Conversion avec le mapping PadChest vers un canal déjà ouvert, fermé à la fin (y compris
+     * en cas d'erreur) : le XML peut être lu au fur et à mesure à l'autre bout d'un tube.
+     */
+    public static void convert(String csvPath, WritableByteChannel output) throws IOException {
+        CsvToXmlConverter converter = new CsvToXmlConverter(ColumnMapping.padchest());
+        converter.emitter = new XmlEmitter(output);
+        try {
+            converter.openCsv(csvPath);
+            converter.performConversion();
+        } finally {
+            converter.closeFiles();
+        }
+    }
+
+    private static void execute(String csvPath, String xmlPath, String mappingPath,
+                                boolean report, String schemaPath, boolean indexReports, boolean dictionary) {
+        CsvToXmlConverter converter = null;
         try {
+            converter = new CsvToXmlConverter(mapping(mappingPath));
+            converter.collectStatistics = report;
+            if (report && schemaPath != null) {
+                converter.schemaModel = SchemaContentModel.load(schemaPath);
+            }
+            if (indexReports) {
+                converter.reportIndex = new ReportIndexWriter();
+            }
             converter.openFiles(csvPath, xmlPath);
             converter.performConversion();
             System.out.println("Conversion terminée avec succès : " + xmlPath);
+            if (dictionary) {
+                exportDictionary(converter.projection().dictionary(), Path.of(xmlPath));
+            }
+            if (report) {
+                converter.statistics.saveReport(Path.of(xmlPath));
+                System.out.println();
+                System.out.print(converter.statistics.report(xmlPath));
+                System.out.println("Rapport : " + ConversionStatistics.pathFor(Path.of(xmlPath)));
+            }
+            if (indexReports) {
+                Path indexPath = ReportIndex.pathFor(Path.of(xmlPath));
+                converter.reportIndex.write(indexPath);
+                System.out.println("Index des comptes rendus (" + converter.reportIndex.termCount() + " termes) : " + indexPath);
+            }
         } catch (Exception e) {
             System.err.println("Erreur lors de la conversion : " + e.getMessage());
             e.printStackTrace();
         } finally {
             try {
-                converter.closeFiles();
+                if (converter != null) converter.closeFiles();
             } catch (IOException e) {
                 System.err.println("Erreur lors de la fermeture des fichiers : " + e.getMessage());
             }
@@ -64,16 +163,68 @@ public class CsvToXmlConverter {
     }
 
 
+    /**
+     * Mapping d'un fichier, ou {@link ColumnMapping#padchest()} si mappingPath est null ou "-"
+     * (valeur des arguments des main).
+     */
+    static ColumnMapping mapping(String mappingPath) throws IOException {
+        return mappingPath != null && !"-".equals(mappingPath) ? ColumnMapping.load(mappingPath) : ColumnMapping.padchest();
+    }
+
     private void openFiles(String csvPath, String xmlPath) throws IOException {
-        this.fileReader = new FileReader(csvPath);
-        this.bufferedReader = new BufferedReader(fileReader);
-        this.xmlWriter = new FileWriter(xmlPath);
+        openCsv(csvPath);
+        this.emitter = new XmlEmitter(openOutput(Path.of(xmlPath)));
+    }
+
+    /**
+     * Un CSV .gz est lu par blocs depuis le flux décompressé ; sinon il est projeté en mémoire.
+     */
+    void openCsv(String csvPath) throws IOException {
+        if (CompressedFiles.isGzip(csvPath)) {
+            ReadableByteChannel channel = openInput(Path.of(csvPath));
+            this.csvInput = channel;
+            this.blockReader = new CsvBlockReader(channel, CsvBlockReader.DEFAULT_BLOCK_SIZE);
+            this.tokenizer = new CsvTokenizer(ByteBuffer.allocate(0), 0, 0);
+        } else {
+            FileChannel channel = FileChannel.open(Path.of(csvPath), StandardOpenOption.READ);
+            this.csvInput = channel;
+            this.tokenizer = CsvTokenizer.map(channel);
+        }
+    }
+
+    void closeFiles() throws IOException {
+        if (csvInput != null) csvInput.close();
+        if (emitter != null) emitter.close();
+    }
+
+    /**
+     * Exporte le dictionnaire des valeurs de listes à côté du XML ({@code <xml>.dict}).
+     */
+    static void exportDictionary(TokenDictionary dictionary, Path xmlPath) throws IOException {
+        Path path = TokenDictionary.pathFor(xmlPath);
+        dictionary.save(path);
+        System.out.println("Dictionnaire des valeurs (" + dictionary.size() + " valeurs distinctes) : " + path);
+    }
+
+    /**
+     * Canal de lecture du CSV, décompressé à la volée pour un .gz.
+     */
+    static ReadableByteChannel openInput(Path csvPath) throws IOException {
+        if (CompressedFiles.isGzip(csvPath)) {
+            return Channels.newChannel(CompressedFiles.newInputStream(csvPath));
+        }
+        return FileChannel.open(csvPath, StandardOpenOption.READ);
     }
 
-    private void closeFiles() throws IOException {
-        if (bufferedReader != null) bufferedReader.close();
-        if (fileReader != null) fileReader.close();
-        if (xmlWriter != null) xmlWriter.close();
+    /**
+     * Canal d'écriture du XML (remplacé), compressé à la volée pour un .gz.
+     */
+    static WritableByteChannel openOutput(Path xmlPath) throws IOException {
+        if (CompressedFiles.isGzip(xmlPath)) {
+            return Channels.newChannel(CompressedFiles.newOutputStream(xmlPath));
+        }
+        return FileChannel.open(xmlPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
     private void performConversion() throws IOException {
@@ -84,285 +235,98 @@ public class CsvToXmlConverter {
 
         writeXmlHeader();
         writeOpeningTag(ROOT_ELEMENT);
-
-        String line;
-        while ((line = readCsvLine()) != null) {
-            String[] completeFields = parseLine(line);
-            String[] filteredFields = filterIncludedColumns(completeFields);
-
-            writeOpeningTagWithAttribute("image", filteredFields[0]);
-
-            for (int i = 1; i < filteredFields.length; i++) {
-                String xmlContent = formatFieldForXml(filteredFields[i], headers[i]);
-                if (!xmlContent.isEmpty()) {
-                    write(xmlContent);
-                }
-            }
-
-            writeClosingTag("image");
-        }
-
+        convertRecords(headers);
         writeClosingTag(ROOT_ELEMENT);
     }
 
-
-    private String[] readHeader() throws IOException {
-        String line = bufferedReader.readLine();
-        if (line != null) {
-            String[] allFields = line.split(",");
-            return filterIncludedColumns(allFields);
+    /**
+     * Convertit tous les enregistrements restants du découpeur en éléments {@code <image>}.
+     */
+    void convertRecords(String[] headers) throws IOException {
+        useHeaders(headers);
+        while (convertNextRecord()) {
+            // l'enregistrement a été écrit
         }
-        return null;
     }
 
-    private String readCsvLine() throws IOException {
-        StringBuilder stringBuilder = new StringBuilder();
-        String line;
-        boolean inQuotes = false;
-
-        while ((line = bufferedReader.readLine()) != null) {
-            if (stringBuilder.length() > 0) {
-                stringBuilder.append('\n');
-            }
-            stringBuilder.append(line);
-
-            for (int i = 0; i < line.length(); i++) {
-                char character = line.charAt(i);
-                if (character == '"') {
-                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                        i++;
-                        continue;
-                    }
-                    inQuotes = !inQuotes;
-                }
-            }
-
-            if (!inQuotes) {
-                break;
-            }
+    /**
+     * Convertit l'enregistrement suivant.
+     *
+     * @return false à la fin des données
+     */
+    boolean convertNextRecord() throws IOException {
+        String[] values = nextRecord();
+        if (values == null) {
+            return false;
         }
-
-        return stringBuilder.length() == 0 ? null : stringBuilder.toString();
+        writeImage(values);
+        return true;
     }
 
-    private String[] parseLine(String line) {
-        ArrayList<String> fields = new ArrayList<>();
-        StringBuilder field = new StringBuilder();
-        int bracketLevel = 0;
-
-        for (int i = 0; i < line.length(); i++) {
-            char character = line.charAt(i);
-
-            if (character == '[') {
-                bracketLevel++;
-                field.append(character);
-            } else if (character == ']') {
-                bracketLevel--;
-                field.append(character);
-            } else if (character == ',' && bracketLevel == 0) {
-                fields.add(field.toString().trim());
-                field.setLength(0);
-            } else {
-                field.append(character);
+    /**
+     * Décode l'enregistrement suivant avec la projection.
+     *
+     * @return les valeurs projetées, ou null à la fin des données
+     */
+    String[] nextRecord() throws IOException {
+        while (!tokenizer.nextRecord()) {
+            ByteBuffer block = blockReader != null ? blockReader.nextBlock() : null;
+            if (block == null) {
+                return null;
             }
+            tokenizer = new CsvTokenizer(block, 0, block.limit());
         }
-        fields.add(field.toString().trim());
-
-        return fields.toArray(new String[0]);
+        return projection.decode(tokenizer);
     }
 
-
-    private String[] filterIncludedColumns(String[] allFields) {
-        ArrayList<String> filteredFields = new ArrayList<>();
-        for (int i = 0; i < allFields.length; i++) {
-            if (INCLUDED_COLUMNS.contains(i)) {
-                filteredFields.add(allFields[i]);
+    /**
+     * Compile une fois pour toutes le mapping pour l'en-tête du CSV.
+     */
+    void useHeaders(String[] headers) throws IOException {
+        projection = mapping.compile(headers);
+        if (collectStatistics) {
+            statistics = new ConversionStatistics(projection, schemaModel);
+        }
+        if (reportIndex != null) {
+            reportSlot = projection.slot("Report");
+            if (reportSlot < 0) {
+                throw new IOException("Index des comptes rendus : aucun élément Report dans le mapping");
             }
         }
-        return filteredFields.toArray(new String[0]);
-    }
-
-
-    private void writeXmlHeader() throws IOException {
-        xmlWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        xmlWriter.write("<!DOCTYPE Images SYSTEM \"../structures/images.dtd\">\n");
-    }
-
-    private void writeOpeningTag(String elementName) throws IOException {
-        write("<" + elementName + ">\n");
-        depth++;
-    }
-
-    private void writeOpeningTagWithAttribute(String elementName, String attributeValue) throws IOException {
-        write("<" + elementName + " Identifiant=\"" + attributeValue + "\">\n");
-        depth++;
-    }
-
-    private void writeClosingTag(String elementName) throws IOException {
-        depth--;
-        write("</" + elementName + ">\n");
-    }
-
-    private void write(String content) throws IOException {
-        xmlWriter.write(getIndentation() + content);
     }
 
-    private String getIndentation() {
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < depth; i++) {
-            stringBuilder.append('\t');
-        }
-        return stringBuilder.toString();
+    ColumnProjection projection() {
+        return projection;
     }
 
-    private String formatFieldForXml(String value, String tagName) throws IOException {
-        if (!value.contains("[")) {
-            return "<" + tagName + ">" + value + "</" + tagName + ">\n";
+    /**
+     * Écrit un élément {@code <image>} à partir des valeurs décodées par la projection.
+     */
+    void writeImage(String[] values) throws IOException {
+        projection.writeImage(values, emitter);
+        if (reportIndex != null) {
+            reportIndex.addDocument(values[projection.idSlot()], values[reportSlot]);
         }
-
-        handleSubElements(value, tagName);
-        return "";
     }
 
-    private void handleSubElements(String value, String tagName) throws IOException {
-        writeOpeningTag(tagName);
-
-        int startIdx = value.indexOf('[');
-        int endIdx = value.lastIndexOf(']');
-
-        if (startIdx == -1 || endIdx == -1 || endIdx <= startIdx) {
-            writeClosingTag(tagName);
-            return;
-        }
-
-        String arrayContent = value.substring(startIdx, endIdx + 1).trim();
-        if ("[]".equals(arrayContent)) {
-            writeClosingTag(tagName);
-            return;
-        }
-
-        if ("LabelsLocalizationsBySentence".equals(tagName)) {
-            handleArrayOfArrays(arrayContent);
-        } else {
-            String subTagName = getSubTagName(tagName);
-            handleSimpleArray(arrayContent, subTagName);
-        }
 
-        writeClosingTag(tagName);
+    String[] readHeader() throws IOException {
+        return parseHeader(blockReader != null ? blockReader.readHeaderLine() : tokenizer.readHeaderLine());
     }
 
-    private void handleSimpleArray(String arrayContent, String subTagName) throws IOException {
-        boolean inQuotes = false;
-        StringBuilder token = new StringBuilder();
-
-        for (int i = 0; i < arrayContent.length(); i++) {
-            char character = arrayContent.charAt(i);
-
-            if (character == '\'') {
-                inQuotes = !inQuotes;
-                continue;
-            }
-
-            if (character == ',' && !inQuotes) {
-                String value = clean(token.toString());
-                token.setLength(0);
-                if (!value.isEmpty()) {
-                    write("<" + subTagName + ">" + value + "</" + subTagName + ">\n");
-                }
-                continue;
-            }
-
-            token.append(character);
-        }
-
-        String lastElement = clean(token.toString());
-        if (!lastElement.isEmpty()) {
-            write("<" + subTagName + ">" + lastElement + "</" + subTagName + ">\n");
-        }
+    static String[] parseHeader(String line) {
+        return line != null ? line.split(",") : null;
     }
 
-    private void handleArrayOfArrays(String arrayContent) throws IOException {
-        boolean inQuotes = false;
-        int bracketDepth = 0;
-        StringBuilder currentToken = new StringBuilder();
-        ArrayList<String> sentenceElements = new ArrayList<>();
-
-        for (int i = 0; i < arrayContent.length(); i++) {
-            char character = arrayContent.charAt(i);
-
-            if (character == '\'') {
-                inQuotes = !inQuotes;
-                continue;
-            }
-
-            if (!inQuotes) {
-                if (character == '[') {
-                    bracketDepth++;
-                    continue;
-                }
-
-                if (character == ']') {
-                    if (bracketDepth == 2) {
-                        String value = clean(currentToken.toString().trim());
-                        currentToken.setLength(0);
-                        if (!value.isEmpty()) {
-                            sentenceElements.add(value);
-                        }
-
-                        if (!sentenceElements.isEmpty()) {
-                            write("<Sentence>\n");
-                            depth++;
-
-                            write("<Label>" + sentenceElements.get(0) + "</Label>\n");
-
-                            for (int k = 1; k < sentenceElements.size(); k++) {
-                                write("<Localization>" + sentenceElements.get(k) + "</Localization>\n");
-                            }
-
-                            depth--;
-                            write("</Sentence>\n");
-                        }
-                        sentenceElements.clear();
-                    }
-                    bracketDepth--;
-                    continue;
-                }
-
-                if (character == ',' && bracketDepth == 2) {
-                    String value = clean(currentToken.toString().trim());
-                    currentToken.setLength(0);
-                    if (!value.isEmpty()) {
-                        sentenceElements.add(value);
-                    }
-                    continue;
-                }
-            }
-
-            if (bracketDepth == 2) {
-                currentToken.append(character);
-            }
-        }
+    void writeXmlHeader() throws IOException {
+        emitter.xmlHeader();
     }
 
-    private String clean(String string) {
-        String value = string.trim();
-        if (value.startsWith("[")) value = value.substring(1);
-        if (value.endsWith("]")) value = value.substring(0, value.length() - 1);
-        if (value.startsWith("'")) value = value.substring(1);
-        if (value.endsWith("'")) value = value.substring(0, value.length() - 1);
-        value = value.trim();
-        return "None".equalsIgnoreCase(value) ? "" : value;
+    void writeOpeningTag(String elementName) throws IOException {
+        emitter.openTag(XmlEmitter.tag(elementName));
     }
 
-    private String getSubTagName(String tagName) {
-        switch (tagName) {
-            case "Labels": return "Label";
-            case "Localizations": return "Localization";
-            case "LabelsLocalizationsBySentence": return "Sentence";
-            case "labelCUIS": return "labelCUI";
-            case "LocalizationsCUIS": return "LocalizationsCUI";
-            default: return tagName + "Item";
-        }
+    void writeClosingTag(String elementName) throws IOException {
+        emitter.closeTag(XmlEmitter.tag(elementName));
     }
 }
-
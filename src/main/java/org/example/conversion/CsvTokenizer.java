@@ -0,0 +1,240 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Découpeur CSV travaillant directement sur les octets d'un fichier projeté en mémoire.
+ * <p>
+ * Un seul parcours par enregistrement trouve à la fois la fin de l'enregistrement
+ * (fin de ligne hors guillemets, les champs multi-lignes sont donc conservés) et
+ * les limites des champs (virgule hors crochets {@code [ ]}). Les champs sont exposés
+ * sous forme de positions ; seules les colonnes demandées sont décodées en String.
+ * Les règles sont celles de l'ancien couple readCsvLine / parseLine, y compris
+ * la ligne vide qui marque la fin de la lecture.
+ */
+final class CsvTokenizer {
+
+    private static final int INITIAL_FIELDS = 48;
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+    private boolean exhausted;
+
+    private int[] fieldStart = new int[INITIAL_FIELDS];
+    private int[] fieldEnd = new int[INITIAL_FIELDS];
+    private int fieldCount;
+    private boolean multiLine;
+    private byte[] scratch = new byte[256];
+
+    CsvTokenizer(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.limit = end;
+    }
+
+    /**
+     * Projette tout le fichier en mémoire (lecture seule).
+     */
+    static CsvTokenizer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Fichier CSV trop volumineux pour être projeté en mémoire (" + size + " octets)");
+        }
+        return new CsvTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), 0, (int) size);
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /** Position (en octets) du prochain enregistrement. */
+    int position() {
+        return position;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Lit la ligne d'en-tête telle quelle (comme readLine, sans gestion des guillemets).
+     */
+    String readHeaderLine() {
+        if (position >= limit) {
+            return null;
+        }
+        int start = position;
+        int i = start;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            i++;
+        }
+        position = skipLineTerminator(i);
+        return decode(start, i);
+    }
+
+    /**
+     * Avance sur l'enregistrement suivant et mémorise les limites de ses champs.
+     *
+     * @return false à la fin des données (ou sur une ligne vide)
+     */
+    boolean nextRecord() {
+        fieldCount = 0;
+        multiLine = false;
+        if (exhausted || position >= limit) {
+            exhausted = true;
+            return false;
+        }
+
+        int i = position;
+        int start = i;
+        boolean inQuotes = false;
+        int bracketLevel = 0;
+
+        scan:
+        while (i < limit) {
+            switch (buffer.get(i)) {
+                case '"' -> inQuotes = !inQuotes;
+                case '[' -> bracketLevel++;
+                case ']' -> bracketLevel--;
+                case ',' -> {
+                    if (bracketLevel == 0) {
+                        addField(start, i);
+                        start = i + 1;
+                    }
+                }
+                case '\n', '\r' -> {
+                    if (!inQuotes) {
+                        break scan;
+                    }
+                    multiLine = true;
+                }
+                default -> {
+                }
+            }
+            i++;
+        }
+
+        if (i == position) {
+            exhausted = true;
+            return false;
+        }
+        addField(start, i);
+        position = skipLineTerminator(i);
+        return true;
+    }
+
+    /**
+     * Saute l'enregistrement suivant en ne suivant que la parité des guillemets.
+     *
+     * @return false à la fin des données (ou sur une ligne vide)
+     */
+    boolean skipRecord() {
+        if (exhausted || position >= limit) {
+            exhausted = true;
+            return false;
+        }
+        int i = position;
+        boolean inQuotes = false;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if ((b == '\n' || b == '\r') && !inQuotes) {
+                break;
+            }
+            i++;
+        }
+        if (i == position) {
+            exhausted = true;
+            return false;
+        }
+        position = skipLineTerminator(i);
+        return true;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    int fieldStart(int column) {
+        return fieldStart[column];
+    }
+
+    int fieldEnd(int column) {
+        return fieldEnd[column];
+    }
+
+    /**
+     * Décode un champ de l'enregistrement courant.
+     */
+    String field(int column) {
+        String value = decode(fieldStart[column], fieldEnd[column]);
+        if (multiLine) {
+            // readLine + '\n' normalisait les fins de ligne internes aux champs
+            value = value.replace("\r\n", "\n").replace('\r', '\n');
+        }
+        return value;
+    }
+
+    /**
+     * Décode uniquement les colonnes demandées, dans l'ordre demandé
+     * (null pour une colonne absente de l'enregistrement).
+     */
+    String[] fields(int[] columns) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] < fieldCount) {
+                values[i] = field(columns[i]);
+            }
+        }
+        return values;
+    }
+
+    private void addField(int start, int end) {
+        // Équivalent de String.trim() : les octets <= 0x20 sont toujours de l'ASCII en UTF-8
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int skipLineTerminator(int i) {
+        if (i < limit && buffer.get(i) == '\r') {
+            i++;
+        }
+        if (i < limit && buffer.get(i) == '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
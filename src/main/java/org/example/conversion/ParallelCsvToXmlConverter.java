@@ -0,0 +1,214 @@
+package org.example.conversion;
+
+import org.example.io.CompressedFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Conversion CSV → XML en parallèle.
+ * Le fichier projeté en mémoire est découpé en tranches d'octets alignées sur de vrais
+ * débuts d'enregistrement (les champs entre guillemets sur plusieurs lignes sont respectés),
+ * chaque tranche est convertie par un worker et les fragments {@code <image>}
+ * sont recollés dans l'ordre d'origine sous la racine {@code <Images>}.
+ * Le résultat est identique octet pour octet à celui de {@link CsvToXmlConverter}.
+ */
+public class ParallelCsvToXmlConverter {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final int FRAGMENT_BUFFER_SIZE = 64 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+        String xmlPath = args.length > 1 ? args[1] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        // Fichier de mapping des colonnes ("-" ou absent : mapping PadChest par défaut)
+        String mappingPath = args.length > 3 && !CsvToXmlConverter.DICTIONARY_OPTION.equals(args[3]) ? args[3] : null;
+        // "dictionnaire" : export du dictionnaire des valeurs de listes (<xml>.dict)
+        boolean dictionary = Arrays.asList(args).contains(CsvToXmlConverter.DICTIONARY_OPTION);
+
+        System.out.println("=== CONVERSION PARALLÈLE (" + threads + " threads) ===");
+
+        // Référence séquentielle pour mesurer le gain et vérifier l'identité du résultat
+        Path sequentialXml = Files.createTempFile("padchest-sequentiel", CompressedFiles.isGzip(xmlPath) ? ".xml.gz" : ".xml");
+        try {
+            long debut = System.nanoTime();
+            CsvToXmlConverter.convert(csvPath, sequentialXml.toString(), mappingPath);
+            long tempsSequentiel = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            convert(csvPath, xmlPath, threads, mappingPath, dictionary);
+            long tempsParallele = System.nanoTime() - debut;
+
+            boolean identique = Files.mismatch(sequentialXml, Path.of(xmlPath)) == -1;
+
+            System.out.println();
+            System.out.printf("Temps séquentiel : %,d ms%n", tempsSequentiel / 1_000_000);
+            System.out.printf("Temps parallèle  : %,d ms%n", tempsParallele / 1_000_000);
+            System.out.printf("Accélération     : %.2fx%n", (double) tempsSequentiel / tempsParallele);
+            System.out.println("Sortie identique au mode séquentiel : " + (identique ? "oui" : "NON"));
+        } finally {
+            Files.deleteIfExists(sequentialXml);
+        }
+    }
+
+    public static void convert(String csvPath, String xmlPath, int threads) {
+        convert(csvPath, xmlPath, threads, null);
+    }
+
+    /**
+     * @param mappingPath fichier de mapping des colonnes, ou null pour {@link ColumnMapping#padchest()}
+     */
+    public static void convert(String csvPath, String xmlPath, int threads, String mappingPath) {
+        convert(csvPath, xmlPath, threads, mappingPath, false);
+    }
+
+    /**
+     * @param dictionary exporte aussi le dictionnaire des valeurs de listes ({@code <xml>.dict})
+     */
+    public static void convert(String csvPath, String xmlPath, int threads, String mappingPath, boolean dictionary) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            performConversion(Path.of(csvPath), Path.of(xmlPath), threads, CsvToXmlConverter.mapping(mappingPath),
+                    dictionary, executor);
+            System.out.println("Conversion parallèle terminée avec succès : " + xmlPath);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la conversion parallèle : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void performConversion(Path csvPath, Path xmlPath, int threads, ColumnMapping mapping,
+                                          boolean exportDictionary, ExecutorService executor) throws IOException, InterruptedException {
+        if (CompressedFiles.isGzip(csvPath)) {
+            // Le découpage en tranches repose sur la projection en mémoire du fichier
+            throw new IOException("Le mode parallèle nécessite un CSV non compressé : " + csvPath);
+        }
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            CsvTokenizer scanner = CsvTokenizer.map(channel);
+            MappedByteBuffer csv = (MappedByteBuffer) scanner.buffer();
+
+            String[] headers = CsvToXmlConverter.parseHeader(scanner.readHeaderLine());
+            if (headers == null) {
+                throw new IOException("Impossible de lire l'en-tête du fichier CSV");
+            }
+
+            long chunkSize = Math.max(MIN_CHUNK_SIZE, (long) scanner.limit() / ((long) threads * CHUNKS_PER_THREAD));
+            List<Integer> boundaries = findRecordBoundaries(scanner, (int) chunkSize);
+
+            try (XmlEmitter emitter = new XmlEmitter(CsvToXmlConverter.openOutput(xmlPath))) {
+                CsvToXmlConverter root = new CsvToXmlConverter(null, emitter, mapping);
+                root.writeXmlHeader();
+                root.writeOpeningTag(CsvToXmlConverter.ROOT_ELEMENT);
+
+                // Fenêtre glissante : on ne garde en mémoire que quelques fragments en avance
+                int window = threads * 2;
+                TokenDictionary dictionary = exportDictionary ? new TokenDictionary() : null;
+                Deque<Future<Fragment>> pending = new ArrayDeque<>();
+                int next = 0;
+                int chunkCount = boundaries.size() - 1;
+                while (next < chunkCount && pending.size() < window) {
+                    pending.add(submitChunk(executor, csv, boundaries.get(next), boundaries.get(++next), headers, mapping));
+                }
+                while (!pending.isEmpty()) {
+                    Fragment fragment = awaitFragment(pending.poll());
+                    emitter.writeRaw(fragment.xml);
+                    if (dictionary != null) {
+                        // Fusion dans l'ordre des tranches : mêmes identifiants qu'en séquentiel
+                        dictionary.merge(fragment.dictionary);
+                    }
+                    if (next < chunkCount) {
+                        pending.add(submitChunk(executor, csv, boundaries.get(next), boundaries.get(++next), headers, mapping));
+                    }
+                }
+
+                root.writeClosingTag(CsvToXmlConverter.ROOT_ELEMENT);
+                if (dictionary != null) {
+                    CsvToXmlConverter.exportDictionary(dictionary, xmlPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fragment XML encodé d'une tranche et dictionnaire des valeurs rencontrées.
+     */
+    private record Fragment(byte[] xml, TokenDictionary dictionary) {
+    }
+
+    private static Future<Fragment> submitChunk(ExecutorService executor, MappedByteBuffer csv,
+                                              int start, int end, String[] headers, ColumnMapping mapping) {
+        return executor.submit(() -> convertChunk(csv, start, end, headers, mapping));
+    }
+
+    private static Fragment awaitFragment(Future<Fragment> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Échec de conversion d'une tranche : " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Convertit une tranche [start, end) du CSV en fragment XML encodé.
+     */
+    private static Fragment convertChunk(MappedByteBuffer csv, int start, int end, String[] headers,
+                                         ColumnMapping mapping) throws IOException {
+        ByteArrayOutputStream fragment = new ByteArrayOutputStream((end - start) * 2);
+        CsvToXmlConverter converter;
+        try (XmlEmitter emitter = new XmlEmitter(Channels.newChannel(fragment), ByteBuffer.allocate(FRAGMENT_BUFFER_SIZE))) {
+            emitter.setDepth(1);
+            converter = new CsvToXmlConverter(new CsvTokenizer(csv, start, end), emitter, mapping);
+            converter.convertRecords(headers);
+        }
+        return new Fragment(fragment.toByteArray(), converter.projection().dictionary());
+    }
+
+    /**
+     * Saute les enregistrements en une passe (parité des guillemets uniquement, comme
+     * readCsvLine) et retourne les débuts de tranches, espacés d'environ chunkSize.
+     * Une ligne vide termine la lecture, comme dans le mode séquentiel.
+     */
+    private static List<Integer> findRecordBoundaries(CsvTokenizer scanner, int chunkSize) {
+        List<Integer> boundaries = new ArrayList<>();
+        int dataStart = scanner.position();
+        boundaries.add(dataStart);
+
+        int nextSplit = dataStart + chunkSize;
+        int end = dataStart;
+        while (scanner.skipRecord()) {
+            end = scanner.position();
+            if (end >= nextSplit) {
+                boundaries.add(end);
+                nextSplit = end + chunkSize;
+            }
+        }
+        if (boundaries.get(boundaries.size() - 1) != end || boundaries.size() == 1) {
+            boundaries.add(end);
+        }
+        return boundaries;
+    }
+}
@@ -0,0 +1,334 @@
+package org.example.conversion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conversion CSV → XML en pipeline sur threads virtuels :
+ * <ol>
+ *   <li>lecture : remplit des blocs d'octets alignés sur les enregistrements ;</li>
+ *   <li>analyse (1..n) : découpe les blocs en tableaux de champs filtrés ;</li>
+ *   <li>écriture : sérialise les {@code <image>} dans l'ordre d'origine.</li>
+ * </ol>
+ * Le CSV et le XML peuvent être compressés ({@code .gz}).
+ * Les étapes communiquent par des files bornées (contre-pression) et chaque étape
+ * mesure son temps d'attente, ce qui permet de repérer l'étape limitante.
+ */
+public class PipelinedCsvToXmlConverter {
+
+    private static final int RAW_QUEUE_CAPACITY = 4;
+    private static final int PARSED_QUEUE_CAPACITY = 8;
+
+    public static void main(String[] args) {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+        String xmlPath = args.length > 1 ? args[1] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        int parsers = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        // Fichier de mapping des colonnes ("-" ou absent : mapping PadChest par défaut)
+        String mappingPath = args.length > 3 && !CsvToXmlConverter.DICTIONARY_OPTION.equals(args[3]) ? args[3] : null;
+        // "dictionnaire" : export du dictionnaire des valeurs de listes (<xml>.dict)
+        boolean dictionary = Arrays.asList(args).contains(CsvToXmlConverter.DICTIONARY_OPTION);
+
+        System.out.println("=== CONVERSION EN PIPELINE (" + parsers + " analyseur(s)) ===");
+        long debut = System.nanoTime();
+        convert(csvPath, xmlPath, parsers, mappingPath, dictionary);
+        System.out.printf("Temps total : %,d ms%n", (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    public static void convert(String csvPath, String xmlPath, int parsers) {
+        convert(csvPath, xmlPath, parsers, null);
+    }
+
+    /**
+     * @param mappingPath fichier de mapping des colonnes, ou null pour {@link ColumnMapping#padchest()}
+     */
+    public static void convert(String csvPath, String xmlPath, int parsers, String mappingPath) {
+        convert(csvPath, xmlPath, parsers, mappingPath, false);
+    }
+
+    /**
+     * @param dictionary exporte aussi le dictionnaire des valeurs de listes ({@code <xml>.dict})
+     */
+    public static void convert(String csvPath, String xmlPath, int parsers, String mappingPath, boolean dictionary) {
+        try {
+            List<StageStats> stats = performConversion(Path.of(csvPath), Path.of(xmlPath), parsers,
+                    CsvToXmlConverter.mapping(mappingPath), dictionary);
+            System.out.println("Conversion en pipeline terminée avec succès : " + xmlPath);
+            System.out.println();
+            afficherStatistiques(stats);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la conversion en pipeline : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static List<StageStats> performConversion(Path csvPath, Path xmlPath, int parsers, ColumnMapping mapping,
+                                                      boolean dictionary) throws Exception {
+        try (ReadableByteChannel input = CsvToXmlConverter.openInput(csvPath);
+             XmlEmitter emitter = new XmlEmitter(CsvToXmlConverter.openOutput(xmlPath))) {
+            CsvBlockReader reader = new CsvBlockReader(input, CsvBlockReader.DEFAULT_BLOCK_SIZE);
+            String[] headers = CsvToXmlConverter.parseHeader(reader.readHeaderLine());
+            if (headers == null) {
+                throw new IOException("Impossible de lire l'en-tête du fichier CSV");
+            }
+
+            CsvToXmlConverter writer = new CsvToXmlConverter(null, emitter, mapping);
+            writer.useHeaders(headers);
+            writer.writeXmlHeader();
+            writer.writeOpeningTag(CsvToXmlConverter.ROOT_ELEMENT);
+            List<StageStats> stats = run(reader, writer, parsers);
+            writer.writeClosingTag(CsvToXmlConverter.ROOT_ELEMENT);
+            if (dictionary) {
+                CsvToXmlConverter.exportDictionary(writer.projection().dictionary(), xmlPath);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Démarre les étapes sur des threads virtuels et attend la fin du pipeline.
+     */
+    private static List<StageStats> run(CsvBlockReader reader, CsvToXmlConverter writer, int parsers) throws Exception {
+        StageStats readStats = new StageStats("lecture");
+        StageStats parseStats = new StageStats("analyse");
+        StageStats writeStats = new StageStats("écriture");
+        StageQueue<Block> rawQueue = new StageQueue<>("blocs bruts", RAW_QUEUE_CAPACITY);
+        StageQueue<Batch> parsedQueue = new StageQueue<>("champs filtrés", PARSED_QUEUE_CAPACITY);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        threads.add(start("csv-lecture", failure, threads, () -> {
+            long sequence = 0;
+            while (true) {
+                long debut = System.nanoTime();
+                ByteBuffer block = reader.nextBlock();
+                readStats.busy(System.nanoTime() - debut);
+                if (block == null) {
+                    break;
+                }
+                readStats.add(1);
+                rawQueue.put(new Block(sequence++, block), readStats);
+            }
+            for (int i = 0; i < parsers; i++) {
+                rawQueue.put(Block.END, readStats);
+            }
+        }));
+
+        for (int p = 0; p < parsers; p++) {
+            threads.add(start("csv-analyse-" + p, failure, threads, () -> {
+                while (true) {
+                    Block block = rawQueue.take(parseStats);
+                    if (block == Block.END) {
+                        break;
+                    }
+                    long debut = System.nanoTime();
+                    ColumnProjection projection = writer.projection();
+                    CsvTokenizer tokenizer = new CsvTokenizer(block.bytes, 0, block.bytes.limit());
+                    List<String[]> records = new ArrayList<>();
+                    while (tokenizer.nextRecord()) {
+                        records.add(projection.decode(tokenizer));
+                    }
+                    parseStats.busy(System.nanoTime() - debut);
+                    parseStats.add(records.size());
+                    parsedQueue.put(new Batch(block.sequence, records), parseStats);
+                }
+                parsedQueue.put(Batch.END, parseStats);
+            }));
+        }
+
+        threads.add(start("xml-ecriture", failure, threads, () -> {
+            // Les lots peuvent arriver dans le désordre avec plusieurs analyseurs
+            Map<Long, Batch> pending = new HashMap<>();
+            long expected = 0;
+            int finished = 0;
+            while (finished < parsers) {
+                Batch batch = parsedQueue.take(writeStats);
+                if (batch == Batch.END) {
+                    finished++;
+                    continue;
+                }
+                pending.put(batch.sequence, batch);
+                Batch next;
+                while ((next = pending.remove(expected)) != null) {
+                    long debut = System.nanoTime();
+                    for (String[] fields : next.records) {
+                        writer.writeImage(fields);
+                    }
+                    writeStats.busy(System.nanoTime() - debut);
+                    writeStats.add(next.records.size());
+                    expected++;
+                }
+            }
+        }));
+
+        if (failure.get() != null) {
+            // Échec survenu avant que toutes les étapes soient démarrées
+            threads.forEach(Thread::interrupt);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception) {
+            throw (Exception) error;
+        } else if (error != null) {
+            throw new IOException(error);
+        }
+        return List.of(readStats, parseStats, writeStats, rawQueue.stats(), parsedQueue.stats());
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static Thread start(String name, AtomicReference<Throwable> failure, List<Thread> threads, Stage stage) {
+        return Thread.ofVirtual().name(name).start(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                // Arrêt demandé suite à l'échec d'une autre étape
+            } catch (Throwable e) {
+                if (failure.compareAndSet(null, e)) {
+                    threads.forEach(Thread::interrupt);
+                }
+            }
+        });
+    }
+
+    private static void afficherStatistiques(List<StageStats> stats) {
+        System.out.println("--- STATISTIQUES DU PIPELINE ---");
+        System.out.println("┌──────────────────┬────────────┬────────────┬──────────────┬──────────────┐");
+        System.out.println("│ Étape / file     │  Éléments  │ Actif (ms) │ Attente (ms) │ Bloqué (ms)  │");
+        System.out.println("├──────────────────┼────────────┼────────────┼──────────────┼──────────────┤");
+        StageStats limitante = null;
+        for (StageStats s : stats) {
+            if (s.queue) {
+                continue;
+            }
+            System.out.printf("│ %-16s │ %,10d │ %,10d │ %,12d │ %,12d │%n",
+                    s.name, s.items, s.busyNanos / 1_000_000, s.takeStallNanos / 1_000_000, s.putStallNanos / 1_000_000);
+            if (limitante == null || s.busyNanos > limitante.busyNanos) {
+                limitante = s;
+            }
+        }
+        System.out.println("└──────────────────┴────────────┴────────────┴──────────────┴──────────────┘");
+        for (StageStats s : stats) {
+            if (s.queue) {
+                System.out.printf("File '%s' : capacité %d, profondeur moyenne %.1f, maximum %d%n",
+                        s.name, s.capacity, s.averageDepth(), s.maxDepth);
+            }
+        }
+        System.out.println("(Attente = file d'entrée vide, Bloqué = file de sortie pleine)");
+        if (limitante != null) {
+            System.out.println("Étape limitante probable : " + limitante.name);
+        }
+    }
+
+    /**
+     * Bloc brut numéroté pour conserver l'ordre d'origine.
+     */
+    private record Block(long sequence, ByteBuffer bytes) {
+        static final Block END = new Block(-1, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Enregistrements filtrés d'un bloc.
+     */
+    private record Batch(long sequence, List<String[]> records) {
+        static final Batch END = new Batch(-1, List.of());
+    }
+
+    /**
+     * Compteurs d'une étape (ou d'une file) du pipeline.
+     */
+    static final class StageStats {
+        final String name;
+        final boolean queue;
+        final int capacity;
+        volatile long items;
+        volatile long busyNanos;
+        volatile long takeStallNanos;
+        volatile long putStallNanos;
+        long depthSum;
+        long depthSamples;
+        int maxDepth;
+
+        StageStats(String name) {
+            this(name, false, 0);
+        }
+
+        private StageStats(String name, boolean queue, int capacity) {
+            this.name = name;
+            this.queue = queue;
+            this.capacity = capacity;
+        }
+
+        synchronized void busy(long nanos) {
+            busyNanos += nanos;
+        }
+
+        synchronized void add(long count) {
+            items += count;
+        }
+
+        synchronized void takeStall(long nanos) {
+            takeStallNanos += nanos;
+        }
+
+        synchronized void putStall(long nanos) {
+            putStallNanos += nanos;
+        }
+
+        synchronized void sampleDepth(int depth) {
+            depthSum += depth;
+            depthSamples++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        synchronized double averageDepth() {
+            return depthSamples == 0 ? 0 : (double) depthSum / depthSamples;
+        }
+    }
+
+    /**
+     * File bornée qui impute le temps bloqué à l'étape appelante et échantillonne sa profondeur.
+     */
+    private static final class StageQueue<T> {
+        private final BlockingQueue<T> queue;
+        private final StageStats stats;
+
+        StageQueue(String name, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.stats = new StageStats(name, true, capacity);
+        }
+
+        void put(T item, StageStats producer) throws InterruptedException {
+            long debut = System.nanoTime();
+            queue.put(item);
+            producer.putStall(System.nanoTime() - debut);
+            stats.sampleDepth(queue.size());
+        }
+
+        T take(StageStats consumer) throws InterruptedException {
+            long debut = System.nanoTime();
+            T item = queue.take();
+            consumer.takeStall(System.nanoTime() - debut);
+            return item;
+        }
+
+        StageStats stats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.conversion;
+
+import org.example.io.CompressedFiles;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Conversion CSV → XML reprenable.
+ * <p>
+ * Un point de reprise ({@link ConversionCheckpoint}) est écrit tous les N enregistrements.
+ * Après un arrêt brutal, la conversion repart du dernier point : le XML est tronqué à la
+ * dernière longueur validée et la lecture du CSV reprend à l'octet enregistré.
+ * En mode ajout, seules les lignes ajoutées au CSV depuis la dernière exécution sont
+ * converties et insérées avant {@code </Images>}, sans réécrire le XML existant.
+ */
+public class ResumableCsvToXmlConverter {
+
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+
+    public static void main(String[] args) {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+        String xmlPath = args.length > 1 ? args[1] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        boolean appendOnly = args.length > 2 && "append".equalsIgnoreCase(args[2]);
+        int interval = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CHECKPOINT_INTERVAL;
+        // Fichier de mapping des colonnes ("-" ou absent : mapping PadChest par défaut)
+        String mappingPath = args.length > 4 ? args[4] : null;
+
+        execute(csvPath, xmlPath, interval, appendOnly, mappingPath);
+    }
+
+    /**
+     * Démarre ou reprend la conversion ; si la précédente est terminée, ajoute les nouvelles lignes.
+     */
+    public static void convert(String csvPath, String xmlPath, int checkpointInterval) {
+        convert(csvPath, xmlPath, checkpointInterval, null);
+    }
+
+    /**
+     * @param mappingPath fichier de mapping des colonnes, ou null pour {@link ColumnMapping#padchest()} ;
+     *                    une reprise doit utiliser le même mapping que la conversion interrompue
+     */
+    public static void convert(String csvPath, String xmlPath, int checkpointInterval, String mappingPath) {
+        execute(csvPath, xmlPath, checkpointInterval, false, mappingPath);
+    }
+
+    /**
+     * Convertit uniquement les lignes ajoutées au CSV depuis la dernière exécution.
+     */
+    public static void append(String csvPath, String xmlPath, int checkpointInterval) {
+        append(csvPath, xmlPath, checkpointInterval, null);
+    }
+
+    public static void append(String csvPath, String xmlPath, int checkpointInterval, String mappingPath) {
+        execute(csvPath, xmlPath, checkpointInterval, true, mappingPath);
+    }
+
+    private static void execute(String csvPath, String xmlPath, int checkpointInterval, boolean appendOnly,
+                                String mappingPath) {
+        try {
+            long rows = performConversion(Path.of(csvPath), Path.of(xmlPath), checkpointInterval, appendOnly, mappingPath);
+            System.out.println("Conversion terminée avec succès : " + xmlPath + " (" + rows + " nouvelle(s) image(s))");
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la conversion : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return le nombre d'images écrites pendant cette exécution
+     */
+    private static long performConversion(Path csvPath, Path xmlPath, int checkpointInterval, boolean appendOnly,
+                                          String mappingPath) throws IOException {
+        if (CompressedFiles.isGzip(csvPath) || CompressedFiles.isGzip(xmlPath)) {
+            // La reprise repose sur des positions en octets et sur la troncature du XML
+            throw new IOException("La conversion reprenable ne prend pas en charge les fichiers .gz");
+        }
+        ConversionCheckpoint checkpoint = ConversionCheckpoint.load(xmlPath);
+        if (appendOnly && checkpoint == null) {
+            throw new IOException("Aucun point de reprise pour " + xmlPath + " : lancer d'abord une conversion complète");
+        }
+
+        try (FileChannel input = FileChannel.open(csvPath, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(xmlPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            CsvTokenizer headerReader = CsvTokenizer.map(input);
+            String headerLine = headerReader.readHeaderLine();
+            String[] headers = CsvToXmlConverter.parseHeader(headerLine);
+            if (headers == null) {
+                throw new IOException("Impossible de lire l'en-tête du fichier CSV");
+            }
+            String headerHash = ConversionCheckpoint.hashHeader(headerLine);
+            ColumnMapping mapping = CsvToXmlConverter.mapping(mappingPath);
+            String mappingHash = ConversionCheckpoint.hashMapping(mappingPath);
+
+            boolean fresh = checkpoint == null;
+            int start;
+            if (fresh) {
+                checkpoint = new ConversionCheckpoint();
+                checkpoint.headerHash = headerHash;
+                checkpoint.mappingHash = mappingHash;
+                start = headerReader.position();
+            } else {
+                if (!headerHash.equals(checkpoint.headerHash)) {
+                    throw new IOException("L'en-tête du CSV ne correspond plus au point de reprise : supprimer "
+                            + ConversionCheckpoint.pathFor(xmlPath) + " pour tout reconvertir");
+                }
+                if (!mappingHash.equals(checkpoint.mappingHash)) {
+                    throw new IOException("Le mapping des colonnes ne correspond pas au point de reprise : supprimer "
+                            + ConversionCheckpoint.pathFor(xmlPath) + " pour tout reconvertir");
+                }
+                if (output.size() < checkpoint.outputOffset || checkpoint.inputOffset > headerReader.limit()) {
+                    throw new IOException("Le XML ou le CSV est plus court que le point de reprise");
+                }
+                start = skipDanglingLineTerminator(headerReader, (int) checkpoint.inputOffset);
+            }
+
+            CsvTokenizer tokenizer = new CsvTokenizer(headerReader.buffer(), start, headerReader.limit());
+            if (checkpoint.complete && start >= tokenizer.limit()) {
+                // Aucune nouvelle ligne depuis la dernière conversion
+                return 0;
+            }
+
+            // On repart de la dernière longueur validée (la fin de document est retirée en mode ajout)
+            long base = checkpoint.outputOffset;
+            output.truncate(base);
+            output.position(base);
+
+            XmlEmitter emitter = new XmlEmitter(output);
+            CsvToXmlConverter converter = new CsvToXmlConverter(tokenizer, emitter, mapping);
+            converter.useHeaders(headers);
+            if (fresh) {
+                converter.writeXmlHeader();
+                converter.writeOpeningTag(CsvToXmlConverter.ROOT_ELEMENT);
+            } else {
+                emitter.setDepth(1);
+            }
+
+            checkpoint.complete = false;
+            long rowsBefore = checkpoint.rowsEmitted;
+            long written = 0;
+            while (converter.convertNextRecord()) {
+                written++;
+                if (written % checkpointInterval == 0) {
+                    saveCheckpoint(checkpoint, xmlPath, emitter, output, tokenizer.position(),
+                            base + emitter.bytesWritten(), rowsBefore + written);
+                }
+            }
+
+            long closingOffset = base + emitter.bytesWritten();
+            converter.writeClosingTag(CsvToXmlConverter.ROOT_ELEMENT);
+            checkpoint.complete = true;
+            saveCheckpoint(checkpoint, xmlPath, emitter, output, tokenizer.position(), closingOffset, rowsBefore + written);
+            return written;
+        }
+    }
+
+    /**
+     * Vide le buffer, force l'écriture sur disque, puis enregistre le point de reprise.
+     */
+    private static void saveCheckpoint(ConversionCheckpoint checkpoint, Path xmlPath, XmlEmitter emitter,
+                                       FileChannel output, long inputOffset, long outputOffset,
+                                       long rowsEmitted) throws IOException {
+        emitter.flush();
+        output.force(false);
+        checkpoint.inputOffset = inputOffset;
+        checkpoint.outputOffset = outputOffset;
+        checkpoint.rowsEmitted = rowsEmitted;
+        checkpoint.save(xmlPath);
+    }
+
+    /**
+     * Si la dernière ligne convertie n'avait pas de fin de ligne, le CSV complété commence
+     * par celle-ci : on la saute pour qu'elle ne soit pas prise pour une ligne vide.
+     */
+    private static int skipDanglingLineTerminator(CsvTokenizer csv, int offset) {
+        if (offset == 0 || offset >= csv.limit()) {
+            return offset;
+        }
+        byte previous = csv.buffer().get(offset - 1);
+        if (previous == '\n' || previous == '\r') {
+            return offset;
+        }
+        if (csv.buffer().get(offset) == '\r') {
+            offset++;
+        }
+        if (offset < csv.limit() && csv.buffer().get(offset) == '\n') {
+            offset++;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.conversion;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Modèles de contenu des éléments, lus dans images.dtd ou images.xsd : enfants autorisés
+ * et, pour une séquence, leur ordre. Sert à vérifier une fois pour toutes que la structure
+ * produite par une {@link ColumnProjection} respecte le schéma, sans revalider le XML.
+ */
+final class SchemaContentModel {
+
+    private static final Pattern DTD_ELEMENT = Pattern.compile("<!ELEMENT\\s+(\\S+)\\s+(.*?)>", Pattern.DOTALL);
+    private static final Pattern DTD_COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+
+    /**
+     * Enfants déclarés d'un élément. ordered : séquence (l'ordre compte) ; sinon choix.
+     */
+    record Model(boolean ordered, List<String> children, List<String> required) {
+    }
+
+    /**
+     * Écart constaté ; slot : emplacement de la projection concerné (-1 : toutes les images).
+     */
+    record Issue(String message, int slot) {
+    }
+
+    private final String name;
+    private final Map<String, Model> models;
+
+    private SchemaContentModel(String name, Map<String, Model> models) {
+        this.name = name;
+        this.models = models;
+    }
+
+    String name() {
+        return name;
+    }
+
+    Model model(String element) {
+        return models.get(element);
+    }
+
+    /**
+     * Charge le modèle d'après l'extension du fichier (.dtd ou .xsd).
+     */
+    static SchemaContentModel load(String schemaPath) throws IOException {
+        String lower = schemaPath.toLowerCase(Locale.ROOT);
+        String name = Path.of(schemaPath).getFileName().toString();
+        if (lower.endsWith(".dtd")) {
+            return new SchemaContentModel(name, parseDtd(Files.readString(Path.of(schemaPath), StandardCharsets.UTF_8)));
+        } else if (lower.endsWith(".xsd")) {
+            return new SchemaContentModel(name, parseXsd(schemaPath));
+        }
+        throw new IOException("Type de schéma non reconnu pour: " + schemaPath + ". Utiliser .xsd ou .dtd");
+    }
+
+    private static Map<String, Model> parseDtd(String dtd) {
+        Map<String, Model> models = new HashMap<>();
+        Matcher matcher = DTD_ELEMENT.matcher(DTD_COMMENT.matcher(dtd).replaceAll(""));
+        while (matcher.find()) {
+            String spec = matcher.group(2).trim();
+            boolean ordered = spec.contains(",");
+            List<String> children = new ArrayList<>();
+            List<String> required = new ArrayList<>();
+            for (String particle : spec.split("[,|()]")) {
+                String child = particle.trim();
+                if (child.isEmpty() || child.startsWith("#") || child.equals("*") || child.equals("EMPTY") || child.equals("ANY")) {
+                    continue;
+                }
+                boolean optional = child.endsWith("?") || child.endsWith("*");
+                child = child.replaceAll("[?*+]$", "");
+                children.add(child);
+                if (ordered && !optional) {
+                    required.add(child);
+                }
+            }
+            models.put(matcher.group(1), new Model(ordered, children, required));
+        }
+        return models;
+    }
+
+    private static Map<String, Model> parseXsd(String xsdPath) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            document = factory.newDocumentBuilder().parse(new File(xsdPath));
+        } catch (Exception e) {
+            throw new IOException("Schéma XSD illisible : " + xsdPath, e);
+        }
+        Map<String, Model> models = new HashMap<>();
+        collectXsd(document.getDocumentElement(), models);
+        return models;
+    }
+
+    /**
+     * Parcourt les déclarations xs:element et relève, pour chacune, les xs:element de sa
+     * séquence ou de son choix (sans descendre dans les types des enfants).
+     */
+    private static void collectXsd(Element node, Map<String, Model> models) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element element) || !XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(element.getNamespaceURI())) {
+                continue;
+            }
+            if ("element".equals(element.getLocalName()) && element.hasAttribute("name")) {
+                List<String> children = new ArrayList<>();
+                List<String> required = new ArrayList<>();
+                boolean[] ordered = new boolean[1];
+                collectParticles(element, children, required, ordered);
+                models.putIfAbsent(element.getAttribute("name"), new Model(ordered[0], children, required));
+            }
+            collectXsd(element, models);
+        }
+    }
+
+    private static void collectParticles(Element node, List<String> children, List<String> required, boolean[] ordered) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element element)) {
+                continue;
+            }
+            switch (element.getLocalName()) {
+                case "element" -> {
+                    String name = element.hasAttribute("name") ? element.getAttribute("name") : element.getAttribute("ref");
+                    children.add(name);
+                    if (ordered[0] && !"0".equals(element.getAttribute("minOccurs"))) {
+                        required.add(name);
+                    }
+                }
+                case "sequence" -> {
+                    ordered[0] = true;
+                    collectParticles(element, children, required, ordered);
+                }
+                case "complexType", "choice", "all" -> collectParticles(element, children, required, ordered);
+                default -> {
+                    // annotations, attributs...
+                }
+            }
+        }
+    }
+
+    /**
+     * Vérifie la structure produite par la projection : éléments déclarés, ordre de la
+     * séquence {@code <image>}, enfants des listes, éléments obligatoires.
+     */
+    List<Issue> check(ColumnProjection projection) {
+        List<Issue> issues = new ArrayList<>();
+        Model root = models.get(CsvToXmlConverter.ROOT_ELEMENT);
+        if (root == null) {
+            issues.add(new Issue("<" + CsvToXmlConverter.ROOT_ELEMENT + "> non déclaré", -1));
+        } else if (!root.children().contains("image")) {
+            issues.add(new Issue("<image> non autorisé dans <" + CsvToXmlConverter.ROOT_ELEMENT + ">", -1));
+        }
+        Model image = models.get("image");
+        if (image == null) {
+            issues.add(new Issue("<image> non déclaré", -1));
+            return issues;
+        }
+
+        int lastPosition = -1;
+        String lastElement = null;
+        List<String> produced = new ArrayList<>();
+        for (int slot = 0; slot < projection.columns().length; slot++) {
+            if (slot == projection.idSlot()) {
+                continue;
+            }
+            ColumnMapping.Column column = projection.column(slot);
+            String element = column.element();
+            produced.add(element);
+            int position = image.children().indexOf(element);
+            if (position < 0) {
+                issues.add(new Issue("<" + element + "> non déclaré dans <image>", slot));
+                continue;
+            }
+            if (image.ordered() && position < lastPosition) {
+                issues.add(new Issue("<" + element + "> écrit après <" + lastElement
+                        + ">, contraire à l'ordre déclaré pour <image>", slot));
+            } else {
+                lastPosition = position;
+                lastElement = element;
+            }
+
+            if (column.kind() != ColumnMapping.Kind.SCALAR) {
+                checkChild(element, column.child(), slot, issues);
+                if (column.kind() == ColumnMapping.Kind.LIST_OF_LISTS) {
+                    checkChild(column.child(), column.first(), slot, issues);
+                    checkChild(column.child(), column.other(), slot, issues);
+                }
+            }
+        }
+
+        for (String element : image.required()) {
+            if (!produced.contains(element)) {
+                issues.add(new Issue("<" + element + "> obligatoire dans <image> mais jamais produit", -1));
+            }
+        }
+        return issues;
+    }
+
+    private void checkChild(String parent, String child, int slot, List<Issue> issues) {
+        Model model = models.get(parent);
+        if (model != null && !model.children().contains(child)) {
+            issues.add(new Issue("<" + child + "> non autorisé dans <" + parent + ">", slot));
+        } else if (models.get(child) == null) {
+            issues.add(new Issue("<" + child + "> non déclaré", slot));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.conversion;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifeste d'une sortie découpée en fragments ({@code manifest.xml}) :
+ * <pre>{@code
+ * <manifest mode="patient" key="PatientID" shards="16" images="160000">
+ *     <shard index="0" path="images-00000.xml" images="10021"
+ *            minId="..." maxId="..." sha256="..."/>
+ * </manifest>
+ * }</pre>
+ * Les chemins sont relatifs au dossier du manifeste ; minId / maxId bornent les
+ * identifiants du fragment (ordre lexicographique).
+ */
+public final class ShardManifest {
+
+    public static final String FILE_NAME = "manifest.xml";
+
+    /**
+     * Un fragment : document {@code <Images>} complet.
+     */
+    public record Shard(int index, String path, long images, String minId, String maxId, String sha256) {
+    }
+
+    private final String mode;
+    private final String key;
+    private final List<Shard> shards;
+
+    public ShardManifest(String mode, String key, List<Shard> shards) {
+        this.mode = mode;
+        this.key = key;
+        this.shards = List.copyOf(shards);
+    }
+
+    /** "taille" (nombre fixe d'images) ou "patient" / "etude" (hachage de la clé). */
+    public String mode() {
+        return mode;
+    }
+
+    /** Colonne de partitionnement (null en mode taille). */
+    public String key() {
+        return key;
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    public long imageCount() {
+        return shards.stream().mapToLong(Shard::images).sum();
+    }
+
+    /**
+     * Chemin d'un fragment, résolu par rapport au dossier du manifeste.
+     */
+    public static Path resolve(Path manifestPath, Shard shard) {
+        Path directory = manifestPath.toAbsolutePath().getParent();
+        return directory.resolve(shard.path());
+    }
+
+    public void save(Path manifestPath) throws IOException {
+        Path temp = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<manifest mode=\"" + attribute(mode) + "\"");
+            if (key != null) {
+                writer.write(" key=\"" + attribute(key) + "\"");
+            }
+            writer.write(" shards=\"" + shards.size() + "\" images=\"" + imageCount() + "\">\n");
+            for (Shard shard : shards) {
+                writer.write("\t<shard index=\"" + shard.index() + "\" path=\"" + attribute(shard.path())
+                        + "\" images=\"" + shard.images()
+                        + "\" minId=\"" + attribute(shard.minId()) + "\" maxId=\"" + attribute(shard.maxId())
+                        + "\" sha256=\"" + shard.sha256() + "\"/>\n");
+            }
+            writer.write("</manifest>\n");
+        }
+        Files.move(temp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static ShardManifest load(Path manifestPath) throws IOException {
+        Document document;
+        try {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(manifestPath.toFile());
+        } catch (Exception e) {
+            throw new IOException("Manifeste illisible : " + manifestPath, e);
+        }
+        Element root = document.getDocumentElement();
+        List<Shard> shards = new ArrayList<>();
+        NodeList nodes = root.getElementsByTagName("shard");
+        try {
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Element node = (Element) nodes.item(i);
+                shards.add(new Shard(Integer.parseInt(node.getAttribute("index")), node.getAttribute("path"),
+                        Long.parseLong(node.getAttribute("images")), node.getAttribute("minId"),
+                        node.getAttribute("maxId"), node.getAttribute("sha256")));
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Manifeste invalide : " + manifestPath, e);
+        }
+        String key = root.getAttribute("key");
+        return new ShardManifest(root.getAttribute("mode"), key.isEmpty() ? null : key, shards);
+    }
+
+    private static String attribute(String value) {
+        return value == null ? "" : new String(XmlEmitter.escape(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.conversion;
+
+import org.example.io.AsyncGzipOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Conversion CSV → plusieurs documents {@code <Images>} bien formés (fragments).
+ * <p>
+ * Découpage par nombre d'images (mode "taille") ou par hachage du PatientID / StudyID
+ * (modes "patient" et "etude") pour garder ensemble les images d'un même patient ou
+ * d'une même étude. Un {@link ShardManifest} décrit les fragments (chemin, nombre
+ * d'images, plage d'identifiants, SHA-256) pour que les outils en aval les traitent
+ * en parallèle et que seuls les fragments concernés soient retraités.
+ */
+public class ShardedCsvToXmlConverter {
+
+    static final int DEFAULT_SHARD_SIZE = 10_000;
+    static final int DEFAULT_SHARD_COUNT = 16;
+    // Modes par hachage : tous les fragments restent ouverts (voir performConversion)
+    static final int MAX_SHARD_COUNT = 256;
+    private static final int SHARD_BUFFER_SIZE = 256 * 1024;
+
+    public static void main(String[] args) {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+        // Dossier au même niveau que structures/ : les fragments référencent ../structures/images.dtd
+        String outputDir = args.length > 1 ? args[1] : "src/main/java/org/example/shards";
+        // "taille" : N images par fragment ; "patient" / "etude" : N fragments par hachage
+        String mode = args.length > 2 ? args[2] : "taille";
+        int n = args.length > 3 ? Integer.parseInt(args[3]) : ("taille".equals(mode) ? DEFAULT_SHARD_SIZE : DEFAULT_SHARD_COUNT);
+        boolean gzip = args.length > 4 && "gz".equalsIgnoreCase(args[4]);
+        // Fichier de mapping des colonnes ("-" ou absent : mapping PadChest par défaut)
+        String mappingPath = args.length > 5 && !CsvToXmlConverter.DICTIONARY_OPTION.equals(args[5]) ? args[5] : null;
+        // "dictionnaire" : export du dictionnaire des valeurs de listes (à côté du manifeste)
+        boolean dictionary = Arrays.asList(args).contains(CsvToXmlConverter.DICTIONARY_OPTION);
+
+        convert(csvPath, outputDir, mode, n, gzip, mappingPath, dictionary);
+    }
+
+    public static void convert(String csvPath, String outputDir, String mode, int n, boolean gzip) {
+        convert(csvPath, outputDir, mode, n, gzip, null);
+    }
+
+    /**
+     * @param mappingPath fichier de mapping des colonnes, ou null pour {@link ColumnMapping#padchest()}
+     */
+    public static void convert(String csvPath, String outputDir, String mode, int n, boolean gzip, String mappingPath) {
+        convert(csvPath, outputDir, mode, n, gzip, mappingPath, false);
+    }
+
+    /**
+     * @param dictionary exporte aussi le dictionnaire des valeurs de listes, à côté du manifeste
+     */
+    public static void convert(String csvPath, String outputDir, String mode, int n, boolean gzip, String mappingPath,
+                               boolean dictionary) {
+        try {
+            long debut = System.nanoTime();
+            ShardManifest manifest = performConversion(csvPath, Path.of(outputDir), mode, n, gzip,
+                    CsvToXmlConverter.mapping(mappingPath), dictionary);
+            System.out.printf("Conversion en %d fragment(s) terminée avec succès : %s (%,d images, %,d ms)%n",
+                    manifest.shards().size(), Path.of(outputDir).resolve(ShardManifest.FILE_NAME),
+                    manifest.imageCount(), (System.nanoTime() - debut) / 1_000_000);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la conversion en fragments : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * En mode "taille", un seul fragment est ouvert à la fois. En modes "patient" et "etude",
+     * les n fragments restent ouverts jusqu'à la fin : environ 256 Ko de tampon chacun, et
+     * avec gzip un thread de compression et environ 1,25 Mo ; n est donc limité à
+     * {@value #MAX_SHARD_COUNT}.
+     */
+    private static ShardManifest performConversion(String csvPath, Path outputDir, String mode, int n, boolean gzip,
+                                                   ColumnMapping mapping, boolean dictionary) throws IOException {
+        String key = switch (mode) {
+            case "taille" -> null;
+            case "patient" -> "PatientID";
+            case "etude" -> "StudyID";
+            default -> throw new IllegalArgumentException("Mode inconnu : " + mode + " (taille, patient ou etude)");
+        };
+        if (n <= 0) {
+            throw new IllegalArgumentException("La taille ou le nombre de fragments doit être positif : " + n);
+        }
+        if (key != null && n > MAX_SHARD_COUNT) {
+            throw new IllegalArgumentException("Nombre de fragments trop grand : " + n + " (au plus " + MAX_SHARD_COUNT + ")");
+        }
+        Files.createDirectories(outputDir);
+        String extension = gzip ? ".xml.gz" : ".xml";
+
+        CsvToXmlConverter converter = new CsvToXmlConverter(mapping);
+        List<ShardManifest.Shard> shards = new ArrayList<>();
+        ShardWriter[] open = new ShardWriter[key == null ? 1 : n];
+        try {
+            converter.openCsv(csvPath);
+            String[] headers = converter.readHeader();
+            if (headers == null) {
+                throw new IOException("Impossible de lire l'en-tête du fichier CSV");
+            }
+            converter.useHeaders(headers);
+            ColumnProjection projection = converter.projection();
+            int keySlot = key == null ? -1 : slotOf(projection, key);
+
+            int nextIndex = 0;
+            String[] values;
+            while ((values = converter.nextRecord()) != null) {
+                int target;
+                if (key == null) {
+                    target = 0;
+                    if (open[0] != null && open[0].images == n) {
+                        shards.add(open[0].close());
+                        open[0] = null;
+                    }
+                } else {
+                    // String.hashCode est spécifié : même partition d'une exécution à l'autre
+                    String keyValue = values[keySlot] != null ? values[keySlot] : "";
+                    target = Math.floorMod(keyValue.hashCode(), n);
+                }
+                ShardWriter shard = open[target];
+                if (shard == null) {
+                    int index = key == null ? nextIndex++ : target;
+                    shard = new ShardWriter(index, outputDir, String.format("images-%05d%s", index, extension), gzip);
+                    open[target] = shard;
+                }
+                shard.write(projection, values);
+            }
+
+            for (int i = 0; i < open.length; i++) {
+                if (open[i] != null) {
+                    shards.add(open[i].close());
+                    open[i] = null;
+                }
+            }
+        } finally {
+            for (ShardWriter shard : open) {
+                if (shard != null) {
+                    shard.abort();
+                }
+            }
+            converter.closeFiles();
+        }
+
+        shards.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        ShardManifest manifest = new ShardManifest(mode, key, shards);
+        Path manifestPath = outputDir.resolve(ShardManifest.FILE_NAME);
+        manifest.save(manifestPath);
+        if (dictionary) {
+            CsvToXmlConverter.exportDictionary(converter.projection().dictionary(), manifestPath);
+        }
+        return manifest;
+    }
+
+    private static int slotOf(ColumnProjection projection, String element) throws IOException {
+        for (int slot = 0; slot < projection.columns().length; slot++) {
+            if (element.equals(projection.elementName(slot))) {
+                return slot;
+            }
+        }
+        throw new IOException("Colonne de partitionnement absente du mapping : " + element);
+    }
+
+    /**
+     * Fragment en cours d'écriture : document complet, empreinte calculée au fil de l'eau.
+     */
+    private static final class ShardWriter {
+        private final int index;
+        private final String fileName;
+        private final MessageDigest digest;
+        private final XmlEmitter emitter;
+        private long images;
+        private String minId;
+        private String maxId;
+
+        ShardWriter(int index, Path directory, String fileName, boolean gzip) throws IOException {
+            this.index = index;
+            this.fileName = fileName;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 indisponible", e);
+            }
+            // L'empreinte porte sur les octets du fichier (compressés pour un .gz)
+            OutputStream out = new DigestOutputStream(Files.newOutputStream(directory.resolve(fileName)), digest);
+            try {
+                if (gzip) {
+                    out = new AsyncGzipOutputStream(new BufferedOutputStream(out, SHARD_BUFFER_SIZE));
+                }
+                this.emitter = new XmlEmitter(Channels.newChannel(out), ByteBuffer.allocate(SHARD_BUFFER_SIZE));
+                emitter.xmlHeader();
+                emitter.openTag(XmlEmitter.tag(CsvToXmlConverter.ROOT_ELEMENT));
+            } catch (IOException | RuntimeException e) {
+                // Pas encore dans open[] : fermé ici (fichier et thread de compression)
+                try {
+                    out.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        void write(ColumnProjection projection, String[] values) throws IOException {
+            projection.writeImage(values, emitter);
+            String id = values[projection.idSlot()] != null ? values[projection.idSlot()] : "";
+            if (minId == null || id.compareTo(minId) < 0) {
+                minId = id;
+            }
+            if (maxId == null || id.compareTo(maxId) > 0) {
+                maxId = id;
+            }
+            images++;
+        }
+
+        ShardManifest.Shard close() throws IOException {
+            emitter.closeTag(XmlEmitter.tag(CsvToXmlConverter.ROOT_ELEMENT));
+            emitter.close();
+            return new ShardManifest.Shard(index, fileName, images, minId, maxId,
+                    HexFormat.of().formatHex(digest.digest()));
+        }
+
+        void abort() {
+            try {
+                emitter.close();
+            } catch (IOException e) {
+                // fragment incomplet, le manifeste ne sera pas écrit
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.conversion;
+
+import org.example.util.CharRangeTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Dictionnaire des valeurs de listes (labels, localisations, CUI...).
+ * <p>
+ * Chaque valeur distincte reçoit un petit identifiant entier la première fois qu'elle est
+ * rencontrée, et ses octets XML échappés sont encodés une seule fois. La recherche se fait
+ * directement sur une plage de caractères ({@link CharRangeTable}) : aucune chaîne n'est
+ * créée pour une valeur déjà connue. Sur demande, le dictionnaire s'exporte à côté du XML ({@code <xml>.dict},
+ * une ligne {@code id<TAB>occurrences<TAB>valeur} par valeur) et se recharge avec {@link #load}.
+ */
+public final class TokenDictionary {
+
+    public static final String SUFFIX = ".dict";
+    private static final String HEADER = "# id\toccurrences\tvaleur";
+
+    private final CharRangeTable tokens = new CharRangeTable(64);
+    private byte[][] encoded = new byte[64][];
+    private long[] counts = new long[64];
+
+    public static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public String token(int id) {
+        return tokens.key(id);
+    }
+
+    /** Nombre d'occurrences de la valeur dans le XML produit. */
+    public long count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Identifiant d'une valeur, ou -1 si elle n'est pas dans le dictionnaire.
+     */
+    public int id(String token) {
+        return tokens.find(token, 0, token.length());
+    }
+
+    byte[] encoded(int id) {
+        return encoded[id];
+    }
+
+    /**
+     * Compte une occurrence de la valeur {@code chars[start, end)} et retourne son identifiant
+     * (la valeur est ajoutée si elle est nouvelle).
+     */
+    int add(CharSequence chars, int start, int end) {
+        int id = intern(chars, start, end);
+        counts[id]++;
+        return id;
+    }
+
+    /**
+     * Ajoute les valeurs et occurrences d'un autre dictionnaire (les nouvelles valeurs sont
+     * numérotées dans l'ordre de l'autre dictionnaire).
+     */
+    void merge(TokenDictionary other) {
+        for (int i = 0; i < other.size(); i++) {
+            String token = other.token(i);
+            int id = intern(token, 0, token.length());
+            counts[id] += other.counts[i];
+        }
+    }
+
+    private int intern(CharSequence chars, int start, int end) {
+        int id = tokens.intern(chars, start, end);
+        if (id == encoded.length) {
+            encoded = Arrays.copyOf(encoded, id * 2);
+            counts = Arrays.copyOf(counts, id * 2);
+        }
+        if (encoded[id] == null) {
+            encoded[id] = XmlEmitter.escape(tokens.key(id));
+        }
+        return id;
+    }
+
+    /**
+     * Exporte le dictionnaire (UTF-8, tabulations et fins de ligne des valeurs échappées).
+     */
+    public void save(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int id = 0; id < size(); id++) {
+                writer.write(id + "\t" + counts[id] + "\t" + escapeTsv(token(id)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Recharge un dictionnaire exporté par {@link #save} (les identifiants sont conservés).
+     */
+    public static TokenDictionary load(Path path) throws IOException {
+        TokenDictionary dictionary = new TokenDictionary();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\t", 3);
+                try {
+                    if (parts.length != 3 || Integer.parseInt(parts[0]) != dictionary.size()) {
+                        throw new IOException("Ligne " + lineNumber + " invalide dans " + path);
+                    }
+                    String token = unescapeTsv(parts[2]);
+                    int id = dictionary.intern(token, 0, token.length());
+                    dictionary.counts[id] = Long.parseLong(parts[1]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Ligne " + lineNumber + " invalide dans " + path, e);
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private static String escapeTsv(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescapeTsv(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                builder.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
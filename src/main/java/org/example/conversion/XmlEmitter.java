@@ -0,0 +1,290 @@
+package org.example.conversion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Écriture XML bufferisée pour le convertisseur.
+ * <p>
+ * Les balises de l'ensemble PadChest sont pré-encodées en UTF-8, l'indentation
+ * vient d'une table précalculée et les valeurs sont échappées ({@code & < > "})
+ * directement dans un grand {@link ByteBuffer} vidé dans un canal.
+ * Aucune chaîne intermédiaire n'est construite par élément.
+ */
+final class XmlEmitter implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] XML_HEADER = ascii(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<!DOCTYPE Images SYSTEM \"../structures/images.dtd\">\n");
+    private static final byte[] ATTRIBUTE_START = ascii(" Identifiant=\"");
+    private static final byte[] ATTRIBUTE_END = ascii("\">\n");
+
+    private static final byte[] AMP = ascii("&amp;");
+    private static final byte[] LT = ascii("&lt;");
+    private static final byte[] GT = ascii("&gt;");
+    private static final byte[] QUOT = ascii("&quot;");
+
+    private static final int MAX_PRECOMPUTED_DEPTH = 16;
+    private static final byte[][] INDENTATION = new byte[MAX_PRECOMPUTED_DEPTH][];
+
+    private static final Map<String, Tag> PADCHEST_TAGS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < MAX_PRECOMPUTED_DEPTH; i++) {
+            INDENTATION[i] = ascii("\t".repeat(i));
+        }
+        for (String name : new String[]{
+                "Images", "image", "ImageID", "ImageDir", "StudyID", "PatientID", "PatientBirth",
+                "PatientSex_DICOM", "Projection", "MethodProjection", "MethodLabel", "ViewPosition",
+                "Pediatric", "Labels", "Label", "Localizations", "Localization",
+                "LabelsLocalizationsBySentence", "Sentence", "labelCUIS", "labelCUI",
+                "LocalizationsCUIS", "LocalizationsCUI", "Report", "ReportID"}) {
+            PADCHEST_TAGS.put(name, new Tag(name));
+        }
+    }
+
+    /**
+     * Balise pré-encodée : {@code <nom>}, {@code </nom>} et {@code <nom} (pour les attributs).
+     */
+    static final class Tag {
+        final String name;
+        final byte[] open;
+        final byte[] close;
+        final byte[] openStart;
+
+        Tag(String name) {
+            this.name = name;
+            this.open = utf8("<" + name + ">");
+            this.close = utf8("</" + name + ">");
+            this.openStart = utf8("<" + name);
+        }
+    }
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private int depth;
+    private long bytesWritten;
+
+    XmlEmitter(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+    }
+
+    XmlEmitter(WritableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Balise pré-encodée pour un nom d'élément (encodée à la volée hors de l'ensemble PadChest).
+     */
+    static Tag tag(String name) {
+        Tag tag = PADCHEST_TAGS.get(name);
+        return tag != null ? tag : new Tag(name);
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /** Nombre d'octets produits depuis la création (y compris ceux encore dans le buffer). */
+    long bytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    void xmlHeader() throws IOException {
+        writeRaw(XML_HEADER);
+    }
+
+    void openTag(Tag tag) throws IOException {
+        indent();
+        put(tag.open);
+        putByte('\n');
+        depth++;
+    }
+
+    void openTagWithAttribute(Tag tag, String identifiant) throws IOException {
+        indent();
+        put(tag.openStart);
+        put(ATTRIBUTE_START);
+        writeEscaped(identifiant);
+        put(ATTRIBUTE_END);
+        depth++;
+    }
+
+    void closeTag(Tag tag) throws IOException {
+        depth--;
+        indent();
+        put(tag.close);
+        putByte('\n');
+    }
+
+    /**
+     * Élément simple sur une ligne : {@code <nom>valeur</nom>}.
+     */
+    void element(Tag tag, String value) throws IOException {
+        indent();
+        put(tag.open);
+        writeEscaped(value);
+        put(tag.close);
+        putByte('\n');
+    }
+
+    /**
+     * Élément simple dont la valeur est déjà échappée et encodée (voir {@link #escape}).
+     */
+    void element(Tag tag, byte[] escapedValue) throws IOException {
+        indent();
+        put(tag.open);
+        writeRaw(escapedValue);
+        put(tag.close);
+        putByte('\n');
+    }
+
+    /**
+     * Valeur échappée et encodée en UTF-8, telle que l'écrirait {@link #element(Tag, String)}.
+     */
+    static byte[] escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            String entity = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (entity != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (entity != null) {
+                    escaped.append(entity);
+                } else {
+                    escaped.append(value.charAt(i));
+                }
+            }
+        }
+        return utf8(escaped != null ? escaped.toString() : value);
+    }
+
+    /**
+     * Copie des octets déjà encodés (en-tête, fragment produit par un autre émetteur...).
+     */
+    void writeRaw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            bytesWritten += bytes.length;
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void indent() throws IOException {
+        if (depth < MAX_PRECOMPUTED_DEPTH) {
+            put(INDENTATION[depth]);
+        } else {
+            for (int i = 0; i < depth; i++) {
+                putByte('\t');
+            }
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flushBuffer();
+        }
+        buffer.put(bytes);
+    }
+
+    private void putByte(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Encode la valeur en UTF-8 directement dans le buffer en échappant {@code & < > "}.
+     */
+    private void writeEscaped(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < 8) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&' -> buffer.put(AMP);
+                    case '<' -> buffer.put(LT);
+                    case '>' -> buffer.put(GT);
+                    case '"' -> buffer.put(QUOT);
+                    default -> buffer.put((byte) c);
+                }
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate isolé : même remplacement que l'encodeur UTF-8 du JDK
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.conversion;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mesure du débit d'écriture XML (octets/s) : ancien chemin (concaténation de chaînes +
+ * FileWriter) contre {@link XmlEmitter}. Les enregistrements sont lus une fois en mémoire
+ * pour ne mesurer que la sérialisation.
+ */
+public class XmlEmitterBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+
+        String[] headers;
+        List<String[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Path.of(csvPath), StandardOpenOption.READ)) {
+            CsvTokenizer tokenizer = CsvTokenizer.map(channel);
+            String[] csvHeaders = CsvToXmlConverter.parseHeader(tokenizer.readHeaderLine());
+            if (csvHeaders == null) {
+                throw new IOException("Impossible de lire l'en-tête du fichier CSV");
+            }
+            // Valeurs simples uniquement : l'identifiant en tête, puis un élément par colonne
+            ColumnProjection projection = ColumnMapping.padchest().compile(csvHeaders);
+            headers = new String[projection.columns().length];
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = projection.elementName(i);
+            }
+            while (tokenizer.nextRecord()) {
+                records.add(projection.decode(tokenizer));
+            }
+        }
+
+        System.out.println("=== BENCHMARK D'ÉCRITURE XML ===");
+        System.out.println("Enregistrements en mémoire : " + records.size());
+        System.out.println();
+
+        Path output = Files.createTempFile("padchest-bench", ".xml");
+        try {
+            // Warm-up
+            writeLegacy(output, headers, records);
+            writeWithEmitter(output, headers, records);
+
+            double legacy = 0;
+            double emitter = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                legacy += measure(() -> writeLegacy(output, headers, records), output);
+                emitter += measure(() -> writeWithEmitter(output, headers, records), output);
+            }
+            legacy /= ROUNDS;
+            emitter /= ROUNDS;
+
+            System.out.printf("Ancien chemin (String + FileWriter) : %,10.1f Mo/s%n", legacy / (1024 * 1024));
+            System.out.printf("XmlEmitter (ByteBuffer direct)      : %,10.1f Mo/s%n", emitter / (1024 * 1024));
+            System.out.printf("Gain                                : %.2fx%n", emitter / legacy);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private interface Run {
+        void run() throws IOException;
+    }
+
+    /**
+     * Retourne le débit en octets par seconde.
+     */
+    private static double measure(Run run, Path output) throws IOException {
+        long debut = System.nanoTime();
+        run.run();
+        long duree = System.nanoTime() - debut;
+        return Files.size(output) * 1e9 / duree;
+    }
+
+    private static void writeWithEmitter(Path output, String[] headers, List<String[]> records) throws IOException {
+        XmlEmitter.Tag[] tags = new XmlEmitter.Tag[headers.length];
+        for (int i = 1; i < headers.length; i++) {
+            tags[i] = XmlEmitter.tag(headers[i]);
+        }
+        XmlEmitter.Tag root = XmlEmitter.tag(CsvToXmlConverter.ROOT_ELEMENT);
+        XmlEmitter.Tag image = XmlEmitter.tag("image");
+
+        try (XmlEmitter emitter = new XmlEmitter(FileChannel.open(output,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            emitter.xmlHeader();
+            emitter.openTag(root);
+            for (String[] fields : records) {
+                emitter.openTagWithAttribute(image, fields[0]);
+                for (int i = 1; i < fields.length; i++) {
+                    if (fields[i] != null) {
+                        emitter.element(tags[i], fields[i]);
+                    }
+                }
+                emitter.closeTag(image);
+            }
+            emitter.closeTag(root);
+        }
+    }
+
+    private static void writeLegacy(Path output, String[] headers, List<String[]> records) throws IOException {
+        try (LegacyWriter writer = new LegacyWriter(new FileWriter(output.toFile()))) {
+            writer.xmlWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.xmlWriter.write("<!DOCTYPE Images SYSTEM \"../structures/images.dtd\">\n");
+            writer.write("<" + CsvToXmlConverter.ROOT_ELEMENT + ">\n");
+            writer.depth++;
+            for (String[] fields : records) {
+                writer.write("<image Identifiant=\"" + fields[0] + "\">\n");
+                writer.depth++;
+                for (int i = 1; i < fields.length; i++) {
+                    if (fields[i] != null) {
+                        writer.write("<" + headers[i] + ">" + fields[i] + "</" + headers[i] + ">\n");
+                    }
+                }
+                writer.depth--;
+                writer.write("</image>\n");
+            }
+            writer.depth--;
+            writer.write("</" + CsvToXmlConverter.ROOT_ELEMENT + ">\n");
+        }
+    }
+
+    /**
+     * Reproduction de l'ancien chemin d'écriture du convertisseur.
+     */
+    private static class LegacyWriter implements AutoCloseable {
+        private final FileWriter xmlWriter;
+        private int depth;
+
+        LegacyWriter(FileWriter xmlWriter) {
+            this.xmlWriter = xmlWriter;
+        }
+
+        void write(String content) throws IOException {
+            xmlWriter.write(getIndentation() + content);
+        }
+
+        private String getIndentation() {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                stringBuilder.append('\t');
+            }
+            return stringBuilder.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            xmlWriter.close();
+        }
+    }
+}
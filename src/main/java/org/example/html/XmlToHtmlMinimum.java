@@ -1,5 +1,7 @@
 package org.example.html;
 
+import org.example.io.CompressedFiles;
+
 import javax.xml.transform.*;
 import javax.xml.transform.stream.*;
 import java.io.*;
@@ -7,7 +9,8 @@ import java.io.*;
 public class XmlToHtmlMinimum {
     
     public static void main(String[] args) {
-        String cheminXml = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        // Le XML peut être compressé (.xml.gz)
+        String cheminXml = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
         String cheminXslt = "src/main/java/org/example/xslt/minimum.xsl";
         String cheminHtml = "src/main/java/org/example/html/output_minimum.html";
         
@@ -30,10 +33,12 @@ public class XmlToHtmlMinimum {
             TransformerFactory factory = TransformerFactory.newInstance();
             Source sourceXslt = new StreamSource(fichierXslt);
             Transformer transformer = factory.newTransformer(sourceXslt);
-            Source sourceXml = new StreamSource(fichierXml);
-            Result resultatHtml = new StreamResult(new File(cheminHtml));
-            
-            transformer.transform(sourceXml, resultatHtml);
+            try (InputStream entree = CompressedFiles.newInputStream(fichierXml.toPath())) {
+                Source sourceXml = new StreamSource(entree, fichierXml.toURI().toString());
+                Result resultatHtml = new StreamResult(new File(cheminHtml));
+                
+                transformer.transform(sourceXml, resultatHtml);
+            }
             
             long duree = System.currentTimeMillis() - debut;
 
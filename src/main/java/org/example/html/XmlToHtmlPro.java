@@ -1,6 +1,8 @@
 
 package org.example.html;
 
+import org.example.io.CompressedFiles;
+
 import javax.xml.transform.*;
 import javax.xml.transform.stream.*;
 import java.io.*;
@@ -8,7 +10,8 @@ import java.io.*;
 public class XmlToHtmlPro {
 
     public static void main(String[] args) {
-        String cheminXml = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        // Le XML peut être compressé (.xml.gz)
+        String cheminXml = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
         String cheminXslt = "src/main/java/org/example/xslt/pro.xsl";
         String cheminHtml = "src/main/java/org/example/html/output_pro.html";
 
@@ -31,17 +34,19 @@ public class XmlToHtmlPro {
             TransformerFactory factory = TransformerFactory.newInstance();
             Source sourceXslt = new StreamSource(fichierXslt);
             Transformer transformer = factory.newTransformer(sourceXslt);
-            Source sourceXml = new StreamSource(fichierXml);
-            Result resultatHtml = new StreamResult(new File(cheminHtml));
+            try (InputStream entree = CompressedFiles.newInputStream(fichierXml.toPath())) {
+                Source sourceXml = new StreamSource(entree, fichierXml.toURI().toString());
+                Result resultatHtml = new StreamResult(new File(cheminHtml));
 
-            transformer.transform(sourceXml, resultatHtml);
+                transformer.transform(sourceXml, resultatHtml);
+            }
 
             long duree = System.currentTimeMillis() - debut;
 
             System.out.println("Transformation réussie - " + cheminHtml);
             System.out.println("Durée : " + duree + " ms");
 
-        } catch (TransformerException e) {
+        } catch (TransformerException | IOException e) {
             System.out.println("Erreur lors de la transformation : " + e.getMessage());
             e.printStackTrace();
         }
@@ -0,0 +1,125 @@
+package org.example.index;
+
+import org.example.index.InvertedIndex.Field;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index bitmap PadChest : un {@link CompressedBitmap} des images par valeur de chaque champ
+ * de l'{@link InvertedIndex}, combinés par des requêtes booléennes.
+ * <pre>
+ * Label='pleural effusion' AND Localization='loc right' AND NOT Label=pediatric
+ * (Projection=PA OR Projection=AP) AND PatientSex_DICOM=F
+ * </pre>
+ * Opérateurs AND, OR, NOT (priorité décroissante : NOT, AND, OR) et parenthèses ; une
+ * valeur contenant des espaces se met entre apostrophes ou guillemets. Les bitmaps sont
+ * chargés depuis l'index inversé, sans relire le XML.
+ */
+public final class BitmapIndex {
+
+    /**
+     * Évalue des requêtes (par défaut, celles de la documentation).
+     */
+    public static void main(String[] args) {
+        String indexPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml" + InvertedIndex.SUFFIX;
+        String[] queries = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{
+                "Label='pleural effusion' AND Localization='loc right' AND NOT Label=pediatric",
+                "(Projection=PA OR Projection=AP) AND PatientSex_DICOM=F",
+                "Localization='loc right'"
+        };
+
+        System.out.println("=== REQUÊTES BOOLÉENNES SUR L'INDEX BITMAP ===");
+        System.out.println("Index : " + indexPath);
+        System.out.println();
+
+        try {
+            long debut = System.nanoTime();
+            BitmapIndex index = open(Path.of(indexPath));
+            System.out.println("Bitmaps chargés : " + (System.nanoTime() - debut) / 1_000_000 + " ms");
+            for (String query : queries) {
+                debut = System.nanoTime();
+                CompressedBitmap result = index.query(query);
+                long duree = System.nanoTime() - debut;
+                List<String> identifiants = index.identifiants(result, 10);
+                System.out.println();
+                System.out.println(query);
+                System.out.printf("   %d images (%d µs)%n", result.cardinality(), duree / 1000);
+                System.out.println("   Premiers identifiants : " + identifiants);
+            }
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la requête : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private final InvertedIndex index;
+    private final CompressedBitmap all;
+    private final Map<Field, Map<String, CompressedBitmap>> bitmaps = new EnumMap<>(Field.class);
+
+    private BitmapIndex(InvertedIndex index) {
+        this.index = index;
+        this.all = CompressedBitmap.range(index.imageCount());
+        for (Field field : Field.values()) {
+            Map<String, CompressedBitmap> values = new HashMap<>();
+            for (String value : index.values(field)) {
+                values.put(value, CompressedBitmap.of(index.images(field, value)));
+            }
+            bitmaps.put(field, values);
+        }
+    }
+
+    public static BitmapIndex open(Path indexPath) throws IOException {
+        return of(InvertedIndex.open(indexPath));
+    }
+
+    public static BitmapIndex of(InvertedIndex index) {
+        return new BitmapIndex(index);
+    }
+
+    /**
+     * Toutes les images (complément de NOT).
+     */
+    public CompressedBitmap all() {
+        return all;
+    }
+
+    /**
+     * Images contenant la valeur (bitmap vide si elle n'est pas indexée).
+     */
+    public CompressedBitmap bitmap(Field field, String value) {
+        return bitmaps.get(field).getOrDefault(value, CompressedBitmap.empty());
+    }
+
+    /**
+     * Images satisfaisant la requête.
+     *
+     * @throws IllegalArgumentException si la requête est mal formée ou cite un champ non indexé
+     */
+    public CompressedBitmap query(String query) {
+        return new BooleanQuery(query, this).evaluate();
+    }
+
+    public int count(String query) {
+        return query(query).cardinality();
+    }
+
+    /**
+     * Identifiant des limit premières images du bitmap, dans l'ordre du document.
+     */
+    public List<String> identifiants(CompressedBitmap images, int limit) {
+        int[] ordinals = images.toArray();
+        List<String> result = new ArrayList<>(Math.min(limit, ordinals.length));
+        for (int i = 0; i < Math.min(limit, ordinals.length); i++) {
+            result.add(index.identifiant(ordinals[i]));
+        }
+        return result;
+    }
+}
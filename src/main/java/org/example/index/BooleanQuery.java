@@ -0,0 +1,137 @@
+package org.example.index;
+
+import org.example.index.InvertedIndex.Field;
+
+/**
+ * Évaluation d'une requête booléenne sur un {@link BitmapIndex} par descente récursive :
+ * <pre>
+ * requête := terme (OR terme)*
+ * terme   := facteur (AND facteur)*
+ * facteur := NOT facteur | '(' requête ')' | Element=valeur
+ * </pre>
+ */
+final class BooleanQuery {
+
+    private final String query;
+    private final BitmapIndex index;
+    private int position;
+
+    BooleanQuery(String query, BitmapIndex index) {
+        this.query = query;
+        this.index = index;
+    }
+
+    CompressedBitmap evaluate() {
+        CompressedBitmap result = disjunction();
+        skipBlanks();
+        if (position < query.length()) {
+            throw error("fin de requête attendue");
+        }
+        return result;
+    }
+
+    private CompressedBitmap disjunction() {
+        CompressedBitmap result = conjunction();
+        while (keyword("OR")) {
+            result = result.or(conjunction());
+        }
+        return result;
+    }
+
+    private CompressedBitmap conjunction() {
+        CompressedBitmap result = factor();
+        while (keyword("AND")) {
+            // A AND NOT B : différence directe, sans construire le complément de B
+            if (keyword("NOT")) {
+                result = result.andNot(factor());
+            } else {
+                result = result.and(factor());
+            }
+        }
+        return result;
+    }
+
+    private CompressedBitmap factor() {
+        if (keyword("NOT")) {
+            return index.all().andNot(factor());
+        }
+        skipBlanks();
+        if (position < query.length() && query.charAt(position) == '(') {
+            position++;
+            CompressedBitmap result = disjunction();
+            skipBlanks();
+            if (position == query.length() || query.charAt(position) != ')') {
+                throw error("')' attendue");
+            }
+            position++;
+            return result;
+        }
+        return condition();
+    }
+
+    /**
+     * Element=valeur ; la valeur est entre apostrophes ou guillemets, ou s'arrête au
+     * premier blanc ou à la première parenthèse.
+     */
+    private CompressedBitmap condition() {
+        int start = position;
+        while (position < query.length() && query.charAt(position) != '=' && !isDelimiter(query.charAt(position))) {
+            position++;
+        }
+        if (position == query.length() || query.charAt(position) != '=' || position == start) {
+            throw error("Element=valeur attendu");
+        }
+        String element = query.substring(start, position++);
+        Field field = Field.forElement(element);
+        if (field == null) {
+            throw error("champ non indexé : " + element);
+        }
+        String value;
+        if (position < query.length() && (query.charAt(position) == '\'' || query.charAt(position) == '"')) {
+            int end = query.indexOf(query.charAt(position), position + 1);
+            if (end < 0) {
+                throw error("valeur non terminée");
+            }
+            value = query.substring(position + 1, end);
+            position = end + 1;
+        } else {
+            start = position;
+            while (position < query.length() && !isDelimiter(query.charAt(position))) {
+                position++;
+            }
+            value = query.substring(start, position);
+            if (value.isEmpty()) {
+                throw error("valeur attendue");
+            }
+        }
+        return index.bitmap(field, value);
+    }
+
+    /**
+     * Consomme le mot-clé (insensible à la casse) s'il suit.
+     */
+    private boolean keyword(String keyword) {
+        skipBlanks();
+        int end = position + keyword.length();
+        if (end <= query.length() && query.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == query.length() || isDelimiter(query.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipBlanks() {
+        while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Requête invalide (position " + position + ", " + message + ") : " + query);
+    }
+}
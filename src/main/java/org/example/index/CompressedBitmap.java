@@ -0,0 +1,347 @@
+package org.example.index;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble d'ordinaux d'images compressé par blocs de 65 536 (à la manière des « roaring
+ * bitmaps ») : un bloc peu rempli est une liste triée de char, un bloc dense (plus de
+ * 4 096 éléments) un tableau de 1 024 mots de 64 bits. Les opérations entre blocs denses
+ * se font mot par mot.
+ * <p>
+ * Les bitmaps sont immuables : {@link #and}, {@link #or} et {@link #andNot} en créent de nouveaux.
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0], 0);
+
+    /**
+     * Bloc : values[0, size) triées, ou words si le bloc est dense (values == null).
+     */
+    private static final class Container {
+        final char[] values;
+        final int size;
+        final long[] words;
+        final int cardinality;
+
+        Container(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+            this.words = null;
+            this.cardinality = size;
+        }
+
+        Container(long[] words, int cardinality) {
+            this.values = null;
+            this.size = 0;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        long[] toWords() {
+            if (words != null) {
+                return words.clone();
+            }
+            long[] result = new long[WORDS];
+            for (int i = 0; i < size; i++) {
+                result[values[i] >>> 6] |= 1L << values[i];
+            }
+            return result;
+        }
+
+        /**
+         * Bloc d'après ses mots : liste si peu rempli, null si vide.
+         */
+        static Container ofWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality == 0) {
+                return null;
+            }
+            if (cardinality > ARRAY_LIMIT) {
+                return new Container(words, cardinality);
+            }
+            char[] values = new char[cardinality];
+            int size = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new Container(values, size);
+        }
+
+        static Container ofValues(char[] values, int size) {
+            if (size == 0) {
+                return null;
+            }
+            if (size > ARRAY_LIMIT) {
+                long[] words = new long[WORDS];
+                for (int i = 0; i < size; i++) {
+                    words[values[i] >>> 6] |= 1L << values[i];
+                }
+                return new Container(words, size);
+            }
+            return new Container(values, size);
+        }
+    }
+
+    // Bits de poids fort de chaque bloc (croissants) et blocs correspondants
+    private final char[] keys;
+    private final Container[] containers;
+    private final int cardinality;
+
+    private CompressedBitmap(char[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Bitmap des ordinaux donnés, croissants et sans doublon.
+     */
+    public static CompressedBitmap of(int[] ordinals) {
+        Builder builder = new Builder();
+        int i = 0;
+        while (i < ordinals.length) {
+            char key = (char) (ordinals[i] >>> 16);
+            int end = i;
+            while (end < ordinals.length && ordinals[end] >>> 16 == key) {
+                end++;
+            }
+            char[] values = new char[end - i];
+            for (int j = i; j < end; j++) {
+                values[j - i] = (char) ordinals[j];
+            }
+            builder.add(key, Container.ofValues(values, values.length));
+            i = end;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Bitmap des ordinaux [0, count).
+     */
+    public static CompressedBitmap range(int count) {
+        Builder builder = new Builder();
+        for (int start = 0; start < count; start += 1 << 16) {
+            long[] words = new long[WORDS];
+            int length = Math.min(1 << 16, count - start);
+            Arrays.fill(words, 0, length >>> 6, -1L);
+            if ((length & 63) != 0) {
+                words[length >>> 6] = (1L << length) - 1;
+            }
+            builder.add((char) (start >>> 16), Container.ofWords(words));
+        }
+        return builder.build();
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean contains(int ordinal) {
+        int index = Arrays.binarySearch(keys, (char) (ordinal >>> 16));
+        return index >= 0 && containers[index].contains((char) ordinal);
+    }
+
+    /**
+     * Ordinaux croissants.
+     */
+    public int[] toArray() {
+        int[] result = new int[cardinality];
+        int n = 0;
+        for (int c = 0; c < keys.length; c++) {
+            int high = keys[c] << 16;
+            Container container = containers[c];
+            if (container.words == null) {
+                for (int i = 0; i < container.size; i++) {
+                    result[n++] = high | container.values[i];
+                }
+            } else {
+                for (int i = 0; i < WORDS; i++) {
+                    long word = container.words[i];
+                    while (word != 0) {
+                        result[n++] = high | (i * 64 + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                builder.add(keys[i], and(containers[i++], other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                builder.add(keys[i], containers[i++]);
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                builder.add(other.keys[j], other.containers[j++]);
+            } else {
+                builder.add(keys[i], or(containers[i++], other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Éléments de ce bitmap absents de other.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        Builder builder = new Builder();
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                builder.add(keys[i], andNot(containers[i], other.containers[j]));
+            } else {
+                builder.add(keys[i], containers[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Container and(Container a, Container b) {
+        if (a.words != null && b.words != null) {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                words[i] = a.words[i] & b.words[i];
+            }
+            return Container.ofWords(words);
+        }
+        // Au moins une liste : on parcourt la liste (la plus courte s'il y en a deux)
+        Container list = a.words == null && (b.words != null || a.size <= b.size) ? a : b;
+        Container other = list == a ? b : a;
+        char[] values = new char[list.size];
+        int size = 0;
+        for (int i = 0; i < list.size; i++) {
+            if (other.contains(list.values[i])) {
+                values[size++] = list.values[i];
+            }
+        }
+        return Container.ofValues(values, size);
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a.words == null && b.words == null && a.size + b.size <= ARRAY_LIMIT) {
+            // Fusion de deux listes triées
+            char[] values = new char[a.size + b.size];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.values[i] < b.values[j])) {
+                    values[size++] = a.values[i++];
+                } else if (i == a.size || a.values[i] > b.values[j]) {
+                    values[size++] = b.values[j++];
+                } else {
+                    values[size++] = a.values[i++];
+                    j++;
+                }
+            }
+            return Container.ofValues(values, size);
+        }
+        long[] words = a.toWords();
+        if (b.words != null) {
+            for (int i = 0; i < WORDS; i++) {
+                words[i] |= b.words[i];
+            }
+        } else {
+            for (int i = 0; i < b.size; i++) {
+                words[b.values[i] >>> 6] |= 1L << b.values[i];
+            }
+        }
+        return Container.ofWords(words);
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if (a.words == null) {
+            char[] values = new char[a.size];
+            int size = 0;
+            for (int i = 0; i < a.size; i++) {
+                if (!b.contains(a.values[i])) {
+                    values[size++] = a.values[i];
+                }
+            }
+            return Container.ofValues(values, size);
+        }
+        long[] words = a.words.clone();
+        if (b.words != null) {
+            for (int i = 0; i < WORDS; i++) {
+                words[i] &= ~b.words[i];
+            }
+        } else {
+            for (int i = 0; i < b.size; i++) {
+                words[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+            }
+        }
+        return Container.ofWords(words);
+    }
+
+    /**
+     * Assemblage des blocs non vides, par clés croissantes.
+     */
+    private static final class Builder {
+        private char[] keys = new char[4];
+        private Container[] containers = new Container[4];
+        private int size;
+        private int cardinality;
+
+        void add(char key, Container container) {
+            if (container == null) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = key;
+            containers[size++] = container;
+            cardinality += container.cardinality;
+        }
+
+        CompressedBitmap build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), cardinality);
+        }
+    }
+}
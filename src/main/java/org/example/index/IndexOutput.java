@@ -0,0 +1,89 @@
+package org.example.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Contenu d'un fichier d'index construit en mémoire : entiers big-endian (lus tels quels
+ * par un {@link java.nio.ByteBuffer} projeté), varints et octets bruts. Les positions
+ * réservées (tables d'offsets) sont complétées ensuite par {@link #putIntAt}.
+ */
+final class IndexOutput {
+
+    private byte[] bytes = new byte[1 << 16];
+    private int size;
+
+    int position() {
+        return size;
+    }
+
+    void putInt(int value) {
+        ensure(4);
+        putIntAt(size, value);
+        size += 4;
+    }
+
+    void putIntAt(int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    /**
+     * Réserve count entiers et retourne la position du premier.
+     */
+    int reserve(int count) {
+        ensure(4 * count);
+        int position = size;
+        size += 4 * count;
+        return position;
+    }
+
+    /**
+     * Entier positif sur 1 à 5 octets, 7 bits par octet (bit de poids fort : octet suivant).
+     */
+    void putVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    void putBytes(byte[] value) {
+        ensure(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+    }
+
+    /**
+     * Liste triée d'ordinaux : le premier, puis les écarts successifs, en varints.
+     */
+    void putPostings(int[] ordinals, int count) {
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            putVarint(ordinals[i] - previous);
+            previous = ordinals[i];
+        }
+    }
+
+    /**
+     * Écrit le fichier (remplacement atomique : un index à moitié écrit n'est jamais lu).
+     */
+    void writeTo(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, size == bytes.length ? bytes : Arrays.copyOf(bytes, size));
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void ensure(int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + length, bytes.length * 2));
+        }
+    }
+}
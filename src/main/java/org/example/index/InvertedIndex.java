@@ -0,0 +1,222 @@
+package org.example.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index inversé PadChest : pour chaque valeur de Label, Localization, labelCUI,
+ * LocalizationsCUI et des champs simples peu variés (Projection, MethodProjection,
+ * PatientSex_DICOM), les images (ordinaux, dans l'ordre du document) qui la contiennent,
+ * et la table ordinal → Identifiant.
+ * <p>
+ * Le fichier est projeté en mémoire et lu sur place : une requête est une recherche
+ * dichotomique dans les valeurs triées du champ puis le décodage des écarts en varints,
+ * sans relire le XML. Construit par {@link InvertedIndexBuilder}.
+ * <pre>
+ * en-tête   : MAGIC, VERSION, nombre d'images, offset des identifiants, offset de chaque champ
+ * identifiants : (images + 1) offsets, puis les Identifiant en UTF-8
+ * champ     : nombre de valeurs, puis par valeur {offset, longueur, images, offset des ordinaux},
+ *             puis les valeurs UTF-8 (triées par octets) et les ordinaux (écarts en varints)
+ * </pre>
+ * La lecture est sans état : une instance peut servir plusieurs threads.
+ */
+public final class InvertedIndex {
+
+    /**
+     * Champs indexés (éléments du XML, à toute profondeur de l'image).
+     */
+    public enum Field {
+        LABEL("Label"),
+        LOCALIZATION("Localization"),
+        LABEL_CUI("labelCUI"),
+        LOCALIZATION_CUI("LocalizationsCUI"),
+        PROJECTION("Projection"),
+        METHOD_PROJECTION("MethodProjection"),
+        PATIENT_SEX("PatientSex_DICOM");
+
+        private final String element;
+
+        Field(String element) {
+            this.element = element;
+        }
+
+        public String element() {
+            return element;
+        }
+
+        /**
+         * Champ d'un nom d'élément, ou null s'il n'est pas indexé.
+         */
+        public static Field forElement(String element) {
+            for (Field field : values()) {
+                if (field.element.equals(element)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final String SUFFIX = ".idx";
+    static final int MAGIC = 0x50434949; // "PCII"
+    static final int VERSION = 2;
+
+    /**
+     * Interroge l'index : arguments "Element=valeur" (Localization=loc right par défaut).
+     */
+    public static void main(String[] args) {
+        String indexPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml" + SUFFIX;
+        String[] queries = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{"Localization=loc right"};
+
+        System.out.println("=== REQUÊTES SUR L'INDEX INVERSÉ ===");
+        System.out.println("Index : " + indexPath);
+        System.out.println();
+
+        try {
+            InvertedIndex index = open(Path.of(indexPath));
+            System.out.println("Images indexées : " + index.imageCount());
+            for (String query : queries) {
+                int separator = query.indexOf('=');
+                Field field = separator < 0 ? null : Field.forElement(query.substring(0, separator));
+                if (field == null) {
+                    System.err.println("✗ Requête invalide (Element=valeur attendu) : " + query);
+                    continue;
+                }
+                String value = query.substring(separator + 1);
+                long debut = System.nanoTime();
+                int count = index.count(field, value);
+                long countTime = System.nanoTime() - debut;
+                debut = System.nanoTime();
+                List<String> identifiants = index.identifiants(field, value);
+                long listTime = System.nanoTime() - debut;
+                System.out.println();
+                System.out.printf("%s = '%s' : %d images (comptage %d µs, liste %d µs)%n",
+                        field.element(), value, count, countTime / 1000, listTime / 1000);
+                System.out.println("   Premiers identifiants : " + identifiants.subList(0, Math.min(10, identifiants.size())));
+            }
+
+            System.out.println();
+            System.out.println("Images par label :");
+            long debut = System.nanoTime();
+            for (String label : index.values(Field.LABEL)) {
+                System.out.printf("   %-40s : %6d images%n", label, index.count(Field.LABEL, label));
+            }
+            System.out.println("   (" + (System.nanoTime() - debut) / 1000 + " µs)");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur de lecture de l'index : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private final ByteBuffer index;
+    private final int imageCount;
+    private final int identifiants;
+    private final TermDirectory[] directories = new TermDirectory[Field.values().length];
+
+    private InvertedIndex(ByteBuffer index) throws IOException {
+        this.index = index;
+        if (index.capacity() < 16 + 4 * Field.values().length || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("Index illisible");
+        }
+        imageCount = index.getInt(8);
+        identifiants = index.getInt(12);
+        for (Field field : Field.values()) {
+            directories[field.ordinal()] = new TermDirectory(index, index.getInt(16 + 4 * field.ordinal()));
+        }
+    }
+
+    public static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Ouvre l'index en le projetant en mémoire (les pages sont chargées à la demande).
+     */
+    public static InvertedIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new InvertedIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int imageCount() {
+        return imageCount;
+    }
+
+    /**
+     * Identifiant de l'image d'ordinal donné (0 pour la première image du document).
+     */
+    public String identifiant(int ordinal) {
+        int start = index.getInt(identifiants + 4 * ordinal);
+        int end = index.getInt(identifiants + 4 * (ordinal + 1));
+        return TermDirectory.string(index, start, end - start);
+    }
+
+    /**
+     * Nombre d'images contenant la valeur (lu dans l'entrée de la valeur, sans décodage).
+     */
+    public int count(Field field, String value) {
+        TermDirectory directory = directories[field.ordinal()];
+        int i = directory.find(value.getBytes(StandardCharsets.UTF_8));
+        return i < 0 ? 0 : directory.documentCount(i);
+    }
+
+    /**
+     * Ordinaux croissants des images contenant la valeur.
+     */
+    public int[] images(Field field, String value) {
+        TermDirectory directory = directories[field.ordinal()];
+        int i = directory.find(value.getBytes(StandardCharsets.UTF_8));
+        if (i < 0) {
+            return new int[0];
+        }
+        int[] ordinals = new int[directory.documentCount(i)];
+        int position = directory.postings(i);
+        int ordinal = 0;
+        for (int n = 0; n < ordinals.length; n++) {
+            // Varint : 7 bits par octet, bit de poids fort pour l'octet suivant
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = index.get(position++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            ordinal += gap;
+            ordinals[n] = ordinal;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Identifiant des images contenant la valeur, dans l'ordre du document.
+     */
+    public List<String> identifiants(Field field, String value) {
+        int[] ordinals = images(field, value);
+        List<String> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(identifiant(ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * Valeurs du champ, triées (par octets UTF-8).
+     */
+    public List<String> values(Field field) {
+        TermDirectory directory = directories[field.ordinal()];
+        List<String> values = new ArrayList<>(directory.size());
+        for (int i = 0; i < directory.size(); i++) {
+            values.add(directory.term(i));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.index;
+
+import org.example.index.InvertedIndex.Field;
+import org.example.io.CompressedFiles;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construit l'{@link InvertedIndex} d'un XML PadChest en une lecture SAX.
+ * <p>
+ * Les images reçoivent leur ordinal dans l'ordre du document ; une valeur présente
+ * plusieurs fois dans une image (dans Labels et dans une Sentence, par exemple) n'y
+ * est comptée qu'une fois. La DTD n'est pas chargée : l'index ne valide pas le document.
+ */
+public final class InvertedIndexBuilder extends DefaultHandler {
+
+    public static void main(String[] args) {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        Path indexPath = args.length > 1 ? Path.of(args[1]) : InvertedIndex.pathFor(Path.of(xmlPath));
+
+        System.out.println("=== CONSTRUCTION DE L'INDEX INVERSÉ ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println("Index : " + indexPath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            InvertedIndexBuilder builder = build(Path.of(xmlPath), indexPath);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("Images indexées : " + builder.identifiants.size());
+            for (Field field : Field.values()) {
+                System.out.println("Valeurs de " + field.element() + " : " + builder.postings.get(field).size());
+            }
+            System.out.println("Taille de l'index : " + Files.size(indexPath) + " octets");
+            System.out.println("\n✓ Index construit avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la construction de l'index : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ordinaux d'images d'une valeur, croissants et sans doublon.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[8];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+
+    private final List<String> identifiants = new ArrayList<>();
+    private final Map<Field, Map<String, Postings>> postings = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    private Field current;
+
+    private InvertedIndexBuilder() {
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Lit le document et écrit son index.
+     */
+    public static InvertedIndexBuilder build(Path xmlPath, Path indexPath) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        SAXParser parser = factory.newSAXParser();
+        InvertedIndexBuilder builder = new InvertedIndexBuilder();
+        try (InputStream in = CompressedFiles.newInputStream(xmlPath)) {
+            parser.parse(new InputSource(in), builder);
+        }
+        builder.write(indexPath);
+        return builder;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if ("image".equals(qName)) {
+            String identifiant = attributes.getValue("Identifiant");
+            identifiants.add(identifiant != null ? identifiant : "");
+            return;
+        }
+        current = identifiants.isEmpty() ? null : Field.forElement(qName);
+        text.setLength(0);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (current != null) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if (current == null) {
+            return;
+        }
+        String value = text.toString().trim();
+        if (!value.isEmpty()) {
+            postings.get(current).computeIfAbsent(value, v -> new Postings()).add(identifiants.size() - 1);
+        }
+        current = null;
+    }
+
+    private void write(Path indexPath) throws IOException {
+        IndexOutput out = new IndexOutput();
+        out.putInt(InvertedIndex.MAGIC);
+        out.putInt(InvertedIndex.VERSION);
+        out.putInt(identifiants.size());
+        int identifiantsOffset = out.reserve(1);
+        int sections = out.reserve(Field.values().length);
+
+        out.putIntAt(identifiantsOffset, out.position());
+        int offsets = out.reserve(identifiants.size() + 1);
+        for (int i = 0; i < identifiants.size(); i++) {
+            out.putIntAt(offsets + 4 * i, out.position());
+            out.putBytes(identifiants.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        out.putIntAt(offsets + 4 * identifiants.size(), out.position());
+
+        for (Field field : Field.values()) {
+            out.putIntAt(sections + 4 * field.ordinal(), out.position());
+            Map<String, Postings> values = postings.get(field);
+            // Tri par octets UTF-8 : l'ordre de la recherche dichotomique
+            byte[][] keys = new byte[values.size()][];
+            int k = 0;
+            for (String value : values.keySet()) {
+                keys[k++] = value.getBytes(StandardCharsets.UTF_8);
+            }
+            Arrays.sort(keys, Arrays::compareUnsigned);
+            out.putInt(keys.length);
+            int entries = out.reserve(keys.length * TermDirectory.ENTRY_SIZE / 4);
+            for (int i = 0; i < keys.length; i++) {
+                out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i, out.position());
+                out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 4, keys[i].length);
+                out.putBytes(keys[i]);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                Postings list = values.get(new String(keys[i], StandardCharsets.UTF_8));
+                out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 8, list.size);
+                out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 12, out.position());
+                out.putPostings(list.ordinals, list.size);
+            }
+        }
+        out.writeTo(indexPath);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.index;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parcours des documents d'un terme de l'{@link ReportIndex}, dans l'ordre croissant, lus
+ * sur place dans le fichier projeté. Les positions ne sont décodées que si elles sont
+ * demandées.
+ */
+final class PostingsCursor {
+
+    private final ByteBuffer index;
+    private final int documentCount;
+    private int read;
+    private int offset;
+    private int document = -1;
+    private int frequency;
+    // Début des positions du document courant, -1 une fois passées
+    private int positionsOffset = -1;
+    private int[] positions = new int[8];
+
+    PostingsCursor(ByteBuffer index, int offset, int documentCount) {
+        this.index = index;
+        this.offset = offset;
+        this.documentCount = documentCount;
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Passe au document suivant ; false à la fin.
+     */
+    boolean next() {
+        if (positionsOffset >= 0) {
+            for (int i = 0; i < frequency; i++) {
+                skipVarint();
+            }
+            positionsOffset = -1;
+        }
+        if (read == documentCount) {
+            document = Integer.MAX_VALUE;
+            return false;
+        }
+        read++;
+        document = (document < 0 ? 0 : document) + readVarint();
+        frequency = readVarint();
+        positionsOffset = offset;
+        return true;
+    }
+
+    /**
+     * Avance jusqu'au premier document &ge; target ; false s'il n'y en a pas.
+     */
+    boolean advance(int target) {
+        while (document < target) {
+            if (!next()) {
+                return false;
+            }
+        }
+        return document != Integer.MAX_VALUE;
+    }
+
+    int document() {
+        return document;
+    }
+
+    int frequency() {
+        return frequency;
+    }
+
+    /**
+     * Positions croissantes du terme dans le document courant : les {@link #frequency()}
+     * premières cases du tableau rendu, réutilisé d'un document à l'autre.
+     */
+    int[] positions() {
+        if (positionsOffset < 0) {
+            return positions;
+        }
+        if (positions.length < frequency) {
+            positions = new int[Math.max(frequency, positions.length * 2)];
+        }
+        offset = positionsOffset;
+        int position = 0;
+        for (int i = 0; i < frequency; i++) {
+            position += readVarint();
+            positions[i] = position;
+        }
+        positionsOffset = -1;
+        return positions;
+    }
+
+    /**
+     * Tous les documents restants.
+     */
+    int[] documents() {
+        int[] documents = new int[documentCount - read];
+        int n = 0;
+        while (next()) {
+            documents[n++] = document;
+        }
+        return n == documents.length ? documents : Arrays.copyOf(documents, n);
+    }
+
+    private int readVarint() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = index.get(offset++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private void skipVarint() {
+        while (index.get(offset++) < 0) {
+            // octet suivant
+        }
+    }
+}
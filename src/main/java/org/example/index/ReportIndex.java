@@ -0,0 +1,301 @@
+package org.example.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index plein texte des comptes rendus (élément Report) : dictionnaire des termes et, par
+ * terme, les documents (ordinaux d'images) avec la fréquence et les positions du terme.
+ * <pre>
+ * en-tête      : MAGIC, VERSION, nombre de documents, offset des identifiants, offset des termes
+ * identifiants : (documents + 1) offsets, puis les Identifiant en UTF-8
+ * termes       : répertoire trié ({@link TermDirectory}), puis par terme et par document :
+ *                écart d'ordinal, fréquence, écarts de positions (varints)
+ * </pre>
+ * Requêtes : un terme, tous les termes d'un texte (AND), et « phrase-préfixe » (les termes
+ * consécutifs d'un texte, le dernier pouvant être incomplet). Les termes des requêtes
+ * passent par le même découpage que l'indexation ({@link ReportTokenizer}).
+ */
+public final class ReportIndex {
+
+    public static final String SUFFIX = ".reports.idx";
+    static final int MAGIC = 0x50435249; // "PCRI"
+    static final int VERSION = 1;
+
+    /**
+     * Évalue des requêtes (par défaut, quelques exemples) ; "et:" devant une requête : tous
+     * les termes, "phrase:" : phrase-préfixe, sinon un terme.
+     */
+    public static void main(String[] args) {
+        String indexPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml" + SUFFIX;
+        String[] queries = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{
+                "derrame", "et:derrame cardiomegalia", "phrase:derrame pleural der", "phrase:linea2 del inf", "phrase:nodulo 1"
+        };
+        int runs = 100;
+
+        System.out.println("=== REQUÊTES SUR L'INDEX DES COMPTES RENDUS ===");
+        System.out.println("Index : " + indexPath);
+        System.out.println();
+
+        try {
+            ReportIndex index = open(Path.of(indexPath));
+            System.out.println("Documents : " + index.documentCount() + " ; termes : " + index.termCount());
+            for (String query : queries) {
+                int[] result = null;
+                long best = Long.MAX_VALUE;
+                // Meilleur temps sur plusieurs exécutions (JIT chaud, pages chargées)
+                for (int run = 0; run < runs; run++) {
+                    long debut = System.nanoTime();
+                    if (query.startsWith("et:")) {
+                        result = index.allTerms(query.substring(3));
+                    } else if (query.startsWith("phrase:")) {
+                        result = index.phrasePrefix(query.substring(7));
+                    } else {
+                        result = index.term(query);
+                    }
+                    best = Math.min(best, System.nanoTime() - debut);
+                }
+                System.out.println();
+                System.out.printf("%s : %d documents (%d µs)%n", query, result.length, best / 1000);
+                List<String> identifiants = new ArrayList<>();
+                for (int i = 0; i < Math.min(10, result.length); i++) {
+                    identifiants.add(index.identifiant(result[i]));
+                }
+                System.out.println("   Premiers identifiants : " + identifiants);
+            }
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur de lecture de l'index : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private final ByteBuffer index;
+    private final int documentCount;
+    private final int identifiants;
+    private final TermDirectory terms;
+
+    private ReportIndex(ByteBuffer index) throws IOException {
+        this.index = index;
+        if (index.capacity() < 20 || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("Index illisible");
+        }
+        documentCount = index.getInt(8);
+        identifiants = index.getInt(12);
+        terms = new TermDirectory(index, index.getInt(16));
+    }
+
+    public static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Ouvre l'index en le projetant en mémoire.
+     */
+    public static ReportIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ReportIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    public String identifiant(int document) {
+        int start = index.getInt(identifiants + 4 * document);
+        int end = index.getInt(identifiants + 4 * (document + 1));
+        return TermDirectory.string(index, start, end - start);
+    }
+
+    /**
+     * Nombre de documents contenant le terme (sans décodage).
+     */
+    public int documentFrequency(String term) {
+        int i = find(term);
+        return i < 0 ? 0 : terms.documentCount(i);
+    }
+
+    /**
+     * Documents contenant le terme, croissants.
+     */
+    public int[] term(String term) {
+        int i = find(term);
+        return i < 0 ? new int[0] : cursor(i).documents();
+    }
+
+    /**
+     * Documents contenant tous les termes du texte.
+     */
+    public int[] allTerms(String text) {
+        List<String> tokens = ReportTokenizer.tokens(text);
+        List<PostingsCursor> cursors = cursors(tokens);
+        if (cursors == null || cursors.isEmpty()) {
+            return new int[0];
+        }
+        cursors.sort(Comparator.comparingInt(PostingsCursor::documentCount));
+        int[] result = new int[cursors.getFirst().documentCount()];
+        int n = 0;
+        while (nextMatch(cursors)) {
+            result[n++] = cursors.getFirst().document();
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Documents contenant les termes du texte consécutivement, le dernier terme pouvant
+     * n'être que le début d'un terme indexé ("derrame pleural der").
+     */
+    public int[] phrasePrefix(String text) {
+        List<String> tokens = ReportTokenizer.tokens(text);
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        List<PostingsCursor> prefixes = expand(tokens.getLast());
+        if (prefixes.isEmpty()) {
+            return new int[0];
+        }
+        List<String> exact = tokens.subList(0, tokens.size() - 1);
+        if (exact.isEmpty()) {
+            // Un seul terme incomplet : union des termes qui le complètent
+            BitSet documents = new BitSet(documentCount);
+            for (PostingsCursor cursor : prefixes) {
+                while (cursor.next()) {
+                    documents.set(cursor.document());
+                }
+            }
+            return documents.stream().toArray();
+        }
+        // Les curseurs gardent l'ordre de la phrase ; la recherche part du plus rare
+        List<PostingsCursor> ordered = cursors(exact);
+        if (ordered == null) {
+            return new int[0];
+        }
+        List<PostingsCursor> phrase = new ArrayList<>(ordered);
+        ordered.sort(Comparator.comparingInt(PostingsCursor::documentCount));
+        int[] result = new int[ordered.getFirst().documentCount()];
+        int n = 0;
+        int[] last = new int[16];
+        while (nextMatch(ordered)) {
+            int document = ordered.getFirst().document();
+            // Positions des termes complétant le préfixe dans ce document
+            int count = 0;
+            for (PostingsCursor cursor : prefixes) {
+                if (cursor.advance(document) && cursor.document() == document) {
+                    if (count + cursor.frequency() > last.length) {
+                        last = Arrays.copyOf(last, Math.max(count + cursor.frequency(), last.length * 2));
+                    }
+                    System.arraycopy(cursor.positions(), 0, last, count, cursor.frequency());
+                    count += cursor.frequency();
+                }
+            }
+            if (count > 0) {
+                if (prefixes.size() > 1) {
+                    Arrays.sort(last, 0, count);
+                }
+                if (containsPhrase(phrase, last, count)) {
+                    result[n++] = document;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Les termes de la phrase se suivent-ils, suivis d'un terme complétant le préfixe
+     * (positions last[0, count)) ?
+     */
+    private static boolean containsPhrase(List<PostingsCursor> phrase, int[] last, int count) {
+        PostingsCursor first = phrase.getFirst();
+        int[] starts = first.positions();
+        for (int s = 0; s < first.frequency(); s++) {
+            int start = starts[s];
+            boolean match = true;
+            for (int t = 1; t < phrase.size() && match; t++) {
+                PostingsCursor cursor = phrase.get(t);
+                match = Arrays.binarySearch(cursor.positions(), 0, cursor.frequency(), start + t) >= 0;
+            }
+            if (match && Arrays.binarySearch(last, 0, count, start + phrase.size()) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Amène tous les curseurs sur le prochain document commun ; false s'il n'y en a plus.
+     * Le premier curseur (le plus rare) mène, les autres le rattrapent.
+     */
+    private static boolean nextMatch(List<PostingsCursor> cursors) {
+        PostingsCursor lead = cursors.getFirst();
+        if (!lead.next()) {
+            return false;
+        }
+        int target = lead.document();
+        int agreeing = 1;
+        int i = 1 % cursors.size();
+        while (agreeing < cursors.size()) {
+            PostingsCursor cursor = cursors.get(i);
+            if (!cursor.advance(target)) {
+                return false;
+            }
+            if (cursor.document() == target) {
+                agreeing++;
+            } else {
+                target = cursor.document();
+                agreeing = 1;
+            }
+            i = (i + 1) % cursors.size();
+        }
+        return true;
+    }
+
+    /**
+     * Curseurs des termes, dans l'ordre des termes ; null si un terme est absent.
+     */
+    private List<PostingsCursor> cursors(List<String> tokens) {
+        List<PostingsCursor> cursors = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            int i = terms.find(token.getBytes(StandardCharsets.UTF_8));
+            if (i < 0) {
+                return null;
+            }
+            cursors.add(cursor(i));
+        }
+        return cursors;
+    }
+
+    /**
+     * Curseurs de tous les termes commençant par prefix (plage contiguë du répertoire trié).
+     */
+    private List<PostingsCursor> expand(String prefix) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        List<PostingsCursor> cursors = new ArrayList<>();
+        for (int i = terms.lowerBound(key); i < terms.size() && terms.startsWith(i, key); i++) {
+            cursors.add(cursor(i));
+        }
+        return cursors;
+    }
+
+    private int find(String term) {
+        List<String> tokens = ReportTokenizer.tokens(term);
+        return tokens.size() == 1 ? terms.find(tokens.getFirst().getBytes(StandardCharsets.UTF_8)) : -1;
+    }
+
+    private PostingsCursor cursor(int i) {
+        return new PostingsCursor(index, terms.postings(i), terms.documentCount(i));
+    }
+}
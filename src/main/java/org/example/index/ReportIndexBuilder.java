@@ -0,0 +1,139 @@
+package org.example.index;
+
+import org.example.io.CompressedFiles;
+import org.example.validation.ErrorPolicy;
+import org.example.validation.ErrorReporter;
+import org.example.validation.ValidationService;
+import org.xml.sax.Attributes;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Handler SAX alimentant un {@link ReportIndexWriter} : un document par image, texte de
+ * son élément Report. Il peut servir de handler à une lecture validante
+ * ({@link ValidationService#parse}) : les erreurs de validation sont transmises au
+ * gestionnaire donné, et l'index est construit pendant la validation.
+ */
+public final class ReportIndexBuilder extends DefaultHandler {
+
+    public static void main(String[] args) {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        // XSD ou DTD : validation dans la même lecture ("-" ou absent : pas de validation)
+        String schemaPath = args.length > 1 && !"-".equals(args[1]) ? args[1] : null;
+        Path indexPath = args.length > 2 ? Path.of(args[2]) : ReportIndex.pathFor(Path.of(xmlPath));
+
+        System.out.println("=== CONSTRUCTION DE L'INDEX DES COMPTES RENDUS ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println("Validation : " + (schemaPath != null ? schemaPath : "aucune"));
+        System.out.println("Index : " + indexPath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            ReportIndexWriter writer = new ReportIndexWriter();
+            if (schemaPath != null) {
+                ValidationService service = ValidationService.forSchema(schemaPath);
+                System.out.println("✓ " + service.mode());
+                try (ErrorReporter reporter = ErrorPolicy.collect().open()) {
+                    service.parse(xmlPath, new ReportIndexBuilder(writer, reporter));
+                    reporter.afficher();
+                }
+            } else {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                SAXParser parser = factory.newSAXParser();
+                try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+                    parser.parse(new InputSource(in), new ReportIndexBuilder(writer, null));
+                }
+            }
+            writer.write(indexPath);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println();
+            System.out.println("Documents indexés : " + writer.documentCount());
+            System.out.println("Termes : " + writer.termCount() + " (" + writer.tokenCount() + " occurrences)");
+            System.out.println("Taille de l'index : " + Files.size(indexPath) + " octets");
+            System.out.println("\n✓ Index construit avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la construction de l'index : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private final ReportIndexWriter writer;
+    private final ErrorHandler errors;
+    private final StringBuilder report = new StringBuilder();
+    private String identifiant;
+    private boolean inReport;
+    private boolean hasReport;
+
+    /**
+     * @param errors erreurs de validation transmises pendant la lecture (null : ignorées)
+     */
+    public ReportIndexBuilder(ReportIndexWriter writer, ErrorHandler errors) {
+        this.writer = writer;
+        this.errors = errors;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if ("image".equals(qName)) {
+            identifiant = attributes.getValue("Identifiant");
+            report.setLength(0);
+            hasReport = false;
+        } else if ("Report".equals(qName)) {
+            inReport = true;
+            hasReport = true;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inReport) {
+            report.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if ("Report".equals(qName)) {
+            inReport = false;
+        } else if ("image".equals(qName)) {
+            writer.addDocument(identifiant, hasReport ? report : null);
+        }
+    }
+
+    @Override
+    public void warning(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.warning(exception);
+        }
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.error(exception);
+        }
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.fatalError(exception);
+        }
+        throw exception;
+    }
+}
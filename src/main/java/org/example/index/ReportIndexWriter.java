@@ -0,0 +1,136 @@
+package org.example.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construction en mémoire de l'{@link ReportIndex} : un document par image, dans l'ordre
+ * du document (ordinal identique à celui de l'{@link InvertedIndex}), y compris les images
+ * sans compte rendu. Alimenté au fil d'une lecture SAX ({@link ReportIndexBuilder}) ou d'une
+ * conversion CSV → XML, sans relire le XML.
+ */
+public final class ReportIndexWriter {
+
+    /**
+     * Documents d'un terme : ordinaux croissants, fréquence dans chaque document et
+     * positions (rang du terme dans le compte rendu) à la suite.
+     */
+    private static final class TermPostings {
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int[] positions = new int[4];
+        private int size;
+        private int positionCount;
+
+        void add(int document, int position) {
+            if (size == 0 || documents[size - 1] != document) {
+                if (size == documents.length) {
+                    documents = Arrays.copyOf(documents, size * 2);
+                    frequencies = Arrays.copyOf(frequencies, size * 2);
+                }
+                documents[size] = document;
+                frequencies[size++] = 0;
+            }
+            frequencies[size - 1]++;
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, positionCount * 2);
+            }
+            positions[positionCount++] = position;
+        }
+    }
+
+    private final List<String> identifiants = new ArrayList<>();
+    private final Map<String, TermPostings> terms = new HashMap<>();
+    private long tokenCount;
+
+    /**
+     * Ajoute le compte rendu de l'image suivante.
+     *
+     * @param report texte du compte rendu (null ou vide : document sans terme)
+     */
+    public void addDocument(String identifiant, CharSequence report) {
+        int document = identifiants.size();
+        identifiants.add(identifiant != null ? identifiant : "");
+        if (report == null) {
+            return;
+        }
+        List<String> tokens = ReportTokenizer.tokens(report);
+        for (int position = 0; position < tokens.size(); position++) {
+            terms.computeIfAbsent(tokens.get(position), t -> new TermPostings()).add(document, position);
+        }
+        tokenCount += tokens.size();
+    }
+
+    public int documentCount() {
+        return identifiants.size();
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    public long tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Écrit l'index (remplacement atomique).
+     */
+    public void write(Path indexPath) throws IOException {
+        IndexOutput out = new IndexOutput();
+        out.putInt(ReportIndex.MAGIC);
+        out.putInt(ReportIndex.VERSION);
+        out.putInt(identifiants.size());
+        int identifiantsOffset = out.reserve(1);
+        int termsOffset = out.reserve(1);
+
+        out.putIntAt(identifiantsOffset, out.position());
+        int offsets = out.reserve(identifiants.size() + 1);
+        for (int i = 0; i < identifiants.size(); i++) {
+            out.putIntAt(offsets + 4 * i, out.position());
+            out.putBytes(identifiants.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        out.putIntAt(offsets + 4 * identifiants.size(), out.position());
+
+        // Dictionnaire trié par octets UTF-8 : recherche dichotomique et plages de préfixes
+        byte[][] keys = new byte[terms.size()][];
+        int k = 0;
+        for (String term : terms.keySet()) {
+            keys[k++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(keys, Arrays::compareUnsigned);
+        out.putIntAt(termsOffset, out.position());
+        out.putInt(keys.length);
+        int entries = out.reserve(keys.length * TermDirectory.ENTRY_SIZE / 4);
+        for (int i = 0; i < keys.length; i++) {
+            out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i, out.position());
+            out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 4, keys[i].length);
+            out.putBytes(keys[i]);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            TermPostings postings = terms.get(new String(keys[i], StandardCharsets.UTF_8));
+            out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 8, postings.size);
+            out.putIntAt(entries + TermDirectory.ENTRY_SIZE * i + 12, out.position());
+            // Par document : écart d'ordinal, fréquence, écarts de positions
+            int previous = 0;
+            int position = 0;
+            for (int d = 0; d < postings.size; d++) {
+                out.putVarint(postings.documents[d] - previous);
+                previous = postings.documents[d];
+                out.putVarint(postings.frequencies[d]);
+                int last = 0;
+                for (int p = 0; p < postings.frequencies[d]; p++) {
+                    out.putVarint(postings.positions[position] - last);
+                    last = postings.positions[position++];
+                }
+            }
+        }
+        out.writeTo(indexPath);
+    }
+}
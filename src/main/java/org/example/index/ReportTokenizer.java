@@ -0,0 +1,30 @@
+package org.example.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpage des comptes rendus en termes : suites de lettres ou de chiffres, en minuscules
+ * (accents conservés). La ponctuation, les guillemets et les entités décodées séparent
+ * les termes. Le même découpage sert à l'indexation et aux requêtes.
+ */
+final class ReportTokenizer {
+
+    private ReportTokenizer() {
+    }
+
+    static List<String> tokens(CharSequence text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.index;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Valeurs triées d'un fichier d'index projeté : un nombre d'entrées puis, par entrée,
+ * {offset du texte UTF-8, longueur, nombre de documents, offset des documents}. Les textes
+ * sont triés par octets non signés, ce qui permet la recherche dichotomique et le parcours
+ * des valeurs commençant par un préfixe.
+ */
+final class TermDirectory {
+
+    static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer index;
+    private final int entries;
+    private final int size;
+
+    TermDirectory(ByteBuffer index, int section) {
+        this.index = index;
+        this.size = index.getInt(section);
+        this.entries = section + 4;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String term(int i) {
+        return string(index, index.getInt(entry(i)), index.getInt(entry(i) + 4));
+    }
+
+    int documentCount(int i) {
+        return index.getInt(entry(i) + 8);
+    }
+
+    int postings(int i) {
+        return index.getInt(entry(i) + 12);
+    }
+
+    /**
+     * Rang de la valeur, ou -1 si elle est absente.
+     */
+    int find(byte[] key) {
+        int i = lowerBound(key);
+        return i < size && compare(i, key) == 0 ? i : -1;
+    }
+
+    /**
+     * Rang de la première valeur &ge; key (size si aucune).
+     */
+    int lowerBound(byte[] key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    boolean startsWith(int i, byte[] prefix) {
+        int start = index.getInt(entry(i));
+        if (index.getInt(entry(i) + 4) < prefix.length) {
+            return false;
+        }
+        for (int b = 0; b < prefix.length; b++) {
+            if (index.get(start + b) != prefix[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare la valeur de rang i à key (octets non signés).
+     */
+    private int compare(int i, byte[] key) {
+        int start = index.getInt(entry(i));
+        int length = index.getInt(entry(i) + 4);
+        int common = Math.min(length, key.length);
+        for (int b = 0; b < common; b++) {
+            int difference = (index.get(start + b) & 0xFF) - (key[b] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int entry(int i) {
+        return entries + ENTRY_SIZE * i;
+    }
+
+    static String string(ByteBuffer index, int start, int length) {
+        byte[] bytes = new byte[length];
+        index.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Flux gzip décompressé sur un thread dédié.
+ * <p>
+ * Deux tampons circulent entre le thread de décompression et le lecteur : pendant que
+ * l'un est consommé (analyse CSV ou XML), l'autre est rempli par l'inflation.
+ */
+public final class AsyncGzipInputStream extends InputStream {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+    private static final int BUFFER_COUNT = 2;
+
+    /**
+     * Tampon rempli (length == -1 : fin du flux, error != null : échec de lecture).
+     */
+    private record Chunk(byte[] data, int length, IOException error) {
+        static final Chunk END = new Chunk(null, -1, null);
+    }
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final Thread inflater;
+    private Chunk current;
+    private int position;
+    private boolean closed;
+
+    public AsyncGzipInputStream(InputStream compressed) throws IOException {
+        this.source = new GZIPInputStream(compressed, BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            free.add(new byte[BUFFER_SIZE]);
+        }
+        this.inflater = Thread.ofPlatform().daemon().name("gzip-lecture").start(this::inflate);
+    }
+
+    private void inflate() {
+        try {
+            while (true) {
+                byte[] buffer = free.take();
+                int length = 0;
+                int read;
+                while (length < buffer.length && (read = source.read(buffer, length, buffer.length - length)) > 0) {
+                    length += read;
+                }
+                if (length > 0) {
+                    filled.put(new Chunk(buffer, length, null));
+                }
+                if (length < buffer.length) {
+                    filled.put(Chunk.END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Fermeture demandée par le lecteur
+        } catch (IOException e) {
+            filled.offer(new Chunk(null, -1, e));
+        }
+    }
+
+    /**
+     * Passe au tampon suivant ; retourne false à la fin du flux. Après un échec de
+     * décompression, chaque lecture relance l'erreur (jamais une fin de flux normale).
+     */
+    private boolean nextChunk() throws IOException {
+        if (closed) {
+            throw new IOException("Flux fermé");
+        }
+        if (current != null) {
+            if (current.error != null) {
+                throw failure();
+            }
+            if (current.length < 0) {
+                return false;
+            }
+            if (position < current.length) {
+                return true;
+            }
+            free.add(current.data);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lecture gzip interrompue", e);
+        }
+        position = 0;
+        if (current.error != null) {
+            throw failure();
+        }
+        return current.length >= 0;
+    }
+
+    private IOException failure() {
+        return new IOException("Erreur de décompression : " + current.error.getMessage(), current.error);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current != null && current.length > 0 ? current.length - position : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        inflater.interrupt();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Flux compressé en gzip sur un thread dédié.
+ * <p>
+ * L'écrivain remplit un tampon pendant que le thread de compression dégonfle le précédent ;
+ * deux tampons circulent entre eux. Une erreur de compression est relancée au passage de
+ * tampon suivant ou à la fermeture.
+ */
+public final class AsyncGzipOutputStream extends OutputStream {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+    private static final int BUFFER_COUNT = 2;
+
+    /**
+     * Tampon à compresser (length == -1 : fin du flux).
+     */
+    private record Chunk(byte[] data, int length) {
+        static final Chunk END = new Chunk(null, -1);
+    }
+
+    private final GZIPOutputStream target;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final Thread deflater;
+    private volatile IOException failure;
+    private byte[] current;
+    private int position;
+    private boolean closed;
+
+    public AsyncGzipOutputStream(OutputStream out) throws IOException {
+        this.target = new GZIPOutputStream(out, BUFFER_SIZE);
+        for (int i = 1; i < BUFFER_COUNT; i++) {
+            free.add(new byte[BUFFER_SIZE]);
+        }
+        this.current = new byte[BUFFER_SIZE];
+        this.deflater = Thread.ofPlatform().daemon().name("gzip-ecriture").start(this::deflate);
+    }
+
+    private void deflate() {
+        try {
+            while (true) {
+                Chunk chunk = filled.take();
+                if (chunk == Chunk.END) {
+                    target.finish();
+                    return;
+                }
+                target.write(chunk.data, 0, chunk.length);
+                free.put(chunk.data);
+            }
+        } catch (InterruptedException e) {
+            // Abandon demandé
+        } catch (IOException e) {
+            failure = e;
+            // Le thread d'écriture ne doit pas rester bloqué en attente d'un tampon libre
+            free.offer(new byte[BUFFER_SIZE]);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == current.length) {
+            handOff();
+        }
+        current[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == current.length) {
+                handOff();
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(bytes, offset, current, position, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Confie le tampon courant au thread de compression et récupère un tampon libre.
+     */
+    private void handOff() throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("Flux fermé");
+        }
+        if (position == 0) {
+            return;
+        }
+        try {
+            filled.put(new Chunk(current, position));
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compression gzip interrompue", e);
+        }
+        position = 0;
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("Erreur de compression : " + error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Transmet le tampon partiel sans attendre sa compression.
+     */
+    @Override
+    public void flush() throws IOException {
+        handOff();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            handOff();
+        } finally {
+            closed = true;
+            try {
+                // Un seul tampon peut être en attente : la file a toujours de la place
+                filled.offer(Chunk.END);
+                deflater.join();
+            } catch (InterruptedException e) {
+                deflater.interrupt();
+                Thread.currentThread().interrupt();
+            }
+            target.close();
+        }
+        checkFailure();
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Ouverture transparente des fichiers éventuellement compressés : un fichier dont le nom
+ * se termine par {@code .gz} est (dé)compressé à la volée sur un thread dédié, sans
+ * fichier temporaire.
+ */
+public final class CompressedFiles {
+
+    private static final int FILE_BUFFER_SIZE = 1 << 20;
+
+    private CompressedFiles() {
+    }
+
+    public static boolean isGzip(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    public static boolean isGzip(String path) {
+        return isGzip(Path.of(path));
+    }
+
+    /**
+     * Flux de lecture du contenu (décompressé si le fichier est un .gz).
+     */
+    public static InputStream newInputStream(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), FILE_BUFFER_SIZE);
+        if (!isGzip(path)) {
+            return in;
+        }
+        try {
+            return new AsyncGzipInputStream(in);
+        } catch (IOException e) {
+            in.close();
+            throw new IOException("Fichier gzip invalide : " + path, e);
+        }
+    }
+
+    /**
+     * Flux d'écriture (compressé si le nom se termine par .gz). Le fichier est remplacé.
+     */
+    public static OutputStream newOutputStream(Path path) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), FILE_BUFFER_SIZE);
+        return isGzip(path) ? new AsyncGzipOutputStream(out) : out;
+    }
+}
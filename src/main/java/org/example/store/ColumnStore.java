@@ -0,0 +1,395 @@
+package org.example.store;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stockage en colonnes des images PadChest, hors du tas Java (API Foreign Function &amp; Memory).
+ * <p>
+ * Une colonne par champ conservé ({@link #PADCHEST}) : textes (offsets + octets UTF-8), codes
+ * entiers pour les champs peu variés (avec leur dictionnaire), listes et listes de listes de
+ * codes. Tout le stockage est un seul {@link MemorySegment}, au format du fichier :
+ * <pre>
+ * en-tête    : MAGIC, VERSION, nombre d'images, nombre de colonnes, offset (long) de chaque colonne
+ * colonne    : nature, longueur du nom, nom UTF-8, puis ses blocs {longueur (long), données},
+ *              chaque bloc aligné sur 8 octets
+ * TEXT       : offsets (long, images + 1), octets
+ * CODE       : codes (int, -1 si absent), dictionnaire
+ * LIST       : offsets (int, images + 1), codes, dictionnaire
+ * LIST_OF_LISTS : offsets des sous-listes par image, offsets des codes par sous-liste, codes,
+ *              code de l'élément de chaque valeur (int), dictionnaire, dictionnaire des éléments
+ * dictionnaire : offsets (int, valeurs + 1), octets UTF-8
+ * </pre>
+ * Un stockage construit en mémoire ({@link ColumnStoreBuilder}) s'enregistre tel quel
+ * ({@link #save}) ; {@link #open} projette le fichier en mémoire. Le tas ne contient que les
+ * dictionnaires, quelle que soit la taille du corpus ; la construction en mémoire compte en
+ * revanche dans -XX:MaxDirectMemorySize (par défaut égale à -Xmx). Lecture sans état : une instance peut
+ * servir plusieurs threads jusqu'à sa fermeture.
+ */
+public final class ColumnStore implements AutoCloseable {
+
+    public enum Kind { TEXT, CODE, LIST, LIST_OF_LISTS }
+
+    /**
+     * Colonne : élément du XML (ou attribut Identifiant) et nature.
+     */
+    public record Spec(String element, Kind kind) {
+    }
+
+    /**
+     * Les 17 champs PadChest du XML, dans l'ordre du mapping par défaut.
+     */
+    public static final List<Spec> PADCHEST = List.of(
+            new Spec("Identifiant", Kind.TEXT),
+            new Spec("ImageDir", Kind.TEXT),
+            new Spec("StudyID", Kind.TEXT),
+            new Spec("PatientID", Kind.TEXT),
+            new Spec("PatientBirth", Kind.CODE),
+            new Spec("PatientSex_DICOM", Kind.CODE),
+            new Spec("Projection", Kind.CODE),
+            new Spec("MethodProjection", Kind.CODE),
+            new Spec("MethodLabel", Kind.CODE),
+            new Spec("ViewPosition", Kind.CODE),
+            new Spec("Labels", Kind.LIST),
+            new Spec("Localizations", Kind.LIST),
+            new Spec("LabelsLocalizationsBySentence", Kind.LIST_OF_LISTS),
+            new Spec("labelCUIS", Kind.LIST),
+            new Spec("LocalizationsCUIS", Kind.LIST),
+            new Spec("Report", Kind.TEXT),
+            new Spec("ReportID", Kind.TEXT));
+
+    public static final String SUFFIX = ".colonnes";
+    static final int MAGIC = 0x50434353; // "PCCS"
+    static final int VERSION = 2;
+
+    private final Arena arena;
+    private final MemorySegment data;
+    private final int imageCount;
+    private final Map<String, Object> columns = new HashMap<>();
+
+    ColumnStore(Arena arena, MemorySegment data) throws IOException {
+        this.arena = arena;
+        this.data = data;
+        if (data.byteSize() < 16 || data.get(ValueLayout.JAVA_INT, 0) != MAGIC || data.get(ValueLayout.JAVA_INT, 4) != VERSION) {
+            throw new IOException("Stockage en colonnes illisible");
+        }
+        imageCount = data.get(ValueLayout.JAVA_INT, 8);
+        int columnCount = data.get(ValueLayout.JAVA_INT, 12);
+        for (int c = 0; c < columnCount; c++) {
+            long offset = data.get(ValueLayout.JAVA_LONG, 16 + 8L * c);
+            Kind kind = Kind.values()[data.get(ValueLayout.JAVA_INT, offset)];
+            int nameLength = data.get(ValueLayout.JAVA_INT, offset + 4);
+            String name = string(data, offset + 8, nameLength);
+            Blocks blocks = new Blocks(data, align(offset + 8 + nameLength));
+            columns.put(name, switch (kind) {
+                case TEXT -> new TextColumn(blocks.next(), blocks.next());
+                case CODE -> new CodeColumn(blocks.next(), new Dictionary(blocks.next(), blocks.next()));
+                case LIST -> new ListColumn(blocks.next(), blocks.next(), new Dictionary(blocks.next(), blocks.next()));
+                case LIST_OF_LISTS -> new NestedListColumn(blocks.next(), blocks.next(), blocks.next(), blocks.next(),
+                        new Dictionary(blocks.next(), blocks.next()), new Dictionary(blocks.next(), blocks.next()));
+            });
+        }
+    }
+
+    public static Path pathFor(Path sourcePath) {
+        return sourcePath.resolveSibling(sourcePath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Projette le fichier en mémoire (les pages sont chargées à la demande).
+     */
+    public static ColumnStore open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnStore(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Enregistre le stockage (remplacement atomique).
+     */
+    public void save(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < data.byteSize()) {
+                // Par tranches : un ByteBuffer est limité à 2 Go
+                long length = Math.min(1 << 30, data.byteSize() - position);
+                var buffer = data.asSlice(position, length).asByteBuffer();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                position += length;
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int imageCount() {
+        return imageCount;
+    }
+
+    /**
+     * Taille du stockage hors tas, en octets.
+     */
+    public long byteSize() {
+        return data.byteSize();
+    }
+
+    public TextColumn text(String element) {
+        return column(element, TextColumn.class);
+    }
+
+    public CodeColumn code(String element) {
+        return column(element, CodeColumn.class);
+    }
+
+    public ListColumn list(String element) {
+        return column(element, ListColumn.class);
+    }
+
+    public NestedListColumn nestedList(String element) {
+        return column(element, NestedListColumn.class);
+    }
+
+    private <C> C column(String element, Class<C> type) {
+        Object column = columns.get(element);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Pas de colonne " + type.getSimpleName() + " " + element);
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * Libère le stockage (les colonnes ne sont plus lisibles ensuite).
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Textes : octets UTF-8 de l'image i dans [offsets[i], offsets[i + 1]).
+     */
+    public static final class TextColumn {
+        private final MemorySegment offsets;
+        private final MemorySegment bytes;
+
+        TextColumn(MemorySegment offsets, MemorySegment bytes) {
+            this.offsets = offsets;
+            this.bytes = bytes;
+        }
+
+        public String get(int image) {
+            long start = offsets.getAtIndex(ValueLayout.JAVA_LONG, image);
+            return string(bytes, start, (int) (offsets.getAtIndex(ValueLayout.JAVA_LONG, image + 1) - start));
+        }
+
+        public int length(int image) {
+            return (int) (offsets.getAtIndex(ValueLayout.JAVA_LONG, image + 1) - offsets.getAtIndex(ValueLayout.JAVA_LONG, image));
+        }
+    }
+
+    /**
+     * Valeurs d'un champ peu varié : un code par image, -1 si la valeur est absente.
+     */
+    public static final class CodeColumn {
+        private final MemorySegment codes;
+        private final Dictionary dictionary;
+
+        CodeColumn(MemorySegment codes, Dictionary dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int code(int image) {
+            return codes.getAtIndex(ValueLayout.JAVA_INT, image);
+        }
+
+        public String get(int image) {
+            int code = code(image);
+            return code < 0 ? null : dictionary.value(code);
+        }
+
+        public Dictionary dictionary() {
+            return dictionary;
+        }
+    }
+
+    /**
+     * Listes de codes : ceux de l'image i sont aux rangs [start(i), end(i)).
+     */
+    public static final class ListColumn {
+        private final MemorySegment offsets;
+        private final MemorySegment codes;
+        private final Dictionary dictionary;
+
+        ListColumn(MemorySegment offsets, MemorySegment codes, Dictionary dictionary) {
+            this.offsets = offsets;
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int start(int image) {
+            return offsets.getAtIndex(ValueLayout.JAVA_INT, image);
+        }
+
+        public int end(int image) {
+            return offsets.getAtIndex(ValueLayout.JAVA_INT, image + 1);
+        }
+
+        public int code(int index) {
+            return codes.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        /**
+         * Nombre total de codes (toutes images).
+         */
+        public int size() {
+            return (int) (codes.byteSize() / 4);
+        }
+
+        public Dictionary dictionary() {
+            return dictionary;
+        }
+    }
+
+    /**
+     * Listes de listes (phrases : Label et Localization, dans n'importe quel ordre) : les
+     * sous-listes de l'image i sont aux rangs [start(i), end(i)), les codes de la sous-liste s
+     * aux rangs [itemStart(s), itemEnd(s)). Chaque valeur garde le nom de son élément
+     * ({@link #element}, code dans {@link #elements()}).
+     */
+    public static final class NestedListColumn {
+        private final MemorySegment offsets;
+        private final MemorySegment itemOffsets;
+        private final MemorySegment codes;
+        private final MemorySegment elementCodes;
+        private final Dictionary dictionary;
+        private final Dictionary elements;
+
+        NestedListColumn(MemorySegment offsets, MemorySegment itemOffsets, MemorySegment codes,
+                         MemorySegment elementCodes, Dictionary dictionary, Dictionary elements) {
+            this.offsets = offsets;
+            this.itemOffsets = itemOffsets;
+            this.codes = codes;
+            this.elementCodes = elementCodes;
+            this.dictionary = dictionary;
+            this.elements = elements;
+        }
+
+        public int start(int image) {
+            return offsets.getAtIndex(ValueLayout.JAVA_INT, image);
+        }
+
+        public int end(int image) {
+            return offsets.getAtIndex(ValueLayout.JAVA_INT, image + 1);
+        }
+
+        public int itemStart(int sublist) {
+            return itemOffsets.getAtIndex(ValueLayout.JAVA_INT, sublist);
+        }
+
+        public int itemEnd(int sublist) {
+            return itemOffsets.getAtIndex(ValueLayout.JAVA_INT, sublist + 1);
+        }
+
+        public int code(int index) {
+            return codes.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        /**
+         * Code (dans {@link #elements()}) de l'élément portant la valeur de rang index.
+         */
+        public int element(int index) {
+            return elementCodes.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        public Dictionary dictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Noms des éléments des sous-listes (Label, Localization).
+         */
+        public Dictionary elements() {
+            return elements;
+        }
+    }
+
+    /**
+     * Valeurs d'une colonne codée, dans l'ordre des codes. Les chaînes sont décodées une fois
+     * à l'ouverture : seule cette partie du stockage est sur le tas.
+     */
+    public static final class Dictionary {
+        private final String[] values;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        Dictionary(MemorySegment offsets, MemorySegment bytes) {
+            values = new String[(int) (offsets.byteSize() / 4) - 1];
+            for (int code = 0; code < values.length; code++) {
+                int start = offsets.getAtIndex(ValueLayout.JAVA_INT, code);
+                values[code] = string(bytes, start, offsets.getAtIndex(ValueLayout.JAVA_INT, code + 1) - start);
+                codes.put(values[code], code);
+            }
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public String value(int code) {
+            return values[code];
+        }
+
+        /**
+         * Code de la valeur, ou -1 si elle n'apparaît pas dans la colonne.
+         */
+        public int code(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+    }
+
+    /**
+     * Lecture des blocs successifs d'une colonne.
+     */
+    private static final class Blocks {
+        private final MemorySegment data;
+        private long offset;
+
+        Blocks(MemorySegment data, long offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        MemorySegment next() {
+            long length = data.get(ValueLayout.JAVA_LONG, offset);
+            MemorySegment block = data.asSlice(offset + 8, length);
+            offset = align(offset + 8 + length);
+            return block;
+        }
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static String string(MemorySegment segment, long start, int length) {
+        return new String(segment.asSlice(start, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,473 @@
+package org.example.store;
+
+import org.example.conversion.CsvToXmlConverter;
+import org.example.io.CompressedFiles;
+import org.example.store.ColumnStore.Kind;
+import org.example.store.ColumnStore.Spec;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construit un {@link ColumnStore} en une lecture SAX d'un XML PadChest, ou d'un CSV converti
+ * au fil de l'eau (le XML n'est pas écrit sur disque). Les colonnes sont remplies dans des
+ * tampons hors tas ; seuls les dictionnaires des colonnes codées sont sur le tas.
+ * <p>
+ * Les valeurs des champs codés et des listes sont rognées comme dans SAXValidator ; les
+ * textes sont gardés tels quels. Les éléments d'une Sentence sont gardés dans l'ordre, chacun
+ * avec son nom (la DTD admet Label et Localization dans n'importe quel ordre). La DTD n'est pas
+ * chargée : le document n'est pas validé.
+ */
+public final class ColumnStoreBuilder extends DefaultHandler {
+
+    public static void main(String[] args) {
+        String sourcePath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        Path storePath = args.length > 1 ? Path.of(args[1]) : ColumnStore.pathFor(Path.of(sourcePath));
+
+        System.out.println("=== CONSTRUCTION DU STOCKAGE EN COLONNES ===");
+        System.out.println("Source : " + sourcePath);
+        System.out.println("Stockage : " + storePath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try (ColumnStore store = build(Path.of(sourcePath))) {
+            store.save(storePath);
+
+            long endTime = System.currentTimeMillis();
+            Runtime runtime = Runtime.getRuntime();
+            System.out.println("Images : " + store.imageCount());
+            System.out.println("Taille du stockage : " + store.byteSize() + " octets (hors tas)");
+            System.out.println("Tas utilisé : " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " Mo");
+            System.out.println("\n✓ Stockage construit avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la construction du stockage : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stockage d'un XML, ou d'un CSV (.csv, .csv.gz) converti avec le mapping PadChest.
+     */
+    public static ColumnStore build(Path sourcePath) throws Exception {
+        String name = sourcePath.getFileName().toString();
+        return name.endsWith(".csv") || name.endsWith(".csv.gz") ? fromCsv(sourcePath) : fromXml(sourcePath);
+    }
+
+    public static ColumnStore fromXml(Path xmlPath) throws Exception {
+        try (InputStream in = CompressedFiles.newInputStream(xmlPath)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Convertit le CSV dans un thread et lit le XML produit au fur et à mesure par un tube.
+     */
+    public static ColumnStore fromCsv(Path csvPath) throws Exception {
+        Pipe pipe = Pipe.open();
+        Exception[] failure = new Exception[1];
+        Thread converter = Thread.ofPlatform().name("conversion-csv").start(() -> {
+            try {
+                CsvToXmlConverter.convert(csvPath.toString(), pipe.sink());
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        });
+        ColumnStore store;
+        try (InputStream in = Channels.newInputStream(pipe.source())) {
+            store = read(in);
+        } catch (Exception e) {
+            // Tube fermé : le convertisseur ne reste pas bloqué ; son erreur explique la nôtre
+            converter.join();
+            throw failure[0] != null ? failure[0] : e;
+        }
+        converter.join();
+        if (failure[0] != null) {
+            store.close();
+            throw failure[0];
+        }
+        return store;
+    }
+
+    private static ColumnStore read(InputStream in) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        SAXParser parser = factory.newSAXParser();
+        ColumnStoreBuilder builder = new ColumnStoreBuilder(ColumnStore.PADCHEST);
+        try {
+            parser.parse(new InputSource(in), builder);
+            return builder.build();
+        } finally {
+            builder.close();
+        }
+    }
+
+    private final List<ColumnWriter> writers = new ArrayList<>();
+    private final Map<String, ColumnWriter> byElement = new HashMap<>();
+    private final ColumnWriter identifiant;
+    private final StringBuilder text = new StringBuilder();
+    private int imageCount;
+    // 1 : racine, 2 : image, 3 : champ, 4 : élément de liste ou Sentence, 5 : élément de Sentence
+    private int depth;
+    private ColumnWriter current;
+    private boolean capturing;
+
+    ColumnStoreBuilder(List<Spec> specs) {
+        for (Spec spec : specs) {
+            ColumnWriter writer = switch (spec.kind()) {
+                case TEXT -> new TextWriter(spec);
+                case CODE -> new CodeWriter(spec);
+                case LIST -> new ListWriter(spec);
+                case LIST_OF_LISTS -> new NestedListWriter(spec);
+            };
+            writers.add(writer);
+            byElement.put(spec.element(), writer);
+        }
+        identifiant = byElement.get("Identifiant");
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        depth++;
+        text.setLength(0);
+        if (depth == 2) {
+            if (identifiant != null) {
+                identifiant.value("Identifiant", attributes.getValue("Identifiant"));
+            }
+        } else if (depth == 3) {
+            current = byElement.get(qName);
+            capturing = current != null && current.start(depth);
+        } else if (current != null) {
+            capturing = current.start(depth);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (capturing) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if (capturing) {
+            current.value(qName, current.spec.kind() == Kind.TEXT ? text.toString() : text.toString().trim());
+            capturing = false;
+        }
+        if (depth == 3) {
+            current = null;
+        } else if (depth == 2) {
+            for (ColumnWriter writer : writers) {
+                writer.endImage();
+            }
+            imageCount++;
+        }
+        depth--;
+    }
+
+    /**
+     * Assemble les colonnes dans un segment unique, au format du fichier.
+     */
+    ColumnStore build() throws IOException {
+        List<List<MemorySegment>> blocks = new ArrayList<>();
+        List<byte[]> names = new ArrayList<>();
+        long size = ColumnStore.align(16 + 8L * writers.size());
+        long[] sections = new long[writers.size()];
+        for (int c = 0; c < writers.size(); c++) {
+            ColumnWriter writer = writers.get(c);
+            sections[c] = size;
+            names.add(writer.spec.element().getBytes(StandardCharsets.UTF_8));
+            blocks.add(writer.blocks());
+            size = ColumnStore.align(size + 8 + names.get(c).length);
+            for (MemorySegment block : blocks.get(c)) {
+                size = ColumnStore.align(size + 8 + block.byteSize());
+            }
+        }
+
+        Arena arena = Arena.ofShared();
+        MemorySegment data = arena.allocate(size, 8);
+        data.set(ValueLayout.JAVA_INT, 0, ColumnStore.MAGIC);
+        data.set(ValueLayout.JAVA_INT, 4, ColumnStore.VERSION);
+        data.set(ValueLayout.JAVA_INT, 8, imageCount);
+        data.set(ValueLayout.JAVA_INT, 12, writers.size());
+        for (int c = 0; c < writers.size(); c++) {
+            long offset = sections[c];
+            data.set(ValueLayout.JAVA_LONG, 16 + 8L * c, offset);
+            data.set(ValueLayout.JAVA_INT, offset, writers.get(c).spec.kind().ordinal());
+            data.set(ValueLayout.JAVA_INT, offset + 4, names.get(c).length);
+            MemorySegment.copy(MemorySegment.ofArray(names.get(c)), 0, data, offset + 8, names.get(c).length);
+            offset = ColumnStore.align(offset + 8 + names.get(c).length);
+            for (MemorySegment block : blocks.get(c)) {
+                data.set(ValueLayout.JAVA_LONG, offset, block.byteSize());
+                MemorySegment.copy(block, 0, data, offset + 8, block.byteSize());
+                offset = ColumnStore.align(offset + 8 + block.byteSize());
+            }
+        }
+        return new ColumnStore(arena, data);
+    }
+
+    private void close() {
+        for (ColumnWriter writer : writers) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Remplissage d'une colonne, image par image.
+     */
+    private abstract static class ColumnWriter {
+        final Spec spec;
+
+        ColumnWriter(Spec spec) {
+            this.spec = spec;
+        }
+
+        /**
+         * Début d'un élément de la colonne à la profondeur depth (3 : le champ lui-même).
+         *
+         * @return true si le texte de l'élément est une valeur de la colonne
+         */
+        abstract boolean start(int depth);
+
+        /**
+         * Valeur lue dans l'élément element (nom de l'élément de liste, ou du champ).
+         */
+        abstract void value(String element, String value);
+
+        abstract void endImage();
+
+        /**
+         * Blocs de la colonne, dans l'ordre lu par {@link ColumnStore}.
+         */
+        abstract List<MemorySegment> blocks();
+
+        abstract void close();
+    }
+
+    private static final class TextWriter extends ColumnWriter {
+        private final OffHeapBuffer offsets = new OffHeapBuffer();
+        private final OffHeapBuffer bytes = new OffHeapBuffer();
+
+        TextWriter(Spec spec) {
+            super(spec);
+            offsets.putLong(0);
+        }
+
+        @Override
+        boolean start(int depth) {
+            return depth == 3;
+        }
+
+        @Override
+        void value(String element, String value) {
+            if (value != null) {
+                bytes.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        void endImage() {
+            offsets.putLong(bytes.size());
+        }
+
+        @Override
+        List<MemorySegment> blocks() {
+            return List.of(offsets.segment(), bytes.segment());
+        }
+
+        @Override
+        void close() {
+            offsets.close();
+            bytes.close();
+        }
+    }
+
+    private static final class CodeWriter extends ColumnWriter {
+        private final OffHeapBuffer codes = new OffHeapBuffer();
+        private final DictionaryWriter dictionary = new DictionaryWriter();
+        private int code = -1;
+
+        CodeWriter(Spec spec) {
+            super(spec);
+        }
+
+        @Override
+        boolean start(int depth) {
+            return depth == 3;
+        }
+
+        @Override
+        void value(String element, String value) {
+            code = dictionary.code(value);
+        }
+
+        @Override
+        void endImage() {
+            codes.putInt(code);
+            code = -1;
+        }
+
+        @Override
+        List<MemorySegment> blocks() {
+            return dictionary.append(new ArrayList<>(List.of(codes.segment())));
+        }
+
+        @Override
+        void close() {
+            codes.close();
+            dictionary.close();
+        }
+    }
+
+    private static final class ListWriter extends ColumnWriter {
+        private final OffHeapBuffer offsets = new OffHeapBuffer();
+        private final OffHeapBuffer codes = new OffHeapBuffer();
+        private final DictionaryWriter dictionary = new DictionaryWriter();
+
+        ListWriter(Spec spec) {
+            super(spec);
+            offsets.putInt(0);
+        }
+
+        @Override
+        boolean start(int depth) {
+            return depth == 4;
+        }
+
+        @Override
+        void value(String element, String value) {
+            codes.putInt(dictionary.code(value));
+        }
+
+        @Override
+        void endImage() {
+            offsets.putInt((int) (codes.size() / 4));
+        }
+
+        @Override
+        List<MemorySegment> blocks() {
+            return dictionary.append(new ArrayList<>(List.of(offsets.segment(), codes.segment())));
+        }
+
+        @Override
+        void close() {
+            offsets.close();
+            codes.close();
+            dictionary.close();
+        }
+    }
+
+    private static final class NestedListWriter extends ColumnWriter {
+        private final OffHeapBuffer offsets = new OffHeapBuffer();
+        private final OffHeapBuffer itemOffsets = new OffHeapBuffer();
+        private final OffHeapBuffer codes = new OffHeapBuffer();
+        private final OffHeapBuffer elementCodes = new OffHeapBuffer();
+        private final DictionaryWriter dictionary = new DictionaryWriter();
+        private final DictionaryWriter elements = new DictionaryWriter();
+        private int sublists;
+
+        NestedListWriter(Spec spec) {
+            super(spec);
+            offsets.putInt(0);
+            itemOffsets.putInt(0);
+        }
+
+        @Override
+        boolean start(int depth) {
+            // Profondeur 4 : nouvelle sous-liste (Sentence), 5 : ses éléments
+            if (depth == 4) {
+                if (sublists > 0) {
+                    itemOffsets.putInt((int) (codes.size() / 4));
+                }
+                sublists++;
+            }
+            return depth == 5;
+        }
+
+        @Override
+        void value(String element, String value) {
+            codes.putInt(dictionary.code(value));
+            elementCodes.putInt(elements.code(element));
+        }
+
+        @Override
+        void endImage() {
+            offsets.putInt(sublists);
+        }
+
+        @Override
+        List<MemorySegment> blocks() {
+            // Fin de la dernière sous-liste
+            if (sublists > 0) {
+                itemOffsets.putInt((int) (codes.size() / 4));
+            }
+            List<MemorySegment> blocks = new ArrayList<>(List.of(offsets.segment(), itemOffsets.segment(),
+                    codes.segment(), elementCodes.segment()));
+            return elements.append(dictionary.append(blocks));
+        }
+
+        @Override
+        void close() {
+            offsets.close();
+            itemOffsets.close();
+            codes.close();
+            elementCodes.close();
+            dictionary.close();
+            elements.close();
+        }
+    }
+
+    /**
+     * Codes attribués dans l'ordre de première occurrence.
+     */
+    private static final class DictionaryWriter {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final OffHeapBuffer offsets = new OffHeapBuffer();
+        private final OffHeapBuffer bytes = new OffHeapBuffer();
+
+        DictionaryWriter() {
+            offsets.putInt(0);
+        }
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
+                bytes.putBytes(value.getBytes(StandardCharsets.UTF_8));
+                offsets.putInt((int) bytes.size());
+            }
+            return code;
+        }
+
+        List<MemorySegment> append(List<MemorySegment> blocks) {
+            blocks.add(offsets.segment());
+            blocks.add(bytes.segment());
+            return blocks;
+        }
+
+        void close() {
+            offsets.close();
+            bytes.close();
+        }
+    }
+}
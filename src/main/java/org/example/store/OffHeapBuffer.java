@@ -0,0 +1,76 @@
+package org.example.store;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Tampon d'octets hors tas, alimenté par ajouts successifs. Quand il est plein, le contenu
+ * est recopié dans un segment deux fois plus grand et l'ancien segment est libéré tout de
+ * suite (une arène par segment) : le tas ne grossit pas avec le volume des données.
+ */
+final class OffHeapBuffer implements AutoCloseable {
+
+    private Arena arena;
+    private MemorySegment segment;
+    private long size;
+
+    OffHeapBuffer() {
+        this(1 << 12);
+    }
+
+    OffHeapBuffer(long capacity) {
+        arena = Arena.ofConfined();
+        segment = arena.allocate(capacity, 8);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Contenu écrit (valable jusqu'au prochain ajout).
+     */
+    MemorySegment segment() {
+        return segment.asSlice(0, size);
+    }
+
+    void putInt(int value) {
+        ensure(4);
+        segment.set(ValueLayout.JAVA_INT_UNALIGNED, size, value);
+        size += 4;
+    }
+
+    void putLong(long value) {
+        ensure(8);
+        segment.set(ValueLayout.JAVA_LONG_UNALIGNED, size, value);
+        size += 8;
+    }
+
+    void putBytes(byte[] bytes) {
+        ensure(bytes.length);
+        MemorySegment.copy(MemorySegment.ofArray(bytes), 0, segment, size, bytes.length);
+        size += bytes.length;
+    }
+
+    int getInt(long offset) {
+        return segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+    }
+
+    private void ensure(long length) {
+        if (size + length <= segment.byteSize()) {
+            return;
+        }
+        Arena larger = Arena.ofConfined();
+        MemorySegment grown = larger.allocate(Math.max(size + length, segment.byteSize() * 2), 8);
+        MemorySegment.copy(segment, 0, grown, 0, size);
+        arena.close();
+        arena = larger;
+        segment = grown;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.util;
+
+import java.util.Arrays;
+
+/**
+ * Table de chaînes à adressage ouvert (sondage linéaire), interrogée directement sur une
+ * plage de caractères ({@code char[]} ou {@link CharSequence}) : une chaîne n'est créée qu'à
+ * l'insertion d'une valeur nouvelle.
+ * <p>
+ * Chaque valeur reçoit un indice (0, 1, 2... dans l'ordre d'insertion) ; les données
+ * associées (comptes, octets encodés...) restent chez l'appelant, dans des tableaux indexés
+ * de la même façon. Base commune de TokenDictionary, LabelCounter et SpaceSaving.
+ */
+public final class CharRangeTable {
+
+    private String[] keys;
+    private int[] hashes;
+    // indice + 1 de la valeur rangée dans la case, 0 si la case est libre
+    private int[] slots;
+    private int size;
+
+    /**
+     * @param capacity nombre de valeurs avant le premier agrandissement
+     */
+    public CharRangeTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Indice de la valeur {@code chars[start, end)}, ou -1 si elle est absente.
+     */
+    public int find(char[] chars, int start, int end) {
+        return probe(hash(chars, null, start, end), chars, null, start, end);
+    }
+
+    public int find(CharSequence chars, int start, int end) {
+        return probe(hash(null, chars, start, end), null, chars, start, end);
+    }
+
+    /**
+     * Indice de la valeur {@code chars[start, end)}, ajoutée si elle est nouvelle (indice
+     * {@code size() - 1} après l'appel).
+     */
+    public int intern(char[] chars, int start, int end) {
+        int hash = hash(chars, null, start, end);
+        int index = probe(hash, chars, null, start, end);
+        return index >= 0 ? index : insert(new String(chars, start, end - start), hash);
+    }
+
+    public int intern(CharSequence chars, int start, int end) {
+        int hash = hash(null, chars, start, end);
+        int index = probe(hash, null, chars, start, end);
+        return index >= 0 ? index : insert(chars.subSequence(start, end).toString(), hash);
+    }
+
+    /**
+     * Remplace la valeur d'indice index par {@code chars[start, end)} (absente de la table) ;
+     * l'indice est conservé.
+     */
+    public void replace(int index, char[] chars, int start, int end) {
+        unplace(index);
+        keys[index] = new String(chars, start, end - start);
+        hashes[index] = hash(chars, null, start, end);
+        place(index);
+    }
+
+    /**
+     * Vide la table (la capacité est conservée).
+     */
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private int probe(int hash, char[] array, CharSequence sequence, int start, int end) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (hashes[index] == hash && matches(keys[index], array, sequence, start, end)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(String key, int hash) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        if ((size + 1) * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < size; i++) {
+                place(i);
+            }
+        }
+        int index = size++;
+        keys[index] = key;
+        hashes[index] = hash;
+        place(index);
+        return index;
+    }
+
+    private void place(int index) {
+        int mask = slots.length - 1;
+        int slot = hashes[index] & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    /**
+     * Retire la valeur de la table ; les valeurs suivantes de la même série reculent
+     * (pas de case « supprimée »).
+     */
+    private void unplace(int index) {
+        int mask = slots.length - 1;
+        int hole = hashes[index] & mask;
+        while (slots[hole] != index + 1) {
+            hole = (hole + 1) & mask;
+        }
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            int home = hashes[slots[next] - 1] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    // Un seul des deux tableaux source est non nul : array ou sequence
+    private static int hash(char[] array, CharSequence sequence, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (array != null ? array[i] : sequence.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String key, char[] array, CharSequence sequence, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != (array != null ? array[start + i] : sequence.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.validation;
+
+import org.example.validation.StreamingAggregator.Aggregation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapport statistique PadChest : une quinzaine d'agrégations ({@link StreamingAggregator})
+ * calculées pendant une seule lecture validante du document.
+ */
+public class AggregationReport {
+
+    public static void main(String[] args) {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        String xsdPath = args.length > 1 ? args[1] : "src/main/java/org/example/structures/images.xsd";
+
+        System.out.println("=== RAPPORT STATISTIQUE (une seule lecture) ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println("Fichier XSD/DTD fourni : " + xsdPath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            report(xmlPath, xsdPath);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("\n✓ Validation et analyse terminées avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la validation : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Valide le document, calcule toutes les agrégations en une lecture et les affiche.
+     */
+    public static List<Aggregation<?>> report(String xmlPath, String xsdPath) throws Exception {
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        System.out.println("✓ " + service.mode());
+
+        try (ErrorReporter reporter = ErrorPolicy.collect().open()) {
+            StreamingAggregator aggregator = new StreamingAggregator(reporter);
+            // Les deux questions de SAXValidator
+            aggregator.countRecordsWhere("image", "image//Localization", value -> value.equalsIgnoreCase("loc right"));
+            aggregator.topN("image//Label", 10);
+            aggregator.distinctCount("image//Label");
+            // Questions supplémentaires, sans lecture de plus
+            aggregator.topN("image/Labels/Label", 10);
+            aggregator.topN("image/LabelsLocalizationsBySentence/Sentence/Label", 10);
+            aggregator.topN("image/Localizations/Localization", 5);
+            aggregator.countRecordsWhere("image", "image/Labels/Label", value -> value.equalsIgnoreCase("normal"));
+            aggregator.countWhere("image/Labels/Label", value -> value.equalsIgnoreCase("normal"));
+            aggregator.groupByCount("image/Projection");
+            aggregator.groupByCount("image/ViewPosition");
+            aggregator.groupByCount("image/PatientSex_DICOM");
+            aggregator.groupByCount("image/MethodLabel");
+            aggregator.distinctCount("image/PatientID");
+            aggregator.distinctCount("image/StudyID");
+            aggregator.distinctCount("image/labelCUIS/labelCUI");
+
+            service.parse(xmlPath, aggregator);
+
+            reporter.afficher();
+            afficher(aggregator.aggregations());
+            return aggregator.aggregations();
+        }
+    }
+
+    private static void afficher(List<Aggregation<?>> aggregations) {
+        System.out.println();
+        System.out.println("--- RÉSULTATS DE L'ANALYSE ---");
+        int number = 1;
+        for (Aggregation<?> aggregation : aggregations) {
+            System.out.println();
+            Object result = aggregation.result();
+            if (result instanceof List<?> entries) {
+                System.out.println(number++ + ". " + aggregation.description() + " :");
+                int rank = 1;
+                for (Object entry : entries) {
+                    Map.Entry<?, ?> value = (Map.Entry<?, ?>) entry;
+                    System.out.printf("   %2d. %-40s : %6d occurrences%n", rank++, value.getKey(), value.getValue());
+                }
+            } else {
+                System.out.println(number++ + ". " + aggregation.description() + " : " + result);
+            }
+        }
+    }
+}
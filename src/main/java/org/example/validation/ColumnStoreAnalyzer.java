@@ -0,0 +1,129 @@
+package org.example.validation;
+
+import org.example.store.ColumnStore;
+import org.example.store.ColumnStore.Dictionary;
+import org.example.store.ColumnStore.ListColumn;
+import org.example.store.ColumnStore.NestedListColumn;
+import org.example.store.ColumnStoreBuilder;
+
+import java.nio.file.Path;
+
+/**
+ * Statistiques de SAXValidator calculées sur un {@link ColumnStore} : parcours de tableaux
+ * d'entiers hors tas, sans lecture ni analyse du XML. Les labels sont comptés par code puis
+ * ajoutés une fois par valeur, et 'loc right' est résolu une fois par entrée du dictionnaire.
+ * Le document n'est pas validé (voir SAXValidator pour la validation).
+ */
+public final class ColumnStoreAnalyzer {
+
+    private static final String LOC_RIGHT = "loc right";
+
+    private ColumnStoreAnalyzer() {
+    }
+
+    public static void main(String[] args) {
+        // Stockage (.colonnes), ou XML / CSV chargé en mémoire avant l'analyse
+        String sourcePath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml" + ColumnStore.SUFFIX;
+        // "approximatif=K" : top 10 et labels différents en mémoire fixe (voir LabelStatistics)
+        LabelStatistics statistics = LabelStatistics.fromArgs(args);
+
+        System.out.println("=== ANALYSE DU STOCKAGE EN COLONNES ===");
+        System.out.println("Source : " + sourcePath);
+        System.out.println();
+
+        try {
+            long startTime = System.currentTimeMillis();
+            Path path = Path.of(sourcePath);
+            try (ColumnStore store = sourcePath.endsWith(ColumnStore.SUFFIX) ? ColumnStore.open(path) : ColumnStoreBuilder.build(path)) {
+                long loaded = System.currentTimeMillis();
+                System.out.println("Chargement : " + (loaded - startTime) + " ms (" + store.imageCount() + " images)");
+
+                analyze(store, statistics);
+                long endTime = System.currentTimeMillis();
+                SAXValidator.afficherResultats(statistics);
+                System.out.println("\n✓ Analyse terminée avec succès !");
+                System.out.println("Temps d'analyse : " + (endTime - loaded) + " ms");
+            }
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de l'analyse : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static LabelStatistics analyze(ColumnStore store) {
+        return analyze(store, new LabelStatistics());
+    }
+
+    /**
+     * Ajoute les images du stockage à statistics : mêmes règles que l'ImageHandler (Label
+     * des listes et des phrases, 'loc right' dans Localizations ou dans une phrase).
+     *
+     * @return statistics
+     */
+    public static LabelStatistics analyze(ColumnStore store, LabelStatistics statistics) {
+        ListColumn labels = store.list("Labels");
+        ListColumn localizations = store.list("Localizations");
+        NestedListColumn sentences = store.nestedList("LabelsLocalizationsBySentence");
+        boolean[] locRight = locRight(localizations.dictionary());
+        boolean[] sentenceLocRight = locRight(sentences.dictionary());
+        // Éléments des phrases reconnus par leur nom, comme dans l'ImageHandler
+        boolean[] labelElement = named(sentences.elements(), "label");
+        boolean[] localizationElement = named(sentences.elements(), "localization");
+        int[] labelCounts = new int[labels.dictionary().size()];
+        int[] sentenceLabelCounts = new int[sentences.dictionary().size()];
+
+        for (int image = 0; image < store.imageCount(); image++) {
+            statistics.addImage();
+            for (int i = labels.start(image); i < labels.end(image); i++) {
+                labelCounts[labels.code(i)]++;
+            }
+            boolean hasLocRight = false;
+            for (int i = localizations.start(image); i < localizations.end(image) && !hasLocRight; i++) {
+                hasLocRight = locRight[localizations.code(i)];
+            }
+            for (int s = sentences.start(image); s < sentences.end(image); s++) {
+                for (int i = sentences.itemStart(s); i < sentences.itemEnd(s); i++) {
+                    int element = sentences.element(i);
+                    if (labelElement[element]) {
+                        sentenceLabelCounts[sentences.code(i)]++;
+                    } else if (localizationElement[element] && sentenceLocRight[sentences.code(i)]) {
+                        hasLocRight = true;
+                    }
+                }
+            }
+            if (hasLocRight) {
+                statistics.addLocRight();
+            }
+        }
+
+        addLabels(statistics, labels.dictionary(), labelCounts);
+        addLabels(statistics, sentences.dictionary(), sentenceLabelCounts);
+        return statistics;
+    }
+
+    private static boolean[] locRight(Dictionary dictionary) {
+        boolean[] locRight = new boolean[dictionary.size()];
+        for (int code = 0; code < locRight.length; code++) {
+            locRight[code] = LOC_RIGHT.equalsIgnoreCase(dictionary.value(code));
+        }
+        return locRight;
+    }
+
+    private static boolean[] named(Dictionary elements, String name) {
+        boolean[] named = new boolean[elements.size()];
+        for (int code = 0; code < named.length; code++) {
+            named[code] = name.equalsIgnoreCase(elements.value(code));
+        }
+        return named;
+    }
+
+    private static void addLabels(LabelStatistics statistics, Dictionary dictionary, int[] counts) {
+        for (int code = 0; code < counts.length; code++) {
+            // Labels vides ignorés, comme dans l'ImageHandler
+            if (counts[code] > 0 && !dictionary.value(code).isEmpty()) {
+                statistics.addLabel(dictionary.value(code), counts[code]);
+            }
+        }
+    }
+}
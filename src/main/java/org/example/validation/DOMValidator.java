@@ -1,18 +1,12 @@
 package org.example.validation;
 
 import org.w3c.dom.*;
-import org.xml.sax.ErrorHandler;
+import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import java.io.File;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Validateur DOM pour les fichiers XML PadChest.
@@ -24,28 +18,39 @@ public class DOMValidator {
         String xmlPath = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
         // Fournir un .xsd, un .dtd, ou null pour DTD uniquement (le XML doit contenir DOCTYPE)
         String xsdPath = "src/main/java/org/example/structures/images.xsd";
+        // "memoire-reduite" : arbre sans texte des Report ni nœuds blancs (grands fichiers)
+        boolean lowMemory = Arrays.asList(args).contains("memoire-reduite");
+        // "arret-premiere-erreur", "max-erreurs=N", "erreurs-tsv=chemin" (voir ErrorPolicy)
+        ErrorPolicy policy = ErrorPolicy.fromArgs(args);
 
         System.out.println("=== VALIDATION DOM (Niveau Pro) ===");
         System.out.println("Fichier XML : " + xmlPath);
+        if (lowMemory) {
+            System.out.println("Mode mémoire réduite : texte des Report et nœuds blancs non chargés");
+        }
         if (xsdPath != null) {
             System.out.println("Fichier XSD/DTD fourni : " + xsdPath);
         } else {
             System.out.println("Mode de validation : DTD uniquement (aucun XSD fourni)");
         }
+        System.out.println("Erreurs : " + policy);
         System.out.println();
 
         long startTime = System.currentTimeMillis();
 
         try {
-            ValidationResult result = validate(xmlPath, xsdPath);
+            ValidationResult result = validate(xmlPath, xsdPath, lowMemory, policy);
 
             long endTime = System.currentTimeMillis();
 
             if (result.isValid()) {
                 System.out.println("✓ Le document XML est VALIDE !");
             } else {
-                System.out.println("✗ Le document XML contient des erreurs :");
+                System.out.println("✗ Le document XML contient " + result.getErrorCount() + " erreur(s), les premières :");
                 result.getErrors().forEach(System.out::println);
+                if (policy.reportPath() != null) {
+                    System.out.println("Liste complète : " + policy.reportPath());
+                }
             }
 
             System.out.println();
@@ -63,58 +68,49 @@ public class DOMValidator {
      * Valide le fichier XML avec DTD ou XSD et effectue les calculs statistiques.
      */
     public static ValidationResult validate(String xmlPath, String xsdPath) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
+        return validate(xmlPath, xsdPath, false);
+    }
 
-        // Détermination automatique du mode en fonction de l'extension du fichier fourni.
-        if (xsdPath != null) {
-            String lower = xsdPath.toLowerCase(Locale.ROOT);
-            File schemaFile = new File(xsdPath);
-            if (lower.endsWith(".xsd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier XSD introuvable: " + xsdPath);
-                }
-                // Validation XSD
-                SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                Schema schema = schemaFactory.newSchema(schemaFile);
-                factory.setSchema(schema);
-                factory.setValidating(false); // validation basée sur le schema XSD
-                System.out.println("✓ Validation XSD activée");
-            } else if (lower.endsWith(".dtd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier DTD introuvable: " + xsdPath);
-                }
-                // DTD: le XML doit référencer la DTD via DOCTYPE; on active validating
-                factory.setValidating(true);
-                System.out.println("✓ Validation DTD activée (fichier .dtd fourni)");
+    /**
+     * Valide le fichier XML avec DTD ou XSD et effectue les calculs statistiques.
+     *
+     * @param lowMemory arbre construit sans le texte des {@code <Report>} ni les nœuds
+     *                  texte blancs (voir {@link LowMemoryDomBuilder})
+     */
+    public static ValidationResult validate(String xmlPath, String xsdPath, boolean lowMemory) throws Exception {
+        return validate(xmlPath, xsdPath, lowMemory, ErrorPolicy.collect());
+    }
+
+    /**
+     * Valide le fichier XML avec DTD ou XSD et effectue les calculs statistiques.
+     *
+     * @param policy traitement des erreurs de validation ; si la limite est atteinte, la
+     *               construction du DOM s'arrête et une SAXException est levée. L'Identifiant
+     *               de l'image n'est connu qu'en mode mémoire réduite (arbre construit en SAX).
+     */
+    public static ValidationResult validate(String xmlPath, String xsdPath, boolean lowMemory, ErrorPolicy policy)
+            throws Exception {
+        // Schéma compilé une seule fois, DocumentBuilder réutilisé par thread
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        System.out.println("✓ " + service.mode());
+
+        ValidationResult result = new ValidationResult();
+        Document document;
+        // Erreurs comptées, les premières gardées, écrites au fil de l'eau selon la politique
+        try (ErrorReporter reporter = policy.open()) {
+            if (lowMemory) {
+                LowMemoryDomBuilder builder = new LowMemoryDomBuilder(service.documentBuilder().newDocument(), reporter);
+                service.parse(xmlPath, builder);
+                document = builder.getDocument();
             } else {
-                // Extension inconnue : essayer de détecter ".dtd" dans le nom, sinon erreur
-                if (schemaFile.exists() && xsdPath.toLowerCase().contains(".dtd")) {
-                    factory.setValidating(true);
-                    System.out.println("✓ Validation DTD activée (fichier fourni détecté comme DTD)");
-                } else {
-                    throw new IllegalArgumentException("Type de schéma non reconnu pour: " + xsdPath + ". Utiliser .xsd ou .dtd, ou passez null pour DTD via DOCTYPE.");
-                }
+                document = service.parseDocument(xmlPath, reporter);
             }
-        } else {
-            // Mode DTD uniquement (le XML doit contenir un DOCTYPE qui référence la DTD)
-            factory.setValidating(true);
-            System.out.println("✓ Validation DTD activée (aucun XSD fourni)");
+            result.setValid(reporter.isValid());
+            result.setErrors(reporter.getMessages());
+            result.setErrorCount(reporter.getErrorCount());
         }
 
-        DocumentBuilder builder = factory.newDocumentBuilder();
-
-        // Capturer les erreurs de validation
-        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
-        builder.setErrorHandler(errorHandler);
-
-        // Parser le document
-        Document document = builder.parse(new File(xmlPath));
-
         // Effectuer les calculs statistiques
-        ValidationResult result = new ValidationResult();
-        result.setValid(errorHandler.getErrors().isEmpty());
-        result.setErrors(errorHandler.getErrors());
 
         analyserDocument(document, result);
 
@@ -122,69 +118,91 @@ public class DOMValidator {
     }
 
     /**
-     * Analyse le document DOM pour extraire les statistiques.
+     * Analyse le document DOM pour extraire les statistiques : un seul parcours de chaque
+     * {@code <image>} relève labels et localisations.
      */
     private static void analyserDocument(Document document, ValidationResult result) {
-        NodeList images = document.getElementsByTagName("image");
-        result.setImageCount(images.getLength());
-
-        Map<String, Integer> labelFrequency = new HashMap<>();
-        int locRightCount = 0;
-
-        for (int i = 0; i < images.getLength(); i++) {
-            Element image = (Element) images.item(i);
-
-            // Vérifier si l'image contient 'loc right'
-            if (containsLocRight(image)) {
-                locRightCount++;
+        LabelStatistics statistics = new LabelStatistics();
+
+        // Les <image> sont cherchées dans tout l'arbre, sans redescendre dans une image trouvée
+        Node node = document.getDocumentElement();
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE && "image".equals(node.getNodeName())) {
+                statistics.addImage();
+                if (analyserImage(node, statistics)) {
+                    statistics.addLocRight();
+                }
+                node = nextOutside(node, document);
+            } else {
+                node = next(node, document);
             }
+        }
+
+        result.setStatistics(statistics);
+    }
 
-            // Compter les labels (tolérance casse : on récupère les balises Label et label)
-            List<Element> labels = new ArrayList<>();
-            NodeList nl1 = image.getElementsByTagName("Label");
-            NodeList nl2 = image.getElementsByTagName("label");
-            for (int j = 0; j < nl1.getLength(); j++) labels.add((Element) nl1.item(j));
-            for (int j = 0; j < nl2.getLength(); j++) labels.add((Element) nl2.item(j));
-
-            for (Element lbl : labels) {
-                String labelText = lbl.getTextContent().trim();
-                if (!labelText.isEmpty()) {
-                    labelFrequency.merge(labelText, 1, Integer::sum);
+    /**
+     * Compte les labels de l'image (balises Label et label) et retourne true si elle contient
+     * la localisation 'loc right' (balises Localization, localization, loc ou Loc).
+     */
+    private static boolean analyserImage(Node image, LabelStatistics statistics) {
+        boolean locRight = false;
+        Node node = image.getFirstChild();
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                switch (node.getNodeName()) {
+                    case "Label", "label" -> {
+                        String labelText = texte(node).trim();
+                        if (!labelText.isEmpty()) {
+                            statistics.addLabel(labelText);
+                        }
+                    }
+                    case "Localization", "localization", "loc", "Loc" -> {
+                        if (!locRight && "loc right".equalsIgnoreCase(texte(node).trim())) {
+                            locRight = true;
+                        }
+                    }
+                    default -> {
+                        // autres éléments : seuls leurs descendants comptent
+                    }
                 }
             }
+            node = next(node, image);
         }
+        return locRight;
+    }
 
-        result.setLocRightCount(locRightCount);
-        result.setLabelFrequency(labelFrequency);
+    /**
+     * Nœud suivant dans l'ordre du document, sans sortir de root (null à la fin).
+     */
+    private static Node next(Node node, Node root) {
+        Node child = node.getFirstChild();
+        return child != null ? child : nextOutside(node, root);
     }
 
     /**
-     * Vérifie si une image contient la localisation 'loc right'.
+     * Nœud suivant après le sous-arbre de node, sans sortir de root.
      */
-    private static boolean containsLocRight(Element image) {
-        // Tolérance casse : chercher Localization ou localization puis vérifier le texte
-        NodeList nl1 = image.getElementsByTagName("Localization");
-        NodeList nl2 = image.getElementsByTagName("localization");
-        for (int i = 0; i < nl1.getLength(); i++) {
-            String locText = nl1.item(i).getTextContent().trim();
-            if ("loc right".equalsIgnoreCase(locText)) return true;
-        }
-        for (int i = 0; i < nl2.getLength(); i++) {
-            String locText = nl2.item(i).getTextContent().trim();
-            if ("loc right".equalsIgnoreCase(locText)) return true;
-        }
-        // Par sécurité, vérifier aussi balises <loc> ou <Loc>
-        NodeList nl3 = image.getElementsByTagName("loc");
-        NodeList nl4 = image.getElementsByTagName("Loc");
-        for (int i = 0; i < nl3.getLength(); i++) {
-            String locText = nl3.item(i).getTextContent().trim();
-            if ("loc right".equalsIgnoreCase(locText)) return true;
+    private static Node nextOutside(Node node, Node root) {
+        while (node != root) {
+            Node sibling = node.getNextSibling();
+            if (sibling != null) {
+                return sibling;
+            }
+            node = node.getParentNode();
         }
-        for (int i = 0; i < nl4.getLength(); i++) {
-            String locText = nl4.item(i).getTextContent().trim();
-            if ("loc right".equalsIgnoreCase(locText)) return true;
+        return null;
+    }
+
+    /**
+     * Texte d'un élément ; sans concaténation dans le cas courant d'un seul nœud texte.
+     */
+    private static String texte(Node element) {
+        Node child = element.getFirstChild();
+        if (child != null && child.getNextSibling() == null && child.getNodeType() == Node.TEXT_NODE) {
+            return child.getNodeValue();
         }
-        return false;
+        return element.getTextContent();
     }
 
     /**
@@ -198,10 +216,7 @@ public class DOMValidator {
         System.out.println();
 
         System.out.println("2. Top 10 des labels les plus fréquents :");
-        List<Map.Entry<String, Integer>> top10 = result.getLabelFrequency().entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toList());
+        List<Map.Entry<String, Integer>> top10 = result.getStatistics().getTop10Labels();
 
         int rank = 1;
         for (Map.Entry<String, Integer> entry : top10) {
@@ -211,33 +226,95 @@ public class DOMValidator {
 
         System.out.println();
         System.out.println("Total d'images traitées : " + result.getImageCount());
-        System.out.println("Total de labels différents : " + result.getLabelFrequency().size());
+        System.out.println("Total de labels différents : " + result.getStatistics().getTotalUniqueLabels());
     }
 
     /**
-     * Gestionnaire d'erreurs de validation.
+     * Construction d'un DOM réduit à partir des événements SAX (validation comprise) :
+     * le texte sous {@code <Report>} et les nœuds texte blancs ne sont pas créés. Les
+     * éléments sont tous conservés ; l'arbre des 160K images tient dans un tas bien plus petit.
      */
-    static class ValidationErrorHandler implements ErrorHandler {
-        private final List<String> errors = new ArrayList<>();
+    static class LowMemoryDomBuilder extends DefaultHandler {
+        private static final Set<String> DROPPED_TEXT = Set.of("Report");
+
+        private final Document document;
+        private final ErrorReporter reporter;
+        private final StringBuilder text = new StringBuilder();
+        private Node current;
+        private int droppedDepth = 0;
+
+        LowMemoryDomBuilder(Document document, ErrorReporter reporter) {
+            this.document = document;
+            this.reporter = reporter;
+            this.current = document;
+        }
+
+        public Document getDocument() {
+            return document;
+        }
 
         @Override
-        public void warning(SAXParseException exception) {
-            errors.add("WARNING: " + exception.getMessage());
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            flushText();
+            Element element = document.createElement(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                element.setAttribute(attributes.getQName(i), attributes.getValue(i));
+            }
+            current.appendChild(element);
+            current = element;
+            if ("image".equals(qName)) {
+                reporter.image(attributes.getValue("Identifiant"));
+            }
+            if (droppedDepth > 0 || DROPPED_TEXT.contains(qName)) {
+                droppedDepth++;
+            }
         }
 
         @Override
-        public void error(SAXParseException exception) {
-            errors.add("ERROR: " + exception.getMessage());
+        public void endElement(String uri, String localName, String qName) {
+            flushText();
+            if (droppedDepth > 0) {
+                droppedDepth--;
+            }
+            if ("image".equals(qName)) {
+                reporter.image(null);
+            }
+            current = current.getParentNode();
         }
 
         @Override
-        public void fatalError(SAXParseException exception) throws SAXException {
-            errors.add("FATAL: " + exception.getMessage());
-            throw exception;
+        public void characters(char[] ch, int start, int length) {
+            if (droppedDepth == 0) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void flushText() {
+            if (text.isEmpty()) {
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    current.appendChild(document.createTextNode(text.toString()));
+                    break;
+                }
+            }
+            text.setLength(0);
+        }
+
+        @Override
+        public void warning(SAXParseException exception) {
+            reporter.warning(exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            reporter.error(exception);
         }
 
-        public List<String> getErrors() {
-            return errors;
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            reporter.fatalError(exception);
         }
     }
 
@@ -247,9 +324,8 @@ public class DOMValidator {
     static class ValidationResult {
         private boolean valid;
         private List<String> errors = new ArrayList<>();
-        private int imageCount;
-        private int locRightCount;
-        private Map<String, Integer> labelFrequency = new HashMap<>();
+        private long errorCount;
+        private LabelStatistics statistics = new LabelStatistics();
 
         public boolean isValid() { return valid; }
         public void setValid(boolean valid) { this.valid = valid; }
@@ -257,13 +333,13 @@ public class DOMValidator {
         public List<String> getErrors() { return errors; }
         public void setErrors(List<String> errors) { this.errors = errors; }
 
-        public int getImageCount() { return imageCount; }
-        public void setImageCount(int imageCount) { this.imageCount = imageCount; }
+        public long getErrorCount() { return errorCount; }
+        public void setErrorCount(long errorCount) { this.errorCount = errorCount; }
 
-        public int getLocRightCount() { return locRightCount; }
-        public void setLocRightCount(int locRightCount) { this.locRightCount = locRightCount; }
+        public int getImageCount() { return statistics.getImageCount(); }
+        public int getLocRightCount() { return statistics.getLocRightCount(); }
 
-        public Map<String, Integer> getLabelFrequency() { return labelFrequency; }
-        public void setLabelFrequency(Map<String, Integer> labelFrequency) { this.labelFrequency = labelFrequency; }
+        public LabelStatistics getStatistics() { return statistics; }
+        public void setStatistics(LabelStatistics statistics) { this.statistics = statistics; }
     }
 }
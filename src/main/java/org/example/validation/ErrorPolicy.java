@@ -0,0 +1,99 @@
+package org.example.validation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Politique de traitement des erreurs de validation : arrêt à la première erreur, arrêt
+ * après N erreurs, et/ou écriture de toutes les erreurs dans un fichier TSV au fil de la
+ * lecture. En mémoire, seules les premières erreurs sont conservées.
+ */
+public final class ErrorPolicy {
+
+    /** Erreurs gardées en mémoire pour l'affichage ; les suivantes sont seulement comptées. */
+    static final int KEPT_MESSAGES = 20;
+
+    private final int maxErrors;
+    private final Path reportPath;
+
+    private ErrorPolicy(int maxErrors, Path reportPath) {
+        this.maxErrors = maxErrors;
+        this.reportPath = reportPath;
+    }
+
+    /**
+     * Lecture complète, toutes les erreurs comptées (comportement par défaut).
+     */
+    public static ErrorPolicy collect() {
+        return new ErrorPolicy(0, null);
+    }
+
+    /**
+     * Arrêt à la première erreur de validation.
+     */
+    public static ErrorPolicy failFast() {
+        return maxErrors(1);
+    }
+
+    /**
+     * Arrêt dès que maxErrors erreurs de validation ont été relevées.
+     */
+    public static ErrorPolicy maxErrors(int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("Nombre maximal d'erreurs invalide : " + maxErrors);
+        }
+        return new ErrorPolicy(maxErrors, null);
+    }
+
+    /**
+     * Même politique, chaque avertissement ou erreur étant aussi écrit dans un fichier TSV
+     * (sévérité, ligne, colonne, Identifiant de l'image, message) dès qu'il survient.
+     */
+    public ErrorPolicy withReport(Path reportPath) {
+        return new ErrorPolicy(maxErrors, reportPath);
+    }
+
+    /**
+     * Politique décrite par les arguments d'un main : "arret-premiere-erreur",
+     * "max-erreurs=N", "erreurs-tsv=chemin" ; les autres arguments sont ignorés.
+     */
+    public static ErrorPolicy fromArgs(String[] args) {
+        ErrorPolicy policy = collect();
+        for (String arg : args) {
+            if ("arret-premiere-erreur".equals(arg)) {
+                policy = failFast().withReport(policy.reportPath);
+            } else if (arg.startsWith("max-erreurs=")) {
+                policy = maxErrors(Integer.parseInt(arg.substring("max-erreurs=".length()))).withReport(policy.reportPath);
+            } else if (arg.startsWith("erreurs-tsv=")) {
+                policy = policy.withReport(Path.of(arg.substring("erreurs-tsv=".length())));
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * Nombre d'erreurs provoquant l'arrêt (0 : pas d'arrêt).
+     */
+    public int maxErrors() {
+        return maxErrors;
+    }
+
+    public Path reportPath() {
+        return reportPath;
+    }
+
+    /**
+     * Gestionnaire d'erreurs appliquant la politique pour une validation ; à fermer en fin
+     * de lecture (fichier TSV).
+     */
+    public ErrorReporter open() throws IOException {
+        return new ErrorReporter(this);
+    }
+
+    @Override
+    public String toString() {
+        String mode = maxErrors == 0 ? "toutes les erreurs" : maxErrors == 1 ? "arrêt à la première erreur"
+                : "arrêt après " + maxErrors + " erreurs";
+        return reportPath != null ? mode + ", écrites dans " + reportPath : mode;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.validation;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gestionnaire d'erreurs d'une validation, selon une {@link ErrorPolicy}.
+ * <p>
+ * Les erreurs sont comptées, les premières gardées en mémoire et, si la politique le
+ * demande, toutes écrites dans le fichier TSV au moment où le parser les signale. Quand la
+ * limite est atteinte, une {@link SAXException} interrompt la lecture. L'Identifiant de
+ * l'image en cours est fourni par le handler ({@link #image}) quand le document est lu en SAX.
+ */
+public final class ErrorReporter implements ErrorHandler, Closeable {
+
+    private static final String HEADER = "severite\tligne\tcolonne\tidentifiant\tmessage";
+
+    private final ErrorPolicy policy;
+    private final Writer report;
+    private final List<String> messages = new ArrayList<>();
+    private long warningCount;
+    private long errorCount;
+    private boolean fatal;
+    private String image;
+
+    ErrorReporter(ErrorPolicy policy) throws IOException {
+        this.policy = policy;
+        if (policy.reportPath() != null) {
+            report = Files.newBufferedWriter(policy.reportPath(), StandardCharsets.UTF_8);
+            report.write(HEADER);
+            report.write('\n');
+        } else {
+            report = null;
+        }
+    }
+
+    /**
+     * Identifiant de l'image en cours de lecture (null hors d'une image).
+     */
+    void image(String identifiant) {
+        image = identifiant;
+    }
+
+    @Override
+    public void warning(SAXParseException exception) {
+        warningCount++;
+        record("WARNING", exception);
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+        errorCount++;
+        record("ERROR", exception);
+        if (policy.maxErrors() > 0 && errorCount >= policy.maxErrors()) {
+            throw new SAXException("Validation interrompue après " + errorCount + " erreur(s) ("
+                    + policy + "), la dernière : " + position(exception) + exception.getMessage(), exception);
+        }
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+        fatal = true;
+        record("FATAL", exception);
+        throw exception;
+    }
+
+    private void record(String severity, SAXParseException exception) {
+        if (messages.size() < ErrorPolicy.KEPT_MESSAGES) {
+            messages.add(severity + ": " + position(exception) + exception.getMessage());
+        }
+        if (report != null) {
+            try {
+                report.write(severity + '\t' + exception.getLineNumber() + '\t' + exception.getColumnNumber() + '\t'
+                        + (image != null ? image : "") + '\t' + clean(exception.getMessage()) + '\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException("Écriture du rapport d'erreurs impossible : " + policy.reportPath(), e);
+            }
+        }
+    }
+
+    private String position(SAXParseException exception) {
+        String position = "ligne " + exception.getLineNumber() + ", colonne " + exception.getColumnNumber();
+        return image != null ? position + ", image " + image + " : " : position + " : ";
+    }
+
+    /**
+     * Message sur une seule ligne, sans tabulation (une erreur par ligne du TSV).
+     */
+    private static String clean(String message) {
+        return message == null ? "" : message.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Premiers avertissements et erreurs, dans l'ordre du document.
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public long getWarningCount() { return warningCount; }
+    public long getErrorCount() { return errorCount; }
+
+    /**
+     * Aucune erreur de validation ni erreur fatale.
+     */
+    public boolean isValid() {
+        return errorCount == 0 && !fatal;
+    }
+
+    /**
+     * Affiche le nombre d'erreurs et les premières d'entre elles.
+     */
+    public void afficher() {
+        if (warningCount + errorCount == 0 && !fatal) {
+            return;
+        }
+        System.out.println("✗ " + errorCount + " erreur(s) de validation, " + warningCount
+                + " avertissement(s), les premiers :");
+        messages.forEach(message -> System.out.println("   - " + message));
+        if (report != null) {
+            System.out.println("   Liste complète : " + policy.reportPath());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (report != null) {
+            report.close();
+        }
+    }
+}
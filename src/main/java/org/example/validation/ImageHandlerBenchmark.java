@@ -0,0 +1,129 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocations et temps de l'{@link SAXValidator.ImageHandler} comparés à l'ancien handler
+ * (toLowerCase, toString().trim(), Integer en boîte, tri de toutes les entrées).
+ * <p>
+ * Même parser non validant pour les deux : la différence d'octets alloués par image
+ * (mesurés par {@code ThreadMXBean.getThreadAllocatedBytes}) vient du handler.
+ */
+public class ImageHandlerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        SAXParser parser = factory.newSAXParser();
+
+        System.out.println("=== ALLOCATIONS DU HANDLER SAX ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println();
+
+        for (int run = 0; run <= runs; run++) {
+            LegacyImageHandler legacy = new LegacyImageHandler();
+            long[] before = measure(threads, parser, xmlPath, legacy);
+            SAXValidator.ImageHandler handler = new SAXValidator.ImageHandler();
+            long[] after = measure(threads, parser, xmlPath, handler);
+            if (run == 0) {
+                // Warm-up, et contrôle que les résultats sont identiques
+                boolean same = legacy.imageCount == handler.getImageCount()
+                        && legacy.locRightCount == handler.getLocRightCount()
+                        && legacy.labelFrequency.size() == handler.getTotalUniqueLabels()
+                        && legacy.getTop10Labels().equals(handler.getTop10Labels());
+                System.out.println("Résultats identiques : " + (same ? "OUI" : "NON"));
+                continue;
+            }
+            int images = handler.getImageCount();
+            System.out.printf("Passe %d : ancien %,d octets/image (%,d ms) ; nouveau %,d octets/image (%,d ms)%n",
+                    run, before[0] / images, before[1], after[0] / images, after[1]);
+        }
+    }
+
+    /**
+     * Parse le document et retourne {octets alloués par le thread, durée en ms}.
+     */
+    private static long[] measure(com.sun.management.ThreadMXBean threads, SAXParser parser, String xmlPath,
+                                  DefaultHandler handler) throws Exception {
+        long thread = Thread.currentThread().threadId();
+        parser.reset();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long debut = System.nanoTime();
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            parser.parse(ValidationService.source(in, xmlPath), handler);
+        }
+        return new long[]{threads.getThreadAllocatedBytes(thread) - allocated, (System.nanoTime() - debut) / 1_000_000};
+    }
+
+    /**
+     * Ancien handler, conservé comme référence.
+     */
+    private static class LegacyImageHandler extends DefaultHandler {
+        private int imageCount = 0;
+        private int locRightCount = 0;
+        private final Map<String, Integer> labelFrequency = new HashMap<>();
+
+        private final StringBuilder currentText = new StringBuilder();
+        private boolean currentImageHasLocRight = false;
+        private boolean insideImage = false;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            currentText.setLength(0);
+            if ("image".equalsIgnoreCase(qName)) {
+                imageCount++;
+                currentImageHasLocRight = false;
+                insideImage = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            String content = currentText.toString().trim();
+            String element = qName.toLowerCase();
+            if (insideImage && "localization".equals(element)) {
+                if ("loc right".equalsIgnoreCase(content) && !currentImageHasLocRight) {
+                    locRightCount++;
+                    currentImageHasLocRight = true;
+                }
+            }
+            if (insideImage && "label".equals(element)) {
+                if (!content.isEmpty()) {
+                    labelFrequency.merge(content, 1, Integer::sum);
+                }
+            }
+            if ("image".equalsIgnoreCase(qName)) {
+                insideImage = false;
+                currentImageHasLocRight = false;
+            }
+            currentText.setLength(0);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            currentText.append(ch, start, length);
+        }
+
+        List<Map.Entry<String, Integer>> getTop10Labels() {
+            return labelFrequency.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(10)
+                    .toList();
+        }
+    }
+}
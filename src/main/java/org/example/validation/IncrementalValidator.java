@@ -0,0 +1,315 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.example.validation.ParallelXsdValidator.Layout;
+import org.example.validation.ParallelXsdValidator.PositionedHandler;
+import org.example.validation.ParallelXsdValidator.ValidationError;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Revalidation XSD incrémentale : seules les images nouvelles ou modifiées depuis la
+ * dernière exécution sont validées et analysées.
+ * <p>
+ * Le fichier est découpé en images comme pour {@link ParallelXsdValidator} ; l'empreinte de
+ * chaque image est comparée à celle du {@link RecordCache} pour son Identifiant. Les suites
+ * d'images modifiées sont validées comme des lots ; les images inchangées reprennent leur
+ * verdict et leur contribution aux statistiques depuis le cache. La structure de la racine est
+ * toujours revalidée. Statistiques et nombre d'erreurs sont ceux d'une validation complète.
+ */
+public class IncrementalValidator {
+
+    private static final int REPORTED_ERRORS = 20;
+    private static final Pattern IDENTIFIANT = Pattern.compile("\\sIdentifiant\\s*=\\s*(\"([^\"]*)\"|'([^']*)')");
+
+    public static void main(String[] args) {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        String xsdPath = args.length > 1 ? args[1] : "src/main/java/org/example/structures/images.xsd";
+        // Par défaut à côté du XML : <xml>.cache
+        String cachePath = args.length > 2 ? args[2] : RecordCache.pathFor(Path.of(xmlPath)).toString();
+
+        System.out.println("=== VALIDATION XSD INCRÉMENTALE ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println("Fichier XSD : " + xsdPath);
+        System.out.println("Cache : " + cachePath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            validate(xmlPath, xsdPath, cachePath);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("\n✓ Validation et analyse terminées avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la validation : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Valide les images modifiées, complète avec le cache, affiche erreurs et statistiques et
+     * met le cache à jour.
+     */
+    public static LabelStatistics validate(String xmlPath, String xsdPath, String cachePath) throws Exception {
+        if (CompressedFiles.isGzip(xmlPath)) {
+            // Le découpage repose sur la projection en mémoire du fichier
+            throw new IOException("La validation incrémentale nécessite un XML non compressé : " + xmlPath);
+        }
+        if (xsdPath == null || !xsdPath.toLowerCase(Locale.ROOT).endsWith(".xsd")) {
+            throw new IllegalArgumentException("La validation incrémentale nécessite un fichier .xsd : " + xsdPath);
+        }
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        String systemId = new File(xmlPath).toURI().toString();
+        String schemaHash = RecordCache.fingerprint(Path.of(xsdPath));
+        RecordCache cache = RecordCache.load(Path.of(cachePath), schemaHash);
+
+        LabelStatistics total = new LabelStatistics();
+        List<ValidationError> errors = new ArrayList<>();
+        long errorCount = 0;
+        List<RecordCache.Entry> updated;
+
+        try (FileChannel channel = FileChannel.open(Path.of(xmlPath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichier trop volumineux pour la projection en mémoire : " + xmlPath);
+            }
+            ByteBuffer xml = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Layout layout = Layout.scan(xml);
+            int imageCount = layout.imageCount();
+
+            // Images inchangées : entrée du cache pour le même Identifiant et la même empreinte
+            String[] identifiants = new String[imageCount];
+            long[] hashes = new long[imageCount];
+            RecordCache.Entry[] entries = new RecordCache.Entry[imageCount];
+            int unchanged = 0;
+            for (int i = 0; i < imageCount; i++) {
+                identifiants[i] = identifiant(xml, layout, i);
+                hashes[i] = RecordCache.hash(xml, layout.start(i), layout.end(i));
+                RecordCache.Entry cached = identifiants[i] != null ? cache.get(identifiants[i]) : null;
+                if (cached != null && cached.hash() == hashes[i]) {
+                    entries[i] = cached;
+                    unchanged++;
+                }
+            }
+            System.out.println("✓ " + service.mode() + " : " + imageCount + " image(s), " + unchanged
+                    + " inchangée(s) d'après le cache, " + (imageCount - unchanged) + " à valider");
+
+            // Structure de la racine, images remplacées par des blancs
+            PositionedHandler root = ParallelXsdValidator.validateRoot(service, xml,
+                    layout.batches(ParallelXsdValidator.IMAGES_PER_BATCH), systemId);
+            checkFatal(root);
+            errors.addAll(root.errors());
+            errorCount += root.errorCount();
+
+            // Suites d'images modifiées ou nouvelles
+            int first = 0;
+            while (first < imageCount) {
+                if (entries[first] != null) {
+                    first++;
+                    continue;
+                }
+                int last = first;
+                while (last + 1 < imageCount && entries[last + 1] == null) {
+                    last++;
+                }
+                RecordHandler handler = new RecordHandler(layout, first, last);
+                ParallelXsdValidator.validateBatch(service, xml, layout, layout.batch(first, last), systemId, handler);
+                checkFatal(handler);
+                errors.addAll(handler.errors());
+                errorCount += handler.errorCount();
+                for (int i = first; i <= last; i++) {
+                    entries[i] = handler.entry(i, identifiants[i], hashes[i]);
+                }
+                first = last + 1;
+            }
+
+            // Statistiques de toutes les images ; erreurs des images inchangées reprises du cache
+            for (int i = 0; i < imageCount; i++) {
+                RecordCache.Entry entry = entries[i];
+                entry.addTo(total);
+                if (unchangedEntry(cache, entry) && entry.errorCount() > 0) {
+                    errorCount += entry.errorCount();
+                    errors.add(cachedError(layout, i, entry));
+                }
+            }
+
+            updated = new ArrayList<>(imageCount);
+            for (RecordCache.Entry entry : entries) {
+                if (entry.identifiant() != null) {
+                    updated.add(entry);
+                }
+            }
+        }
+        RecordCache.save(Path.of(cachePath), schemaHash, updated);
+
+        if (errorCount > 0) {
+            Collections.sort(errors);
+            System.out.println("✗ " + errorCount + " erreur(s) de validation, les premières :");
+            errors.stream().limit(REPORTED_ERRORS).forEach(error -> System.out.println("   - " + error));
+        }
+        SAXValidator.afficherResultats(total);
+        return total;
+    }
+
+    /**
+     * L'entrée vient du cache (image non revalidée lors de cette exécution).
+     */
+    private static boolean unchangedEntry(RecordCache cache, RecordCache.Entry entry) {
+        return entry.identifiant() != null && cache.get(entry.identifiant()) == entry;
+    }
+
+    private static void checkFatal(PositionedHandler handler) throws SAXException {
+        if (handler.fatal() != null) {
+            // Comme en séquentiel : un document mal formé interrompt la validation
+            throw new SAXException("Document mal formé, " + handler.fatal());
+        }
+    }
+
+    /**
+     * Première erreur d'une image du cache, ramenée à la position actuelle de l'image.
+     */
+    private static ValidationError cachedError(Layout layout, int image, RecordCache.Entry entry) {
+        if (entry.errorLine() == 0) {
+            return new ValidationError(layout.line(image), layout.column(image) + entry.errorColumn(), entry.errorMessage());
+        }
+        return new ValidationError(layout.line(image) + entry.errorLine(), entry.errorColumn(), entry.errorMessage());
+    }
+
+    /**
+     * Valeur de l'attribut Identifiant de la balise {@code <image>} (null si absent).
+     */
+    private static String identifiant(ByteBuffer xml, Layout layout, int image) {
+        int start = layout.start(image);
+        int end = start;
+        byte quote = 0;
+        // Fin de la balise ouvrante, hors valeurs d'attributs
+        while (end < layout.end(image)) {
+            byte b = xml.get(end++);
+            if (quote != 0) {
+                quote = b == quote ? 0 : quote;
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                break;
+            }
+        }
+        byte[] tag = new byte[end - start];
+        xml.get(start, tag);
+        Matcher matcher = IDENTIFIANT.matcher(new String(tag, layout.encoding()));
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+    }
+
+    /**
+     * Analyse d'une suite d'images modifiées : contribution de chaque image aux statistiques
+     * et erreurs rattachées à l'image d'après leur position.
+     */
+    private static final class RecordHandler extends PositionedHandler {
+        private final Layout layout;
+        private final int first;
+        private final boolean[] locRight;
+        private final String[][] labels;
+        private final int[][] counts;
+        private final int[] errorCounts;
+        private final ValidationError[] firstErrors;
+        private int image = -1;
+        private LabelStatistics current;
+
+        RecordHandler(Layout layout, int first, int last) {
+            super(layout.line(first), layout.column(first), layout.rootTagLength());
+            this.layout = layout;
+            this.first = first;
+            int size = last - first + 1;
+            locRight = new boolean[size];
+            labels = new String[size][];
+            counts = new int[size][];
+            errorCounts = new int[size];
+            firstErrors = new ValidationError[size];
+        }
+
+        @Override
+        void imageStarted(Attributes attributes) {
+            image++;
+            current = new LabelStatistics();
+            collectInto(current);
+        }
+
+        @Override
+        void imageEnded() {
+            locRight[image] = current.getLocRightCount() > 0;
+            int size = current.getTotalUniqueLabels();
+            labels[image] = new String[size];
+            counts[image] = new int[size];
+            for (int i = 0; i < size; i++) {
+                labels[image][i] = current.label(i);
+                counts[image][i] = current.count(i);
+            }
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+            if (inPrefix(exception)) {
+                // Balise de la racine : relevée par la passe de la racine, jamais mise en cache
+                return;
+            }
+            super.error(exception);
+            ValidationError error = position(exception);
+            int index = imageAt(error) - first;
+            if (errorCounts[index]++ == 0) {
+                firstErrors[index] = error;
+            }
+        }
+
+        /**
+         * Dernière image de la suite commençant avant la position de l'erreur.
+         */
+        private int imageAt(ValidationError error) {
+            int low = first;
+            int high = first + errorCounts.length - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                ValidationError start = new ValidationError(layout.line(middle), layout.column(middle), null);
+                if (start.compareTo(error) <= 0) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        RecordCache.Entry entry(int image, String identifiant, long hash) {
+            int index = image - first;
+            ValidationError error = firstErrors[index];
+            int errorLine = 0;
+            int errorColumn = 0;
+            String errorMessage = null;
+            if (error != null) {
+                errorLine = (int) (error.line() - layout.line(image));
+                errorColumn = errorLine == 0 ? (int) (error.column() - layout.column(image)) : (int) error.column();
+                errorMessage = error.message();
+            }
+            return new RecordCache.Entry(identifiant, hash, locRight[index],
+                    labels[index] != null ? labels[index] : new String[0], counts[index] != null ? counts[index] : new int[0],
+                    errorCounts[index], errorLine, errorColumn, errorMessage);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.validation;
+
+import org.example.util.CharRangeTable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Compteur de labels sur une {@link CharRangeTable} : une chaîne n'est créée qu'à la première
+ * occurrence d'un label ; les occurrences suivantes n'allouent rien.
+ */
+final class LabelCounter {
+
+    private final CharRangeTable labels = new CharRangeTable(32);
+    private int[] counts = new int[32];
+
+    int size() {
+        return labels.size();
+    }
+
+    String label(int index) {
+        return labels.key(index);
+    }
+
+    int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Compte une occurrence du label {@code chars[start, end)}.
+     */
+    void add(char[] chars, int start, int end) {
+        add(labels.intern(chars, start, end), 1);
+    }
+
+    /**
+     * Compte count occurrences du label (label déjà sous forme de chaîne : DOM, StAX).
+     */
+    void add(String label, int count) {
+        add(labels.intern(label, 0, label.length()), count);
+    }
+
+    /**
+     * Ajoute les occurrences d'un autre compteur.
+     */
+    void merge(LabelCounter other) {
+        for (int i = 0; i < other.size(); i++) {
+            add(other.label(i), other.counts[i]);
+        }
+    }
+
+    private void add(int index, int count) {
+        if (index == counts.length) {
+            counts = Arrays.copyOf(counts, index * 2);
+        }
+        counts[index] += count;
+    }
+
+    /**
+     * Les n labels les plus fréquents, par fréquence décroissante (à égalité, ordre
+     * alphabétique). Tas borné à n éléments : pas de tri de toutes les entrées.
+     */
+    List<Map.Entry<String, Integer>> top(int n) {
+        Comparator<Integer> byFrequency = Comparator.<Integer>comparingInt(i -> counts[i])
+                .thenComparing(labels::key, Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(n + 1, byFrequency);
+        for (int i = 0; i < labels.size(); i++) {
+            heap.add(i);
+            if (heap.size() > n) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int i = heap.poll();
+            top.add(new AbstractMap.SimpleImmutableEntry<>(labels.key(i), counts[i]));
+        }
+        return top.reversed();
+    }
+}
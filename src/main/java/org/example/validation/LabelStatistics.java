@@ -0,0 +1,179 @@
+package org.example.validation;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques d'analyse PadChest : images, images avec 'loc right' et fréquence des labels.
+ * <p>
+ * Un accumulateur est alimenté par un seul thread (une partie du document, un fragment) ;
+ * les accumulateurs partiels se combinent ensuite par {@link #merge}. La fusion est
+ * associative et commutative, et le classement départage les égalités par ordre
+ * alphabétique : le résultat ne dépend ni du découpage ni de l'ordre des fusions.
+ * <p>
+ * En mode approché ({@link #approximate}), la mémoire ne dépend plus du nombre de labels
+ * différents : top N par {@link SpaceSaving} (comptes majorés, erreur bornée) et nombre de
+ * labels différents estimé par {@link HyperLogLog}. Les bornes restent garanties après fusion,
+ * mais le classement peut alors dépendre de l'ordre des fusions.
+ */
+public final class LabelStatistics {
+
+    private int imageCount;
+    private int locRightCount;
+    // Mode exact : labels ; mode approché : topSketch et distinctSketch
+    private final LabelCounter labels;
+    private final SpaceSaving topSketch;
+    private final HyperLogLog distinctSketch;
+
+    public LabelStatistics() {
+        this(new LabelCounter(), null, null);
+    }
+
+    private LabelStatistics(LabelCounter labels, SpaceSaving topSketch, HyperLogLog distinctSketch) {
+        this.labels = labels;
+        this.topSketch = topSketch;
+        this.distinctSketch = distinctSketch;
+    }
+
+    /**
+     * Statistiques en mémoire fixe : capacity labels suivis pour le top N, HyperLogLog de
+     * précision 14 (16 Ko) pour le nombre de labels différents.
+     */
+    public static LabelStatistics approximate(int capacity) {
+        return new LabelStatistics(null, new SpaceSaving(capacity), new HyperLogLog());
+    }
+
+    /**
+     * Statistiques décrites par les arguments d'un main : "approximatif=K" pour le mode
+     * approché à K compteurs, exactes sinon.
+     */
+    public static LabelStatistics fromArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("approximatif=")) {
+                return approximate(Integer.parseInt(arg.substring("approximatif=".length())));
+            }
+        }
+        return new LabelStatistics();
+    }
+
+    public boolean isApproximate() {
+        return labels == null;
+    }
+
+    void addImage() {
+        imageCount++;
+    }
+
+    void addLocRight() {
+        locRightCount++;
+    }
+
+    /**
+     * Compte une occurrence du label {@code chars[start, end)} (sans allocation s'il est connu).
+     */
+    void addLabel(char[] chars, int start, int end) {
+        if (labels != null) {
+            labels.add(chars, start, end);
+        } else {
+            topSketch.add(chars, start, end);
+            distinctSketch.add(chars, start, end);
+        }
+    }
+
+    void addLabel(String label) {
+        addLabel(label, 1);
+    }
+
+    void addLabel(String label, int count) {
+        if (labels != null) {
+            labels.add(label, count);
+        } else {
+            char[] chars = label.toCharArray();
+            topSketch.add(chars, 0, chars.length, count);
+            distinctSketch.add(chars, 0, chars.length);
+        }
+    }
+
+    /**
+     * Ajoute les statistiques d'une autre partie ; other n'est pas modifié.
+     *
+     * @return cet accumulateur
+     */
+    public LabelStatistics merge(LabelStatistics other) {
+        if (isApproximate() != other.isApproximate()) {
+            throw new IllegalArgumentException("Statistiques exactes et approchées non fusionnables");
+        }
+        imageCount += other.imageCount;
+        locRightCount += other.locRightCount;
+        if (labels != null) {
+            labels.merge(other.labels);
+        } else {
+            topSketch.merge(other.topSketch);
+            distinctSketch.merge(other.distinctSketch);
+        }
+        return this;
+    }
+
+    public int getImageCount() { return imageCount; }
+    public int getLocRightCount() { return locRightCount; }
+
+    /**
+     * Nombre de labels différents (estimation en mode approché).
+     */
+    public int getTotalUniqueLabels() {
+        return labels != null ? labels.size() : (int) distinctSketch.estimate();
+    }
+
+    /**
+     * Label d'indice index (0 à getTotalUniqueLabels() - 1, ordre de première occurrence) ;
+     * mode exact uniquement.
+     */
+    String label(int index) { return exact().label(index); }
+    int count(int index) { return exact().count(index); }
+
+    private LabelCounter exact() {
+        if (labels == null) {
+            throw new IllegalStateException("Labels non conservés en mode approché");
+        }
+        return labels;
+    }
+
+    /**
+     * Les n labels les plus fréquents (à égalité, ordre alphabétique) ; en mode approché,
+     * comptes majorés (voir {@link #topEstimates}).
+     */
+    public List<Map.Entry<String, Integer>> getTopLabels(int n) {
+        if (labels != null) {
+            return labels.top(n);
+        }
+        return topSketch.top(n).stream()
+                .<Map.Entry<String, Integer>>map(e -> new AbstractMap.SimpleImmutableEntry<>(e.label(), (int) e.count()))
+                .toList();
+    }
+
+    public List<Map.Entry<String, Integer>> getTop10Labels() {
+        return getTopLabels(10);
+    }
+
+    /**
+     * Top n du mode approché, avec l'erreur maximale de chaque compte.
+     */
+    List<SpaceSaving.Estimate> topEstimates(int n) {
+        return topSketch.top(n);
+    }
+
+    /**
+     * Erreur maximale sur les comptes du top (mode approché).
+     */
+    long topErrorBound() {
+        return topSketch.errorBound();
+    }
+
+    /**
+     * Erreur type relative du nombre de labels différents (mode approché).
+     */
+    double distinctStandardError() {
+        return distinctSketch.standardError();
+    }
+}
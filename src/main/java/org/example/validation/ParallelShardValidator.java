@@ -0,0 +1,202 @@
+package org.example.validation;
+
+import org.example.conversion.ShardManifest;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Validation et analyse parallèles de plusieurs fichiers XML (fragments d'un manifeste,
+ * fichiers d'un dossier).
+ * <p>
+ * Les fichiers sont partagés récursivement sur un {@link ForkJoinPool} : chaque fichier est
+ * validé et analysé par un worker dans ses propres {@link LabelStatistics}, puis les résultats
+ * partiels sont fusionnés en remontant. La fusion étant associative, top 10 et nombre de
+ * labels différents sont ceux d'une analyse séquentielle des mêmes images.
+ */
+public class ParallelShardValidator {
+
+    private static final int REPORTED_ERRORS = 20;
+
+    public static void main(String[] args) {
+        // Manifeste, dossier de fragments ou fichier XML seul
+        String input = args.length > 0 ? args[0] : "src/main/java/org/example/shards/" + ShardManifest.FILE_NAME;
+        String xsdPath = args.length > 1 ? args[1] : "src/main/java/org/example/structures/images.xsd";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=== VALIDATION PARALLÈLE DES FRAGMENTS (" + threads + " threads) ===");
+        System.out.println("Fragments : " + input);
+        System.out.println("Fichier XSD/DTD fourni : " + xsdPath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            validate(input, xsdPath, threads);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("\n✓ Validation et analyse terminées avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la validation : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Valide et analyse les fichiers sur threads workers, affiche les premières erreurs (dans
+     * l'ordre des fichiers) et les statistiques fusionnées.
+     *
+     * @param input manifeste, dossier ou fichier XML (.xml ou .xml.gz)
+     */
+    public static LabelStatistics validate(String input, String xsdPath, int threads) throws Exception {
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        List<Path> files = fichiers(Path.of(input));
+        System.out.println("✓ " + service.mode() + " : " + files.size() + " fichier(s)");
+
+        Partial total;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            total = pool.invoke(new FileTask(service, files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+
+        if (total.failure() != null) {
+            // Comme en séquentiel : un fichier illisible ou mal formé interrompt la validation
+            throw new SAXException(total.failure());
+        }
+        if (total.errorCount() > 0) {
+            System.out.println("✗ " + total.errorCount() + " erreur(s) de validation, les premières :");
+            total.errors().forEach(error -> System.out.println("   - " + error));
+        }
+        SAXValidator.afficherResultats(total.statistics());
+        return total.statistics();
+    }
+
+    /**
+     * Fichiers à traiter : fragments du manifeste (celui du dossier s'il en a un), sinon
+     * fichiers .xml / .xml.gz du dossier par ordre de nom, sinon le fichier lui-même.
+     */
+    static List<Path> fichiers(Path input) throws IOException {
+        Path manifestPath = Files.isDirectory(input) ? input.resolve(ShardManifest.FILE_NAME) : input;
+        if (Files.isRegularFile(manifestPath) && manifestPath.getFileName().toString().equals(ShardManifest.FILE_NAME)) {
+            List<Path> files = new ArrayList<>();
+            for (ShardManifest.Shard shard : ShardManifest.load(manifestPath).shards()) {
+                files.add(ShardManifest.resolve(manifestPath, shard));
+            }
+            return files;
+        }
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> entries = Files.list(input)) {
+                return entries.filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.endsWith(".xml") || name.endsWith(".xml.gz");
+                }).sorted().toList();
+            }
+        }
+        return List.of(input);
+    }
+
+    /**
+     * Résultat partiel d'une suite de fichiers : statistiques, erreurs de validation (les
+     * premières, dans l'ordre des fichiers) et premier échec (fichier illisible ou mal formé).
+     */
+    record Partial(LabelStatistics statistics, long errorCount, List<String> errors, String failure) {
+
+        /**
+         * Combine deux parties consécutives ; left précède right dans l'ordre des fichiers.
+         */
+        static Partial combine(Partial left, Partial right) {
+            List<String> errors = new ArrayList<>(left.errors);
+            for (String error : right.errors) {
+                if (errors.size() == REPORTED_ERRORS) {
+                    break;
+                }
+                errors.add(error);
+            }
+            return new Partial(left.statistics.merge(right.statistics), left.errorCount + right.errorCount,
+                    errors, left.failure != null ? left.failure : right.failure);
+        }
+    }
+
+    /**
+     * Fichiers [start, end) : un fichier est traité directement, une suite plus longue est
+     * coupée en deux moitiés traitées en parallèle.
+     */
+    private static final class FileTask extends RecursiveTask<Partial> {
+        // Les tâches ne sont jamais sérialisées (RecursiveTask est Serializable par héritage)
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient ValidationService service;
+        private final transient List<Path> files;
+        private final int start;
+        private final int end;
+
+        FileTask(ValidationService service, List<Path> files, int start, int end) {
+            this.service = service;
+            this.files = files;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (end - start == 0) {
+                return new Partial(new LabelStatistics(), 0, List.of(), null);
+            }
+            if (end - start == 1) {
+                return analyser(files.get(start));
+            }
+            int middle = (start + end) >>> 1;
+            FileTask right = new FileTask(service, files, middle, end);
+            right.fork();
+            Partial left = new FileTask(service, files, start, middle).compute();
+            return Partial.combine(left, right.join());
+        }
+
+        private Partial analyser(Path file) {
+            FileHandler handler = new FileHandler(file.getFileName().toString());
+            String failure = null;
+            try {
+                // Parser et Validator du thread courant (voir ValidationService)
+                service.parse(file.toString(), handler);
+            } catch (IOException | SAXException e) {
+                failure = "Fichier " + file + " : " + e.getMessage();
+            }
+            return new Partial(handler.statistics(), handler.errorCount, handler.errors, failure);
+        }
+    }
+
+    /**
+     * Analyse d'un fichier ; garde les premières erreurs de validation, préfixées du nom du fichier.
+     */
+    private static final class FileHandler extends SAXValidator.ImageHandler {
+        private final String name;
+        private final List<String> errors = new ArrayList<>();
+        private long errorCount;
+
+        FileHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+            if (errorCount++ < REPORTED_ERRORS) {
+                errors.add(name + ", ligne " + exception.getLineNumber() + ", colonne "
+                        + exception.getColumnNumber() + " : " + exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,635 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validation XSD parallèle d'un seul grand document.
+ * <p>
+ * Une passe sur le fichier projeté en mémoire relève la position des {@code <image>} enfants
+ * de la racine. Les images sont regroupées en lots ; chaque lot est validé et analysé par un
+ * worker dans un document reconstitué (balise ouvrante de la racine réduite à son nom et à ses
+ * déclarations d'espaces de noms, images, balise fermante). La structure de la racine, ses
+ * attributs compris, est validée à part, sur le document où les lots sont remplacés par des
+ * blancs (mêmes lignes, mêmes colonnes) : ses erreurs ne sont relevées qu'une fois. Les erreurs sont ramenées aux lignes et
+ * colonnes du fichier d'origine et les statistiques des lots sont fusionnées : mêmes
+ * résultats que {@link SAXValidator}.
+ */
+public class ParallelXsdValidator {
+
+    static final int IMAGES_PER_BATCH = 2_000;
+    private static final int REPORTED_ERRORS = 20;
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z0-9._-]+)[\"']");
+    private static final Pattern NAMESPACE = Pattern.compile("\\s(xmlns(?::[^\\s=]+)?)\\s*=\\s*(\"[^\"]*\"|'[^']*')");
+
+    public static void main(String[] args) {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        String xsdPath = args.length > 1 ? args[1] : "src/main/java/org/example/structures/images.xsd";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=== VALIDATION XSD PARALLÈLE (" + threads + " threads) ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println("Fichier XSD : " + xsdPath);
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            validate(xmlPath, xsdPath, threads);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("\n✓ Validation et analyse terminées avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la validation : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Valide le fichier XML contre le XSD sur plusieurs threads et affiche les statistiques
+     * et les premières erreurs (dans l'ordre du document).
+     */
+    public static void validate(String xmlPath, String xsdPath, int threads) throws Exception {
+        if (CompressedFiles.isGzip(xmlPath)) {
+            // Le découpage repose sur la projection en mémoire du fichier
+            throw new IOException("La validation parallèle nécessite un XML non compressé : " + xmlPath);
+        }
+        if (xsdPath == null || !xsdPath.toLowerCase(Locale.ROOT).endsWith(".xsd")) {
+            throw new IllegalArgumentException("La validation parallèle nécessite un fichier .xsd : " + xsdPath);
+        }
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        String systemId = new File(xmlPath).toURI().toString();
+
+        SAXValidator.ImageHandler total = new SAXValidator.ImageHandler();
+        List<ValidationError> errors = new ArrayList<>();
+        long errorCount = 0;
+        ValidationError fatal = null;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(Path.of(xmlPath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichier trop volumineux pour la projection en mémoire : " + xmlPath);
+            }
+            ByteBuffer xml = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Layout layout = Layout.scan(xml);
+            List<Batch> batches = layout.batches(IMAGES_PER_BATCH);
+            System.out.println("✓ " + service.mode() + " : " + batches.size() + " lot(s) de "
+                    + IMAGES_PER_BATCH + " images au plus");
+
+            List<Future<PositionedHandler>> parts = new ArrayList<>();
+            parts.add(executor.submit(() -> validateRoot(service, xml, batches, systemId)));
+            for (Batch batch : batches) {
+                parts.add(executor.submit(() -> validateBatch(service, xml, layout, batch, systemId)));
+            }
+            for (Future<PositionedHandler> future : parts) {
+                PositionedHandler part = await(future);
+                total.merge(part);
+                errors.addAll(part.errors);
+                errorCount += part.errorCount;
+                if (part.fatal != null && (fatal == null || part.fatal.compareTo(fatal) < 0)) {
+                    fatal = part.fatal;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (fatal != null) {
+            // Comme en séquentiel : un document mal formé interrompt la validation
+            throw new SAXException("Document mal formé, " + fatal);
+        }
+        if (errorCount > 0) {
+            Collections.sort(errors);
+            System.out.println("✗ " + errorCount + " erreur(s) de validation, les premières :");
+            errors.stream().limit(REPORTED_ERRORS).forEach(error -> System.out.println("   - " + error));
+        }
+        SAXValidator.afficherResultats(total.statistics());
+    }
+
+    private static PositionedHandler await(Future<PositionedHandler> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Structure de la racine : document d'origine, lots remplacés par des blancs.
+     */
+    static PositionedHandler validateRoot(ValidationService service, ByteBuffer xml, List<Batch> batches,
+                                          String systemId) throws IOException, SAXException {
+        PositionedHandler handler = new PositionedHandler(1, 1, 0);
+        InputSource source = new InputSource(new BlankedInputStream(xml, batches));
+        source.setSystemId(systemId);
+        parse(service, source, handler);
+        return handler;
+    }
+
+    /**
+     * Un lot d'images, dans un document reconstitué {@code <Images>...</Images>}.
+     */
+    private static PositionedHandler validateBatch(ValidationService service, ByteBuffer xml, Layout layout,
+                                                   Batch batch, String systemId) throws IOException, SAXException {
+        PositionedHandler handler = new PositionedHandler(batch.line(), batch.column(), layout.rootTagLength);
+        validateBatch(service, xml, layout, batch, systemId, handler);
+        return handler;
+    }
+
+    /**
+     * Un lot d'images analysé par le handler fourni (créé pour la position du lot).
+     */
+    static void validateBatch(ValidationService service, ByteBuffer xml, Layout layout, Batch batch,
+                              String systemId, PositionedHandler handler) throws IOException, SAXException {
+        InputStream images = new BufferInputStream(xml.slice(batch.start(), batch.end() - batch.start()));
+        InputStream document = new SequenceInputStream(new ByteArrayInputStream(layout.rootTag),
+                new SequenceInputStream(images, new ByteArrayInputStream(layout.rootClose)));
+        InputSource source = new InputSource(document);
+        source.setEncoding(layout.encoding.name());
+        source.setSystemId(systemId);
+        parse(service, source, handler);
+    }
+
+    private static void parse(ValidationService service, InputSource source, PositionedHandler handler)
+            throws IOException, SAXException {
+        try {
+            service.parse(source, handler);
+        } catch (SAXParseException e) {
+            // Erreur fatale déjà relevée par le handler
+            if (handler.fatal == null) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Lot d'images consécutives : octets [start, end), position de la première image,
+     * nombre de fins de ligne du lot et longueur de sa dernière ligne.
+     */
+    record Batch(int start, int end, long line, int column, long newLines, int lastLineLength) {
+    }
+
+    /**
+     * Erreur de validation, position dans le fichier d'origine.
+     */
+    record ValidationError(long line, long column, String message) implements Comparable<ValidationError> {
+        @Override
+        public int compareTo(ValidationError other) {
+            int byLine = Long.compare(line, other.line);
+            return byLine != 0 ? byLine : Long.compare(column, other.column);
+        }
+
+        @Override
+        public String toString() {
+            return "ligne " + line + ", colonne " + column + " : " + message;
+        }
+    }
+
+    /**
+     * Analyse d'une partie du document ; les positions d'erreurs sont ramenées au fichier
+     * d'origine. La partie commence à la ligne firstLine, colonne firstColumn, après un
+     * préfixe de prefixLength caractères ajouté sur sa première ligne. Les erreurs situées dans
+     * le préfixe (la balise ouvrante de la racine) sont ignorées : la passe de la racine les
+     * relève.
+     */
+    static class PositionedHandler extends SAXValidator.ImageHandler {
+        private final long firstLine;
+        private final int firstColumn;
+        private final int prefixLength;
+        private final List<ValidationError> errors = new ArrayList<>();
+        private long errorCount;
+        private ValidationError fatal;
+
+        PositionedHandler(long firstLine, int firstColumn, int prefixLength) {
+            this.firstLine = firstLine;
+            this.firstColumn = firstColumn;
+            this.prefixLength = prefixLength;
+        }
+
+        /**
+         * L'erreur porte-t-elle sur le préfixe ? Xerces situe les erreurs d'une balise
+         * ouvrante juste après son '>'.
+         */
+        boolean inPrefix(SAXParseException exception) {
+            return prefixLength > 0 && exception.getLineNumber() == 1 && exception.getColumnNumber() <= prefixLength + 1;
+        }
+
+        ValidationError position(SAXParseException exception) {
+            int line = exception.getLineNumber();
+            int column = exception.getColumnNumber();
+            if (line == 1) {
+                return new ValidationError(firstLine, Math.max(firstColumn, column - prefixLength + firstColumn - 1L),
+                        exception.getMessage());
+            }
+            return new ValidationError(firstLine + line - 1, column, exception.getMessage());
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+            if (inPrefix(exception)) {
+                return;
+            }
+            // Les erreurs d'une partie arrivent dans l'ordre : les premières suffisent
+            if (errorCount++ < REPORTED_ERRORS) {
+                errors.add(position(exception));
+            }
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            fatal = position(exception);
+            throw exception;
+        }
+
+        List<ValidationError> errors() { return errors; }
+        long errorCount() { return errorCount; }
+        ValidationError fatal() { return fatal; }
+    }
+
+    /**
+     * Position des {@code <image>} enfants de la racine, relevée en une passe sur les octets
+     * (commentaires, CDATA, DOCTYPE et valeurs d'attributs sautés).
+     */
+    static final class Layout {
+        private final ByteBuffer xml;
+        private int position;
+        private long line = 1;
+        private int lineStart;
+
+        private Charset encoding = StandardCharsets.UTF_8;
+        private byte[] rootTag = new byte[0];
+        private byte[] rootClose = new byte[0];
+        private int rootTagLength;
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private long[] lines = new long[1024];
+        private int[] columns = new int[1024];
+        private long[] endLines = new long[1024];
+        private int[] endColumns = new int[1024];
+        private int imageCount;
+
+        private Layout(ByteBuffer xml) {
+            this.xml = xml;
+        }
+
+        static Layout scan(ByteBuffer xml) throws IOException {
+            Layout layout = new Layout(xml);
+            layout.scan();
+            return layout;
+        }
+
+        private void scan() throws IOException {
+            int limit = xml.limit();
+            int depth = 0;
+            int openImage = -1;
+            while (position < limit) {
+                byte b = xml.get(position);
+                if (b == '\n') {
+                    newLine(position);
+                } else if (b == '<' && position + 1 < limit) {
+                    int tagStart = position;
+                    byte next = xml.get(position + 1);
+                    if (next == '?') {
+                        int end = skipPast("?>");
+                        if (tagStart == 0) {
+                            readEncoding(tagStart, end);
+                        }
+                        continue;
+                    } else if (next == '!') {
+                        skipDeclaration();
+                        continue;
+                    } else if (next == '/') {
+                        boolean image = isImage(tagStart + 2);
+                        skipTag();
+                        depth--;
+                        if (depth == 1 && image && openImage >= 0) {
+                            closeImage(openImage);
+                            openImage = -1;
+                        }
+                        continue;
+                    }
+                    boolean image = isImage(tagStart + 1);
+                    long tagLine = line;
+                    int tagColumn = tagStart - lineStart + 1;
+                    boolean empty = skipTag();
+                    if (depth == 0) {
+                        readRoot(tagStart, position);
+                    } else if (depth == 1 && image) {
+                        openImage = addImage(tagStart, tagLine, tagColumn);
+                        if (empty) {
+                            closeImage(openImage);
+                            openImage = -1;
+                        }
+                    }
+                    if (!empty) {
+                        depth++;
+                    }
+                    continue;
+                }
+                position++;
+            }
+            if (openImage >= 0) {
+                throw new IOException("Élément <image> non fermé (ligne " + lines[openImage] + ")");
+            }
+        }
+
+        private void newLine(int at) {
+            line++;
+            lineStart = at + 1;
+        }
+
+        /**
+         * Avance après la prochaine occurrence de terminator ; retourne la position de fin.
+         */
+        private int skipPast(String terminator) throws IOException {
+            int limit = xml.limit();
+            byte first = (byte) terminator.charAt(0);
+            for (int i = position; i < limit; i++) {
+                byte b = xml.get(i);
+                if (b == '\n') {
+                    newLine(i);
+                } else if (b == first && matchesAt(i, terminator)) {
+                    position = i + terminator.length();
+                    return position;
+                }
+            }
+            throw new IOException("Document tronqué : '" + terminator + "' attendu (ligne " + line + ")");
+        }
+
+        private boolean matchesAt(int at, String text) {
+            if (at + text.length() > xml.limit()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (xml.get(at + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Commentaire, CDATA ou DOCTYPE (sous-ensemble interne entre crochets compris).
+         */
+        private void skipDeclaration() throws IOException {
+            if (matchesAt(position, "<!--")) {
+                position += 4;
+                skipPast("-->");
+            } else if (matchesAt(position, "<![CDATA[")) {
+                position += 9;
+                skipPast("]]>");
+            } else {
+                int limit = xml.limit();
+                boolean subset = false;
+                byte quote = 0;
+                for (position += 2; position < limit; position++) {
+                    byte b = xml.get(position);
+                    if (b == '\n') {
+                        newLine(position);
+                    } else if (quote != 0) {
+                        quote = b == quote ? 0 : quote;
+                    } else if (b == '"' || b == '\'') {
+                        quote = b;
+                    } else if (b == '[') {
+                        subset = true;
+                    } else if (b == ']') {
+                        subset = false;
+                    } else if (b == '>' && !subset) {
+                        position++;
+                        return;
+                    }
+                }
+                throw new IOException("Document tronqué : déclaration non fermée (ligne " + line + ")");
+            }
+        }
+
+        /**
+         * Avance après le '>' de la balise courante ; retourne true si elle est vide ({@code />}).
+         */
+        private boolean skipTag() throws IOException {
+            int limit = xml.limit();
+            byte quote = 0;
+            for (int i = position + 1; i < limit; i++) {
+                byte b = xml.get(i);
+                if (b == '\n') {
+                    newLine(i);
+                } else if (quote != 0) {
+                    quote = b == quote ? 0 : quote;
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    position = i + 1;
+                    return xml.get(i - 1) == '/';
+                }
+            }
+            throw new IOException("Document tronqué : balise non fermée (ligne " + line + ")");
+        }
+
+        private boolean isImage(int nameStart) {
+            if (!matchesAt(nameStart, "image") || nameStart + 5 >= xml.limit()) {
+                return false;
+            }
+            byte after = xml.get(nameStart + 5);
+            return after == '>' || after == '/' || after == ' ' || after == '\t' || after == '\n' || after == '\r';
+        }
+
+        private int addImage(int start, long tagLine, int tagColumn) {
+            if (imageCount == starts.length) {
+                starts = Arrays.copyOf(starts, imageCount * 2);
+                ends = Arrays.copyOf(ends, imageCount * 2);
+                lines = Arrays.copyOf(lines, imageCount * 2);
+                columns = Arrays.copyOf(columns, imageCount * 2);
+                endLines = Arrays.copyOf(endLines, imageCount * 2);
+                endColumns = Arrays.copyOf(endColumns, imageCount * 2);
+            }
+            starts[imageCount] = start;
+            lines[imageCount] = tagLine;
+            columns[imageCount] = tagColumn;
+            return imageCount++;
+        }
+
+        private void closeImage(int image) {
+            ends[image] = position;
+            endLines[image] = line;
+            endColumns[image] = position - lineStart;
+        }
+
+        private void readEncoding(int start, int end) {
+            byte[] declaration = new byte[end - start];
+            xml.get(start, declaration);
+            Matcher matcher = ENCODING.matcher(new String(declaration, StandardCharsets.US_ASCII));
+            if (matcher.find()) {
+                encoding = Charset.forName(matcher.group(1));
+            }
+        }
+
+        /**
+         * Balise ouvrante de la racine placée (sur une seule ligne) en tête de chaque lot : son
+         * nom et ses déclarations d'espaces de noms seulement, les autres attributs étant
+         * validés par la passe de la racine.
+         */
+        private void readRoot(int start, int end) {
+            byte[] tag = new byte[end - start];
+            xml.get(start, tag);
+            String text = new String(tag, encoding).replace('\r', ' ').replace('\n', ' ');
+            int nameEnd = 1;
+            while (nameEnd < text.length() && !Character.isWhitespace(text.charAt(nameEnd))
+                    && text.charAt(nameEnd) != '>' && text.charAt(nameEnd) != '/') {
+                nameEnd++;
+            }
+            StringBuilder synthetic = new StringBuilder(text.substring(0, nameEnd));
+            Matcher matcher = NAMESPACE.matcher(text);
+            while (matcher.find()) {
+                synthetic.append(' ').append(matcher.group(1)).append('=').append(matcher.group(2));
+            }
+            synthetic.append('>');
+            rootTag = synthetic.toString().getBytes(encoding);
+            rootTagLength = synthetic.length();
+            rootClose = ("</" + text.substring(1, nameEnd) + ">").getBytes(encoding);
+        }
+
+        List<Batch> batches(int imagesPerBatch) {
+            List<Batch> batches = new ArrayList<>();
+            for (int first = 0; first < imageCount; first += imagesPerBatch) {
+                batches.add(batch(first, Math.min(first + imagesPerBatch, imageCount) - 1));
+            }
+            return batches;
+        }
+
+        /**
+         * Lot des images first à last (incluses).
+         */
+        Batch batch(int first, int last) {
+            long newLines = endLines[last] - lines[first];
+            int lastLineLength = newLines > 0 ? endColumns[last] : ends[last] - starts[first];
+            return new Batch(starts[first], ends[last], lines[first], columns[first], newLines, lastLineLength);
+        }
+
+        int imageCount() { return imageCount; }
+        int start(int image) { return starts[image]; }
+        int end(int image) { return ends[image]; }
+        long line(int image) { return lines[image]; }
+        int column(int image) { return columns[image]; }
+        Charset encoding() { return encoding; }
+        int rootTagLength() { return rootTagLength; }
+    }
+
+    /**
+     * Lecture d'un ByteBuffer (tranche du fichier projeté).
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    /**
+     * Le document d'origine où chaque lot est remplacé par ses seules fins de ligne, suivies
+     * d'autant d'espaces que sa dernière ligne compte d'octets : lignes et colonnes inchangées
+     * hors des lots, et le parser n'a presque plus rien à lire.
+     */
+    private static final class BlankedInputStream extends InputStream {
+        private final ByteBuffer xml;
+        private final List<Batch> batches;
+        private int position;
+        private int batch;
+        // Reste à produire pour le lot courant
+        private long newLines = -1;
+        private int spaces;
+
+        BlankedInputStream(ByteBuffer xml, List<Batch> batches) {
+            this.xml = xml;
+            this.batches = batches;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (newLines >= 0) {
+                // Remplacement du lot courant
+                int n = 0;
+                while (n < len && newLines > 0) {
+                    b[off + n++] = '\n';
+                    newLines--;
+                }
+                while (n < len && spaces > 0) {
+                    b[off + n++] = ' ';
+                    spaces--;
+                }
+                if (newLines == 0 && spaces == 0) {
+                    position = batches.get(batch++).end();
+                    newLines = -1;
+                }
+                return n;
+            }
+            int limit = xml.limit();
+            if (position >= limit) {
+                return -1;
+            }
+            int end = batch < batches.size() ? batches.get(batch).start() : limit;
+            if (position == end) {
+                Batch current = batches.get(batch);
+                newLines = current.newLines();
+                spaces = current.lastLineLength();
+                return read(b, off, len);
+            }
+            int n = Math.min(len, end - position);
+            xml.get(position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -4,21 +4,12 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import java.io.File;
 import java.util.*;
 
 /**
- * Comparateur de performances pour les validateurs SAX et DOM.
+ * Comparateur de performances pour les validateurs SAX, DOM et StAX.
  * Niveau EXPERTS : Compare temps d'exécution et consommation mémoire.
  *
  * Comparaisons effectuées :
@@ -26,6 +17,8 @@ import java.util.*;
  * - DOM avec validation DTD
  * - SAX avec validation XSD (si XSD fourni)
  * - DOM avec validation XSD (si XSD fourni)
+ * - StAX avec DTD (lue, validée seulement si l'implémentation StAX le permet)
+ * - StAX avec validation XSD (Validator sur StAXSource)
  */
 public class PerformanceComparator {
 
@@ -48,33 +41,47 @@ public class PerformanceComparator {
         List<ResultatPerformance> resultats = new ArrayList<>();
 
         // Test 1 : SAX avec DTD
-        System.out.println("▶ Test 1/4 : SAX avec validation DTD...");
+        System.out.println("▶ Test 1/6 : SAX avec validation DTD...");
         ResultatPerformance saxDtd = testerSAX(xmlPath, null, "SAX + DTD");
         resultats.add(saxDtd);
         afficherResultat(saxDtd);
         System.out.println();
 
         // Test 2 : DOM avec DTD
-        System.out.println("▶ Test 2/4 : DOM avec validation DTD...");
+        System.out.println("▶ Test 2/6 : DOM avec validation DTD...");
         ResultatPerformance domDtd = testerDOM(xmlPath, null, "DOM + DTD");
         resultats.add(domDtd);
         afficherResultat(domDtd);
         System.out.println();
 
         // Test 3 : SAX avec XSD
-        System.out.println("▶ Test 3/4 : SAX avec validation XSD...");
+        System.out.println("▶ Test 3/6 : SAX avec validation XSD...");
         ResultatPerformance saxXsd = testerSAX(xmlPath, xsdPath, "SAX + XSD");
         resultats.add(saxXsd);
         afficherResultat(saxXsd);
         System.out.println();
 
         // Test 4 : DOM avec XSD
-        System.out.println("▶ Test 4/4 : DOM avec validation XSD...");
+        System.out.println("▶ Test 4/6 : DOM avec validation XSD...");
         ResultatPerformance domXsd = testerDOM(xmlPath, xsdPath, "DOM + XSD");
         resultats.add(domXsd);
         afficherResultat(domXsd);
         System.out.println();
 
+        // Test 5 : StAX avec DTD
+        System.out.println("▶ Test 5/6 : StAX avec DTD...");
+        ResultatPerformance staxDtd = testerStAX(xmlPath, null, "StAX + DTD");
+        resultats.add(staxDtd);
+        afficherResultat(staxDtd);
+        System.out.println();
+
+        // Test 6 : StAX avec XSD
+        System.out.println("▶ Test 6/6 : StAX avec validation XSD...");
+        ResultatPerformance staxXsd = testerStAX(xmlPath, xsdPath, "StAX + XSD");
+        resultats.add(staxXsd);
+        afficherResultat(staxXsd);
+        System.out.println();
+
         // Tableau comparatif final
         System.out.println("=================================================================");
         System.out.println("=== TABLEAU COMPARATIF ===");
@@ -178,95 +185,62 @@ public class PerformanceComparator {
     }
 
     /**
-     * Configure une factory (SAX ou DOM) en fonction du chemin de schéma fourni.
-     * Accepte : .xsd => XSD via SchemaFactory, .dtd => validation DTD, null => DTD via DOCTYPE.
+     * Teste les performances du lecteur StAX.
      */
-    private static void configureFactoryForSchema(Object factoryObj, String xsdPath) throws Exception {
-        if (xsdPath != null) {
-            String lower = xsdPath.toLowerCase(Locale.ROOT);
-            File schemaFile = new File(xsdPath);
-            if (lower.endsWith(".xsd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier XSD introuvable: " + xsdPath);
-                }
-                SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                Schema schema = schemaFactory.newSchema(schemaFile);
-
-                if (factoryObj instanceof SAXParserFactory) {
-                    SAXParserFactory f = (SAXParserFactory) factoryObj;
-                    f.setNamespaceAware(true);
-                    f.setSchema(schema);
-                    f.setValidating(false);
-                } else if (factoryObj instanceof DocumentBuilderFactory) {
-                    DocumentBuilderFactory f = (DocumentBuilderFactory) factoryObj;
-                    f.setNamespaceAware(true);
-                    f.setSchema(schema);
-                    f.setValidating(false);
-                }
-            } else if (lower.endsWith(".dtd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier DTD introuvable: " + xsdPath);
-                }
-                if (factoryObj instanceof SAXParserFactory) {
-                    SAXParserFactory f = (SAXParserFactory) factoryObj;
-                    f.setNamespaceAware(true);
-                    f.setValidating(true);
-                } else if (factoryObj instanceof DocumentBuilderFactory) {
-                    DocumentBuilderFactory f = (DocumentBuilderFactory) factoryObj;
-                    f.setNamespaceAware(true);
-                    f.setValidating(true);
-                }
-            } else {
-                if (schemaFile.exists() && xsdPath.toLowerCase().contains(".dtd")) {
-                    if (factoryObj instanceof SAXParserFactory) {
-                        SAXParserFactory f = (SAXParserFactory) factoryObj;
-                        f.setNamespaceAware(true);
-                        f.setValidating(true);
-                    } else if (factoryObj instanceof DocumentBuilderFactory) {
-                        DocumentBuilderFactory f = (DocumentBuilderFactory) factoryObj;
-                        f.setNamespaceAware(true);
-                        f.setValidating(true);
-                    }
-                } else {
-                    throw new IllegalArgumentException("Type de schéma non reconnu pour: " + xsdPath + ". Utiliser .xsd ou .dtd, ou passez null pour DTD via DOCTYPE.");
-                }
-            }
-        } else {
-            // Mode DTD uniquement (le XML doit contenir un DOCTYPE qui référence la DTD)
-            if (factoryObj instanceof SAXParserFactory) {
-                SAXParserFactory f = (SAXParserFactory) factoryObj;
-                f.setNamespaceAware(true);
-                f.setValidating(true);
-            } else if (factoryObj instanceof DocumentBuilderFactory) {
-                DocumentBuilderFactory f = (DocumentBuilderFactory) factoryObj;
-                f.setNamespaceAware(true);
-                f.setValidating(true);
+    private static ResultatPerformance testerStAX(String xmlPath, String xsdPath, String nom) {
+        ResultatPerformance resultat = new ResultatPerformance(nom);
+
+        try {
+            // Warm-up (1 fois)
+            executerStAX(xmlPath, xsdPath);
+
+            // Mesures (3 exécutions)
+            long[] tempsExecution = new long[3];
+            long[] memoireUtilisee = new long[3];
+
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                Thread.sleep(100);
+
+                Runtime runtime = Runtime.getRuntime();
+                long memoireAvant = runtime.totalMemory() - runtime.freeMemory();
+                long debut = System.nanoTime();
+
+                executerStAX(xmlPath, xsdPath);
+
+                long fin = System.nanoTime();
+                long memoireApres = runtime.totalMemory() - runtime.freeMemory();
+
+                tempsExecution[i] = (fin - debut) / 1_000_000; // Convertir en ms
+                memoireUtilisee[i] = Math.max(0, memoireApres - memoireAvant) / (1024 * 1024); // Convertir en MB
             }
+
+            // Calculer les moyennes
+            resultat.setTempsMoyen(calculerMoyenne(tempsExecution));
+            resultat.setMemoireMoyenne(calculerMoyenne(memoireUtilisee));
+            resultat.setSucces(true);
+
+        } catch (Exception e) {
+            resultat.setSucces(false);
+            resultat.setErreur(e.getMessage());
         }
+
+        return resultat;
     }
 
     /**
      * Exécute un parsing SAX (sans afficher les résultats).
      */
     private static void executerSAX(String xmlPath, String xsdPath) throws Exception {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        // Configuration automatique XSD / DTD
-        configureFactoryForSchema(factory, xsdPath);
-
-        SAXParser parser = factory.newSAXParser();
-        parser.parse(new File(xmlPath), new MinimalHandler());
+        // Schéma et parser réutilisés d'une exécution à l'autre (voir ValidationService)
+        ValidationService.forSchema(xsdPath).parse(xmlPath, new MinimalHandler());
     }
 
     /**
      * Exécute un parsing DOM (sans afficher les résultats).
      */
     private static void executerDOM(String xmlPath, String xsdPath) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        // Configuration automatique XSD / DTD
-        configureFactoryForSchema(factory, xsdPath);
-
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new File(xmlPath));
+        Document document = ValidationService.forSchema(xsdPath).parseDocument(xmlPath, null);
 
         // Simuler un parcours basique du DOM
         NodeList images = document.getElementsByTagName("image");
@@ -276,6 +250,13 @@ public class PerformanceComparator {
         }
     }
 
+    /**
+     * Exécute une lecture StAX avec les calculs statistiques (sans afficher les résultats).
+     */
+    private static void executerStAX(String xmlPath, String xsdPath) throws Exception {
+        StAXValidator.analyze(ValidationService.forSchema(xsdPath), xmlPath, new StAXValidator.ImageAnalyzer(), null);
+    }
+
     /**
      * Handler SAX minimal pour les tests de performance.
      */
@@ -339,8 +320,8 @@ public class PerformanceComparator {
         }
 
         // Comparer SAX vs DOM (DTD)
-        ResultatPerformance saxDtd = resultats.get(0);
-        ResultatPerformance domDtd = resultats.get(1);
+        ResultatPerformance saxDtd = trouver(resultats, "SAX + DTD");
+        ResultatPerformance domDtd = trouver(resultats, "DOM + DTD");
 
         if (saxDtd.isSucces() && domDtd.isSucces()) {
             System.out.println("1. SAX vs DOM (avec DTD) :");
@@ -354,7 +335,7 @@ public class PerformanceComparator {
         }
 
         // Comparer DTD vs XSD (SAX)
-        ResultatPerformance saxXsd = resultats.get(2);
+        ResultatPerformance saxXsd = trouver(resultats, "SAX + XSD");
 
         if (saxDtd.isSucces() && saxXsd.isSucces()) {
             System.out.println("2. Validation DTD vs XSD (avec SAX) :");
@@ -365,11 +346,38 @@ public class PerformanceComparator {
             System.out.println();
         }
 
+        // Comparer StAX vs SAX (XSD)
+        ResultatPerformance staxXsd = trouver(resultats, "StAX + XSD");
+
+        if (saxXsd.isSucces() && staxXsd.isSucces()) {
+            System.out.println("3. StAX vs SAX (avec XSD) :");
+
+            double ratioTemps = (double) saxXsd.getTempsMoyen() / staxXsd.getTempsMoyen();
+
+            System.out.printf("   - StAX est %.2fx plus rapide que SAX%n", ratioTemps);
+            System.out.println();
+        }
+
         System.out.println("Conclusion :");
         System.out.println("   - SAX est généralement plus performant pour le streaming XML");
         System.out.println("   - DOM consomme plus de mémoire (charge tout en mémoire)");
         System.out.println("   - La validation DTD est plus rapide que XSD");
         System.out.println("   - Choisir SAX pour grands fichiers, DOM pour manipulation du DOM");
+        System.out.println("   - StAX lit en flux comme SAX et saute les sous-arbres inutiles (Report)");
+    }
+
+    /**
+     * Résultat d'un test d'après son nom (l'ordre des tests peut changer).
+     */
+    private static ResultatPerformance trouver(List<ResultatPerformance> resultats, String nom) {
+        for (ResultatPerformance r : resultats) {
+            if (r.getNom().equals(nom)) {
+                return r;
+            }
+        }
+        ResultatPerformance absent = new ResultatPerformance(nom);
+        absent.setErreur("Test non exécuté");
+        return absent;
     }
 
     /**
@@ -0,0 +1,252 @@
+package org.example.validation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de validation par image, stocké à côté du XML ({@code <xml>.cache}).
+ * <p>
+ * Pour chaque Identifiant : empreinte du contenu de l'image, verdict (nombre d'erreurs et
+ * première erreur, position relative à l'image) et contribution aux statistiques ('loc right',
+ * labels et occurrences). Format binaire : en-tête, tables des labels et des messages d'erreur,
+ * puis une entrée par image (entiers en varint, labels et messages par indice dans leur table). Un cache produit avec un autre
+ * schéma ou une autre version du format est ignoré.
+ */
+final class RecordCache {
+
+    static final String SUFFIX = ".cache";
+    private static final int MAGIC = 0x50434843; // "PCHC"
+    // 2 : les erreurs de la balise ouvrante de la racine ne sont plus rattachées à une image
+    private static final int VERSION = 2;
+    private static final int MAX_MESSAGE_LENGTH = 2_000;
+
+    /**
+     * Résultat d'une image. errorLine est relatif à la ligne de la balise {@code <image>} ;
+     * sur cette même ligne (errorLine == 0), errorColumn est relatif à sa colonne.
+     */
+    record Entry(String identifiant, long hash, boolean locRight, String[] labels, int[] counts,
+                 int errorCount, int errorLine, int errorColumn, String errorMessage) {
+
+        /**
+         * Ajoute la contribution de l'image aux statistiques.
+         */
+        void addTo(LabelStatistics statistics) {
+            statistics.addImage();
+            if (locRight) {
+                statistics.addLocRight();
+            }
+            for (int i = 0; i < labels.length; i++) {
+                statistics.addLabel(labels[i], counts[i]);
+            }
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private RecordCache(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    static Path pathFor(Path xmlPath) {
+        return xmlPath.resolveSibling(xmlPath.getFileName() + SUFFIX);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Entry get(String identifiant) {
+        return entries.get(identifiant);
+    }
+
+    /**
+     * Empreinte du schéma : un cache n'est réutilisé qu'avec le même XSD.
+     */
+    static String fingerprint(Path schemaPath) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(Files.readAllBytes(schemaPath)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Empreinte 64 bits (FNV-1a) des octets de l'image ; les blancs entre une balise et la
+     * suivante (indentation, fins de ligne) sont ignorés.
+     */
+    static long hash(ByteBuffer xml, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        int i = start;
+        while (i < end) {
+            byte b = xml.get(i++);
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+            if (b == '>') {
+                int next = i;
+                while (next < end && isBlank(xml.get(next))) {
+                    next++;
+                }
+                if (next < end && xml.get(next) == '<') {
+                    i = next;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Charge le cache, vide s'il n'existe pas, s'il a été produit avec un autre schéma ou par
+     * une version antérieure.
+     */
+    static RecordCache load(Path path, String schemaHash) throws IOException {
+        if (!Files.exists(path)) {
+            return new RecordCache(new HashMap<>());
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Cache illisible : " + path);
+            }
+            if (in.readInt() != VERSION || !schemaHash.equals(in.readUTF())) {
+                return new RecordCache(new HashMap<>());
+            }
+            String[] table = readTable(in);
+            String[] messages = readTable(in);
+            int size = readVarInt(in);
+            Map<String, Entry> entries = new HashMap<>(size * 2);
+            for (int n = 0; n < size; n++) {
+                String identifiant = in.readUTF();
+                long hash = in.readLong();
+                boolean locRight = in.readBoolean();
+                String[] labels = new String[readVarInt(in)];
+                int[] counts = new int[labels.length];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = table[readVarInt(in)];
+                    counts[i] = readVarInt(in);
+                }
+                int errorCount = readVarInt(in);
+                int errorLine = 0;
+                int errorColumn = 0;
+                String errorMessage = null;
+                if (errorCount > 0) {
+                    errorLine = readVarInt(in);
+                    errorColumn = readVarInt(in);
+                    errorMessage = messages[readVarInt(in)];
+                }
+                entries.put(identifiant, new Entry(identifiant, hash, locRight, labels, counts,
+                        errorCount, errorLine, errorColumn, errorMessage));
+            }
+            return new RecordCache(entries);
+        } catch (ArrayIndexOutOfBoundsException | EOFException e) {
+            throw new IOException("Cache illisible : " + path, e);
+        }
+    }
+
+    /**
+     * Écrit les entrées, de façon atomique (fichier temporaire puis renommage).
+     */
+    static void save(Path path, String schemaHash, List<Entry> entries) throws IOException {
+        Map<String, Integer> table = new LinkedHashMap<>();
+        Map<String, Integer> messages = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            for (String label : entry.labels()) {
+                table.putIfAbsent(label, table.size());
+            }
+            if (entry.errorCount() > 0) {
+                messages.putIfAbsent(truncate(entry.errorMessage()), messages.size());
+            }
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(schemaHash);
+            writeTable(out, table);
+            writeTable(out, messages);
+            writeVarInt(out, entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.identifiant());
+                out.writeLong(entry.hash());
+                out.writeBoolean(entry.locRight());
+                writeVarInt(out, entry.labels().length);
+                for (int i = 0; i < entry.labels().length; i++) {
+                    writeVarInt(out, table.get(entry.labels()[i]));
+                    writeVarInt(out, entry.counts()[i]);
+                }
+                writeVarInt(out, entry.errorCount());
+                if (entry.errorCount() > 0) {
+                    writeVarInt(out, entry.errorLine());
+                    writeVarInt(out, entry.errorColumn());
+                    writeVarInt(out, messages.get(truncate(entry.errorMessage())));
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Message limité en longueur (writeUTF est limité à 64 Ko).
+     */
+    private static String truncate(String message) {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    private static void writeTable(DataOutputStream out, Map<String, Integer> table) throws IOException {
+        writeVarInt(out, table.size());
+        for (String value : table.keySet()) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String[] readTable(DataInputStream in) throws IOException {
+        String[] table = new String[readVarInt(in)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readUTF();
+        }
+        return table;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Entier varint trop long");
+    }
+}
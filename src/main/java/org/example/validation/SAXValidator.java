@@ -2,15 +2,11 @@
 package org.example.validation;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import java.io.File;
 import java.util.*;
 
 /**
@@ -21,6 +17,10 @@ public class SAXValidator {
     public static void main(String[] args) {
         String xmlPath = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
         String xsdPath = "src/main/java/org/example/structures/images.xsd";
+        // "arret-premiere-erreur", "max-erreurs=N", "erreurs-tsv=chemin" (voir ErrorPolicy)
+        ErrorPolicy policy = ErrorPolicy.fromArgs(args);
+        // "approximatif=K" : top 10 et labels différents en mémoire fixe (voir LabelStatistics)
+        LabelStatistics statistics = LabelStatistics.fromArgs(args);
 
         System.out.println("=== VALIDATION SAX (Niveau Minimum) ===");
         System.out.println("Fichier XML : " + xmlPath);
@@ -29,12 +29,16 @@ public class SAXValidator {
         } else {
             System.out.println("Mode de validation : DTD uniquement (aucun XSD fourni)");
         }
+        System.out.println("Erreurs : " + policy);
+        if (statistics.isApproximate()) {
+            System.out.println("Statistiques : approchées (mémoire fixe)");
+        }
         System.out.println();
 
         long startTime = System.currentTimeMillis();
 
         try {
-            validate(xmlPath, xsdPath);
+            validate(xmlPath, xsdPath, policy, statistics);
 
             long endTime = System.currentTimeMillis();
             System.out.println("\n✓ Validation et analyse terminées avec succès !");
@@ -53,131 +57,339 @@ public class SAXValidator {
      * @param xsdPath Chemin vers le fichier XSD ou DTD (null pour validation DTD uniquement)
      */
     public static void validate(String xmlPath, String xsdPath) throws Exception {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true);
+        validate(xmlPath, xsdPath, ErrorPolicy.collect());
+    }
 
-        // Détermination automatique du mode en fonction de l'extension du fichier fourni.
-        if (xsdPath != null) {
-            String lower = xsdPath.toLowerCase(Locale.ROOT); // pour comparaison insensible à la casse
-            File schemaFile = new File(xsdPath);
-            if (lower.endsWith(".xsd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier XSD introuvable: " + xsdPath);
-                }
-                // Validation XSD
-                SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                Schema schema = schemaFactory.newSchema(schemaFile);
-                factory.setSchema(schema);
-                factory.setValidating(false); // schema-based validation active
-                System.out.println("✓ Validation XSD activée");
-            } else if (lower.endsWith(".dtd")) {
-                if (!schemaFile.exists()) {
-                    throw new IllegalArgumentException("Fichier DTD introuvable: " + xsdPath);
-                }
-                // Validation DTD via déclaration DOCTYPE dans le XML; on active le mode validating
-                factory.setValidating(true);
-                System.out.println("✓ Validation DTD activée (fichier .dtd fourni)");
-            } else {
-                // Extension inconnue: choisir DTD si fichier contient ".dtd" dans le nom, sinon signaler
-                if (schemaFile.exists() && xsdPath.toLowerCase().contains(".dtd")) {
-                    factory.setValidating(true);
-                    System.out.println("✓ Validation DTD activée (fichier fourni détecté comme DTD)");
-                } else {
-                    throw new IllegalArgumentException("Type de schéma non reconnu pour: " + xsdPath + ". Utiliser .xsd ou .dtd, ou passez null pour DTD via DOCTYPE.");
-                }
-            }
-        } else {
-            // Mode DTD uniquement (le XML doit contenir un DOCTYPE qui référence la DTD)
-            factory.setValidating(true);
-            System.out.println("✓ Validation DTD activée (aucun XSD fourni)");
-        }
+    /**
+     * Valide le fichier XML avec DTD ou XSD et effectue les calculs statistiques.
+     *
+     * @param policy traitement des erreurs de validation ; si la limite est atteinte, la
+     *               lecture s'arrête et une SAXException est levée
+     */
+    public static void validate(String xmlPath, String xsdPath, ErrorPolicy policy) throws Exception {
+        validate(xmlPath, xsdPath, policy, new LabelStatistics());
+    }
 
-        SAXParser parser = factory.newSAXParser();
-        ImageHandler handler = new ImageHandler();
-        parser.parse(new File(xmlPath), handler);
+    /**
+     * Valide le fichier XML et accumule les statistiques dans statistics (exactes ou
+     * approchées, voir {@link LabelStatistics#approximate}).
+     */
+    public static void validate(String xmlPath, String xsdPath, ErrorPolicy policy, LabelStatistics statistics)
+            throws Exception {
+        // Schéma compilé une seule fois, parser réutilisé par thread
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        System.out.println("✓ " + service.mode());
 
-        // Afficher les résultats
+        try (ErrorReporter reporter = policy.open()) {
+            ReportingHandler handler = new ReportingHandler(reporter);
+            handler.collectInto(statistics);
+            // Un .xml.gz est décompressé à la volée ; l'identifiant système permet de résoudre la DTD
+            service.parse(xmlPath, handler);
+
+            reporter.afficher();
+            afficherResultats(handler.statistics());
+        }
+    }
+
+    /**
+     * Affiche les résultats de l'analyse.
+     */
+    static void afficherResultats(LabelStatistics statistics) {
         System.out.println();
         System.out.println("--- RÉSULTATS DE L'ANALYSE ---");
         System.out.println();
-        System.out.println("1. Images contenant 'loc right' : " + handler.getLocRightCount());
+        System.out.println("1. Images contenant 'loc right' : " + statistics.getLocRightCount());
         System.out.println();
         System.out.println("2. Top 10 des labels les plus fréquents :");
-        List<Map.Entry<String, Integer>> top10 = handler.getTop10Labels();
-        int rank = 1;
-        for (Map.Entry<String, Integer> entry : top10) {
-            System.out.printf("   %2d. %-40s : %6d occurrences%n", rank++, entry.getKey(), entry.getValue());
+        if (statistics.isApproximate()) {
+            // Compte majoré ; le vrai compte est dans [compte - erreur, compte]
+            int rank = 1;
+            for (SpaceSaving.Estimate estimate : statistics.topEstimates(10)) {
+                System.out.printf("   %2d. %-40s : %6d occurrences (± %d)%n", rank++, estimate.label(), estimate.count(),
+                        estimate.error());
+            }
+            System.out.println("   Erreur maximale sur un compte : " + statistics.topErrorBound());
+        } else {
+            List<Map.Entry<String, Integer>> top10 = statistics.getTop10Labels();
+            int rank = 1;
+            for (Map.Entry<String, Integer> entry : top10) {
+                System.out.printf("   %2d. %-40s : %6d occurrences%n", rank++, entry.getKey(), entry.getValue());
+            }
         }
         System.out.println();
-        System.out.println("Total d'images traitées : " + handler.getImageCount());
-        System.out.println("Total de labels différents : " + handler.getTotalUniqueLabels());
+        System.out.println("Total d'images traitées : " + statistics.getImageCount());
+        if (statistics.isApproximate()) {
+            System.out.printf("Total de labels différents : ≈ %d (HyperLogLog, erreur type %.1f %%)%n",
+                    statistics.getTotalUniqueLabels(), statistics.distinctStandardError() * 100);
+        } else {
+            System.out.println("Total de labels différents : " + statistics.getTotalUniqueLabels());
+        }
         System.out.println();
         System.out.println("Note: Le comptage 'loc right' inclut désormais les localisations présentes dans <LabelsLocalizationsBySentence>/<Sentence>.");
     }
 
     /**
      * Handler SAX pour traiter les événements XML et effectuer les calculs.
+     * <p>
+     * Chemin chaud sans allocation : nom d'élément résolu une fois en code entier, texte
+     * mis en tampon uniquement dans {@code <Label>} / {@code <Localization>}, labels comptés
+     * sur la plage de caractères dans les {@link LabelStatistics} du handler.
      */
     static class ImageHandler extends DefaultHandler {
-        private int imageCount = 0;
-        private int locRightCount = 0;
-        private final Map<String, Integer> labelFrequency = new HashMap<>();
+        private static final int OTHER = 0;
+        private static final int IMAGE = 1;
+        private static final int LOCALIZATION = 2;
+        private static final int LABEL = 3;
+        private static final char[] LOC_RIGHT = "loc right".toCharArray();
+
+        private LabelStatistics statistics = new LabelStatistics();
+
+        // Noms déjà rencontrés (le parser réutilise les mêmes instances) et leur code
+        private String[] names = new String[32];
+        private int[] codes = new int[32];
+        private int nameCount = 0;
 
-        private final StringBuilder currentText = new StringBuilder();
+        private char[] text = new char[64];
+        private int textLength = 0;
+        private boolean capturing = false;
         private boolean currentImageHasLocRight = false;
         private boolean insideImage = false;
 
         @Override
         public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-            currentText.setLength(0);
-            if ("image".equalsIgnoreCase(qName)) {
-                imageCount++;
+            textLength = 0;
+            int code = code(qName);
+            if (code == IMAGE) {
+                imageStarted(attributes);
+                statistics.addImage();
                 currentImageHasLocRight = false;
                 insideImage = true;
             }
+            capturing = insideImage && (code == LOCALIZATION || code == LABEL);
         }
 
         @Override
         public void endElement(String uri, String localName, String qName) throws SAXException {
-            String content = currentText.toString().trim();
-            String element = qName.toLowerCase();
-
-            // Compter les localisations 'loc right' (toute balise <Localization> sous une <image>)
-            if (insideImage && "localization".equals(element)) {
-                if ("loc right".equalsIgnoreCase(content) && !currentImageHasLocRight) {
-                    locRightCount++;
-                    currentImageHasLocRight = true;
+            if (capturing) {
+                int start = 0;
+                int end = textLength;
+                // Même découpage que String.trim()
+                while (start < end && text[start] <= ' ') {
+                    start++;
                 }
-            }
-
-            // Compter les labels
-            if (insideImage && "label".equals(element)) {
-                if (!content.isEmpty()) {
-                    labelFrequency.merge(content, 1, Integer::sum);
+                while (end > start && text[end - 1] <= ' ') {
+                    end--;
                 }
-            }
-
-            if ("image".equalsIgnoreCase(qName)) {
+                int code = code(qName);
+                // Compter les localisations 'loc right' (toute balise <Localization> sous une <image>)
+                if (code == LOCALIZATION) {
+                    if (!currentImageHasLocRight && equalsIgnoreCase(LOC_RIGHT, text, start, end)) {
+                        statistics.addLocRight();
+                        currentImageHasLocRight = true;
+                    }
+                } else if (start < end) {
+                    // Compter les labels
+                    statistics.addLabel(text, start, end);
+                }
+                capturing = false;
+            } else if (code(qName) == IMAGE) {
                 insideImage = false;
                 currentImageHasLocRight = false; // reset sentinel
+                imageEnded();
             }
-            currentText.setLength(0);
+            textLength = 0;
         }
 
         @Override
         public void characters(char[] ch, int start, int length) throws SAXException {
-            currentText.append(ch, start, length);
+            if (!capturing) {
+                return; // Report et autres textes ignorés
+            }
+            if (textLength + length > text.length) {
+                text = Arrays.copyOf(text, Math.max(textLength + length, text.length * 2));
+            }
+            System.arraycopy(ch, start, text, textLength, length);
+            textLength += length;
+        }
+
+        /**
+         * Début d'une {@code <image>} (attributs disponibles), pour les sous-classes ; appelé
+         * avant que l'image soit comptée.
+         */
+        void imageStarted(Attributes attributes) {
+        }
+
+        /**
+         * Fin d'une {@code <image>}, pour les sous-classes.
+         */
+        void imageEnded() {
+        }
+
+        private int code(String qName) {
+            for (int i = 0; i < nameCount; i++) {
+                if (names[i] == qName) {
+                    return codes[i];
+                }
+            }
+            int code = "image".equalsIgnoreCase(qName) ? IMAGE
+                    : "localization".equalsIgnoreCase(qName) ? LOCALIZATION
+                    : "label".equalsIgnoreCase(qName) ? LABEL : OTHER;
+            if (nameCount < names.length) {
+                names[nameCount] = qName;
+                codes[nameCount++] = code;
+            }
+            return code;
+        }
+
+        private static boolean equalsIgnoreCase(char[] expected, char[] chars, int start, int end) {
+            if (end - start != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                char a = expected[i];
+                char b = chars[start + i];
+                if (a != b && Character.toLowerCase(Character.toUpperCase(a)) != Character.toLowerCase(Character.toUpperCase(b))) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        public int getImageCount() { return imageCount; }
-        public int getLocRightCount() { return locRightCount; }
-        public int getTotalUniqueLabels() { return labelFrequency.size(); }
+        /**
+         * Ajoute les résultats d'un autre handler (analyse d'une autre partie du document).
+         */
+        void merge(ImageHandler other) {
+            statistics.merge(other.statistics);
+        }
+
+        LabelStatistics statistics() { return statistics; }
+
+        /**
+         * Les images suivantes sont comptées dans target (contribution d'une seule image, par exemple).
+         */
+        void collectInto(LabelStatistics target) {
+            statistics = target;
+        }
+
+        public int getImageCount() { return statistics.getImageCount(); }
+        public int getLocRightCount() { return statistics.getLocRightCount(); }
+        public int getTotalUniqueLabels() { return statistics.getTotalUniqueLabels(); }
 
         public List<Map.Entry<String, Integer>> getTop10Labels() {
-            return labelFrequency.entrySet().stream()
-                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                    .limit(10)
-                    .toList();
+            return statistics.getTop10Labels();
+        }
+    }
+
+    /**
+     * Handler d'analyse transmettant les erreurs de validation à un {@link ErrorReporter},
+     * avec l'Identifiant de l'image en cours.
+     * <p>
+     * Le parser signale les erreurs d'une balise ouvrante (Identifiant manquant, attribut en
+     * trop) avant startElement. Les erreurs reçues hors d'une image sont donc gardées jusqu'à
+     * l'événement suivant : celles situées à la position de la balise qui vient d'être lue
+     * (position du {@link Locator} dans startElement) reviennent à cette balise, donc à
+     * l'image si c'en est une ; les autres sont transmises sans Identifiant.
+     */
+    static final class ReportingHandler extends ImageHandler {
+        private final ErrorReporter reporter;
+        private final List<SAXParseException> pending = new ArrayList<>();
+        private final List<Boolean> pendingWarnings = new ArrayList<>();
+        private Locator locator;
+        private String image;
+
+        ReportingHandler(ErrorReporter reporter) {
+            this.reporter = reporter;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            super.startElement(uri, localName, qName, attributes);
+            flush(true);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            flush(false);
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            flush(false);
+        }
+
+        @Override
+        void imageStarted(Attributes attributes) {
+            image = attributes.getValue("Identifiant");
+            reporter.image(image);
+        }
+
+        @Override
+        void imageEnded() {
+            image = null;
+            reporter.image(null);
+        }
+
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            if (image == null) {
+                defer(exception, true);
+            } else {
+                reporter.warning(exception);
+            }
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            if (image == null) {
+                defer(exception, false);
+            } else {
+                reporter.error(exception);
+            }
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            flush(false);
+            reporter.fatalError(exception);
+        }
+
+        private void defer(SAXParseException exception, boolean warning) {
+            pending.add(exception);
+            pendingWarnings.add(warning);
+        }
+
+        /**
+         * Transmet les erreurs gardées ; avec tagJustRead, celles situées à la fin de la
+         * balise ouvrante courante portent l'Identifiant de l'image en cours.
+         */
+        private void flush(boolean tagJustRead) throws SAXException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                for (int i = 0; i < pending.size(); i++) {
+                    SAXParseException exception = pending.get(i);
+                    boolean onTag = tagJustRead && locator != null
+                            && exception.getLineNumber() == locator.getLineNumber()
+                            && exception.getColumnNumber() == locator.getColumnNumber();
+                    reporter.image(onTag ? image : null);
+                    if (pendingWarnings.get(i)) {
+                        reporter.warning(exception);
+                    } else {
+                        reporter.error(exception);
+                    }
+                }
+            } finally {
+                pending.clear();
+                pendingWarnings.clear();
+                reporter.image(image);
+            }
         }
     }
 }
@@ -0,0 +1,159 @@
+package org.example.validation;
+
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+import javax.xml.stream.XMLResolver;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Résolution en mémoire des DTD et XSD (images.dtd, images.xsd...) pour SAX / DOM,
+ * javax.xml.validation et StAX.
+ * <p>
+ * Chaque fichier est lu une seule fois, dans le dossier configuré puis sur le classpath
+ * ({@code org/example/structures/}), et servi depuis la mémoire à tous les parsers.
+ * La résolution se fait sur le nom du fichier : {@code <!DOCTYPE Images SYSTEM
+ * "../structures/images.dtd">} fonctionne quel que soit l'emplacement du XML.
+ * Un nom inconnu est laissé à la résolution par défaut.
+ * <p>
+ * Dossier par défaut : propriété système {@value #DIRECTORY_PROPERTY}, sinon
+ * {@code src/main/java/org/example/structures}.
+ */
+public final class SchemaResolver implements EntityResolver, LSResourceResolver, XMLResolver {
+
+    public static final String DIRECTORY_PROPERTY = "padchest.structures";
+    private static final String DEFAULT_DIRECTORY = "src/main/java/org/example/structures";
+    private static final String CLASSPATH_PREFIX = "org/example/structures/";
+
+    private static final ConcurrentMap<Path, SchemaResolver> RESOLVERS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    // Contenu par nom de fichier ; Optional.empty() : introuvable, résolution par défaut
+    private final ConcurrentMap<String, Optional<byte[]>> resources = new ConcurrentHashMap<>();
+    private volatile DOMImplementationLS domLs;
+
+    private SchemaResolver(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Résolveur du dossier par défaut.
+     */
+    public static SchemaResolver shared() {
+        return forDirectory(Path.of(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY)));
+    }
+
+    /**
+     * Résolveur d'un dossier de structures (un seul par dossier, cache partagé).
+     */
+    public static SchemaResolver forDirectory(Path directory) {
+        return RESOLVERS.computeIfAbsent(directory.toAbsolutePath().normalize(), SchemaResolver::new);
+    }
+
+    /**
+     * Résolveur adapté au schéma fourni : son dossier, ou le dossier par défaut si null.
+     */
+    static SchemaResolver forSchema(String schemaPath) {
+        if (schemaPath == null) {
+            return shared();
+        }
+        Path parent = Path.of(schemaPath).toAbsolutePath().getParent();
+        return parent != null ? forDirectory(parent) : shared();
+    }
+
+    /**
+     * Contenu d'un fichier de structure, ou null s'il est introuvable.
+     */
+    public byte[] resource(String fileName) {
+        return resources.computeIfAbsent(fileName, this::load).orElse(null);
+    }
+
+    private Optional<byte[]> load(String fileName) {
+        try {
+            Path file = directory.resolve(fileName);
+            if (Files.isRegularFile(file)) {
+                return Optional.of(Files.readAllBytes(file));
+            }
+            try (InputStream in = SchemaResolver.class.getClassLoader().getResourceAsStream(CLASSPATH_PREFIX + fileName)) {
+                return in != null ? Optional.of(in.readAllBytes()) : Optional.empty();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture impossible : " + fileName, e);
+        }
+    }
+
+    /**
+     * Nom de fichier désigné par un identifiant système, si c'est une DTD ou un XSD.
+     */
+    private static String fileName(String systemId) {
+        if (systemId == null) {
+            return null;
+        }
+        String name = systemId.substring(Math.max(systemId.lastIndexOf('/'), systemId.lastIndexOf('\\')) + 1);
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".dtd") || lower.endsWith(".xsd") ? name : null;
+    }
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) {
+        String name = fileName(systemId);
+        byte[] content = name != null ? resource(name) : null;
+        if (content == null) {
+            return null;
+        }
+        InputSource source = new InputSource(new ByteArrayInputStream(content));
+        source.setPublicId(publicId);
+        source.setSystemId(systemId);
+        return source;
+    }
+
+    @Override
+    public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+        String name = fileName(systemId);
+        byte[] content = name != null ? resource(name) : null;
+        if (content == null) {
+            return null;
+        }
+        LSInput input = domLs().createLSInput();
+        input.setByteStream(new ByteArrayInputStream(content));
+        input.setPublicId(publicId);
+        input.setSystemId(systemId);
+        input.setBaseURI(baseURI);
+        return input;
+    }
+
+    @Override
+    public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+        String name = fileName(systemID);
+        byte[] content = name != null ? resource(name) : null;
+        return content != null ? new ByteArrayInputStream(content) : null;
+    }
+
+    private DOMImplementationLS domLs() {
+        DOMImplementationLS ls = domLs;
+        if (ls == null) {
+            try {
+                DOMImplementation implementation = DOMImplementationRegistry.newInstance().getDOMImplementation("LS");
+                ls = (DOMImplementationLS) implementation;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("DOM Load and Save indisponible", e);
+            }
+            domLs = ls;
+        }
+        return ls;
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Précision du mode approché ({@link SpaceSaving}, {@link HyperLogLog}) mesurée contre le
+ * comptage exact ({@link LabelCounter}), sur le même document et en une seule lecture.
+ * <p>
+ * Flux mesurés : labels (toutes profondeurs), mots des comptes rendus (Report, en
+ * minuscules), PatientID, StudyID et ImageDir. Pour chaque capacité : rappel du top 10
+ * (à égalité de compte, tout label ex æquo avec le 10e est correct), erreur maximale
+ * constatée sur les comptes comparée à la borne total / capacité, et vérification que
+ * chaque vrai compte est dans {@code [compte - erreur, compte]}.
+ */
+public class SketchAccuracyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String xmlPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        int[] capacities = {16, 64, 256, 1024};
+        if (args.length > 1) {
+            String[] values = args[1].split(",");
+            capacities = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                capacities[i] = Integer.parseInt(values[i].trim());
+            }
+        }
+
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        SAXParser parser = factory.newSAXParser();
+
+        System.out.println("=== PRÉCISION DU MODE APPROCHÉ ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        System.out.println();
+
+        StreamHandler handler = new StreamHandler(capacities);
+        long debut = System.nanoTime();
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            parser.parse(ValidationService.source(in, xmlPath), handler);
+        }
+        System.out.println("Lecture : " + (System.nanoTime() - debut) / 1_000_000 + " ms");
+
+        for (Stream stream : handler.streams) {
+            stream.afficher();
+        }
+    }
+
+    /**
+     * Un flux de valeurs, compté exactement et par les estimateurs.
+     */
+    private static final class Stream {
+        private final String name;
+        private final LabelCounter exact = new LabelCounter();
+        private final HyperLogLog distinct = new HyperLogLog();
+        private final SpaceSaving[] sketches;
+
+        Stream(String name, int[] capacities) {
+            this.name = name;
+            sketches = new SpaceSaving[capacities.length];
+            for (int i = 0; i < capacities.length; i++) {
+                sketches[i] = new SpaceSaving(capacities[i]);
+            }
+        }
+
+        void add(char[] chars, int start, int end) {
+            exact.add(chars, start, end);
+            distinct.add(chars, start, end);
+            for (SpaceSaving sketch : sketches) {
+                sketch.add(chars, start, end);
+            }
+        }
+
+        void afficher() {
+            System.out.println();
+            System.out.println("--- " + name + " ---");
+            long total = sketches[0].total();
+            long estimate = distinct.estimate();
+            System.out.printf("Occurrences : %,d ; valeurs différentes : %,d exactes, %,d estimées (%+.2f %%, erreur type %.1f %%, %,d octets)%n",
+                    total, exact.size(), estimate, 100.0 * (estimate - exact.size()) / Math.max(1, exact.size()),
+                    100 * distinct.standardError(), distinct.memory());
+
+            Map<String, Integer> counts = new HashMap<>(exact.size() * 2);
+            for (int i = 0; i < exact.size(); i++) {
+                counts.put(exact.label(i), exact.count(i));
+            }
+            List<Map.Entry<String, Integer>> top = exact.top(Math.min(10, exact.size()));
+            int tenth = top.isEmpty() ? 0 : top.get(top.size() - 1).getValue();
+
+            for (SpaceSaving sketch : sketches) {
+                List<SpaceSaving.Estimate> estimates = sketch.top(sketch.capacity());
+                int found = 0;
+                long maxError = 0;
+                boolean bounded = true;
+                for (int i = 0; i < estimates.size(); i++) {
+                    SpaceSaving.Estimate e = estimates.get(i);
+                    int real = counts.get(e.label());
+                    if (i < top.size() && real >= tenth) {
+                        found++;
+                    }
+                    maxError = Math.max(maxError, e.count() - real);
+                    bounded &= e.count() - e.error() <= real && real <= e.count();
+                }
+                System.out.printf("  capacité %5d : rappel top 10 %2d/%d, erreur max constatée %,d (borne %,d), encadrements %s%n",
+                        sketch.capacity(), found, top.size(), maxError, sketch.errorBound(), bounded ? "OK" : "VIOLÉS");
+            }
+        }
+    }
+
+    /**
+     * Handler non validant alimentant les flux.
+     */
+    private static final class StreamHandler extends DefaultHandler {
+        private final Stream labels;
+        private final Stream words;
+        private final Stream patients;
+        private final Stream studies;
+        private final Stream images;
+        private final List<Stream> streams = new ArrayList<>();
+        private Stream current;
+        private final StringBuilder text = new StringBuilder();
+        private char[] buffer = new char[256];
+
+        StreamHandler(int[] capacities) {
+            labels = add(new Stream("Label", capacities));
+            words = add(new Stream("Mots de Report", capacities));
+            patients = add(new Stream("PatientID", capacities));
+            studies = add(new Stream("StudyID", capacities));
+            images = add(new Stream("ImageDir", capacities));
+        }
+
+        private Stream add(Stream stream) {
+            streams.add(stream);
+            return stream;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            current = switch (qName) {
+                case "Label" -> labels;
+                case "Report" -> words;
+                case "PatientID" -> patients;
+                case "StudyID" -> studies;
+                case "ImageDir" -> images;
+                default -> null;
+            };
+            text.setLength(0);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (current != null) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (current == null) {
+                return;
+            }
+            if (buffer.length < text.length()) {
+                buffer = new char[text.length() * 2];
+            }
+            int length = text.length();
+            text.getChars(0, length, buffer, 0);
+            if (current == words) {
+                // Mots : suites de lettres ou chiffres, en minuscules
+                int start = -1;
+                for (int i = 0; i <= length; i++) {
+                    boolean inWord = i < length && Character.isLetterOrDigit(buffer[i]);
+                    if (inWord) {
+                        buffer[i] = Character.toLowerCase(buffer[i]);
+                        if (start < 0) {
+                            start = i;
+                        }
+                    } else if (start >= 0) {
+                        words.add(buffer, start, i);
+                        start = -1;
+                    }
+                }
+            } else {
+                int start = 0;
+                int end = length;
+                while (start < end && buffer[start] <= ' ') {
+                    start++;
+                }
+                while (end > start && buffer[end - 1] <= ' ') {
+                    end--;
+                }
+                if (start < end) {
+                    current.add(buffer, start, end);
+                }
+            }
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.validation;
+
+import org.example.util.CharRangeTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Valeurs les plus fréquentes d'un flux en mémoire fixe (algorithme SpaceSaving).
+ * <p>
+ * Au plus capacity valeurs sont suivies. Une valeur nouvelle quand tout est occupé remplace
+ * la moins comptée, dont elle hérite le compte (noté comme erreur possible). Pour chaque
+ * valeur suivie, le vrai nombre d'occurrences est dans {@code [count - error, count]}, et
+ * l'erreur ne dépasse pas total / capacity. Les valeurs suivies sont dans une
+ * {@link CharRangeTable} : une chaîne n'est créée que pour une valeur nouvellement suivie.
+ */
+final class SpaceSaving {
+
+    /**
+     * Valeur suivie : compte estimé (borne haute) et erreur maximale.
+     */
+    record Estimate(String label, long count, long error) {
+    }
+
+    private final int capacity;
+    // Jamais agrandie : au plus capacity valeurs, remplacées sur place
+    private final CharRangeTable labels;
+    private final long[] counts;
+    private final long[] errors;
+    // Tas min des valeurs suivies par compte, et position de chaque valeur dans le tas
+    private final int[] heap;
+    private final int[] positions;
+    private long total;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        }
+        this.capacity = capacity;
+        labels = new CharRangeTable(capacity);
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        positions = new int[capacity];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Nombre total d'occurrences vues.
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Erreur maximale sur le compte de toute valeur suivie.
+     */
+    long errorBound() {
+        return total / capacity;
+    }
+
+    void add(char[] chars, int start, int end) {
+        add(chars, start, end, 1);
+    }
+
+    void add(char[] chars, int start, int end, long count) {
+        total += count;
+        int index = labels.find(chars, start, end);
+        if (index < 0) {
+            if (labels.size() < capacity) {
+                index = labels.intern(chars, start, end);
+                counts[index] = count;
+                errors[index] = 0;
+                heap[index] = index;
+                positions[index] = index;
+                siftUp(index);
+                return;
+            }
+            // La valeur la moins comptée cède sa place
+            index = heap[0];
+            labels.replace(index, chars, start, end);
+            errors[index] = counts[index];
+        }
+        counts[index] += count;
+        siftDown(positions[index]);
+    }
+
+    /**
+     * Les n valeurs les plus comptées, par compte décroissant (à égalité, ordre alphabétique).
+     */
+    List<Estimate> top(int n) {
+        int size = labels.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> counts[i]).reversed()
+                .thenComparing(labels::key));
+        List<Estimate> top = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < Math.min(n, size); i++) {
+            top.add(new Estimate(labels.key(order[i]), counts[order[i]], errors[order[i]]));
+        }
+        return top;
+    }
+
+    /**
+     * Ajoute un autre résumé (fusion de résumés SpaceSaving) : une valeur absente d'un résumé
+     * plein y compte pour le minimum de ce résumé, ajouté aussi à son erreur. Les capacity
+     * valeurs les plus comptées sont gardées.
+     */
+    void merge(SpaceSaving other) {
+        long minimum = labels.size() == capacity ? counts[heap[0]] : 0;
+        long otherMinimum = other.labels.size() == other.capacity ? other.counts[other.heap[0]] : 0;
+        Map<String, long[]> combined = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            combined.put(labels.key(i), new long[]{counts[i] + otherMinimum, errors[i] + otherMinimum});
+        }
+        for (int i = 0; i < other.labels.size(); i++) {
+            long[] entry = combined.get(other.labels.key(i));
+            if (entry == null) {
+                combined.put(other.labels.key(i), new long[]{other.counts[i] + minimum, other.errors[i] + minimum});
+            } else {
+                entry[0] += other.counts[i] - otherMinimum;
+                entry[1] += other.errors[i] - otherMinimum;
+            }
+        }
+        List<Map.Entry<String, long[]>> kept = new ArrayList<>(combined.entrySet());
+        kept.sort(Comparator.<Map.Entry<String, long[]>>comparingLong(e -> e.getValue()[0]).reversed()
+                .thenComparing(Map.Entry::getKey));
+        long mergedTotal = total + other.total;
+        labels.clear();
+        total = 0;
+        for (Map.Entry<String, long[]> entry : kept.subList(0, Math.min(capacity, kept.size()))) {
+            char[] chars = entry.getKey().toCharArray();
+            add(chars, 0, chars.length, entry.getValue()[0]);
+            errors[labels.find(chars, 0, chars.length)] = entry.getValue()[1];
+        }
+        total = mergedTotal;
+    }
+
+    private void siftUp(int position) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[index]) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(index, position);
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= labels.size()) {
+                break;
+            }
+            if (child + 1 < labels.size() && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[index] <= counts[heap[child]]) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(index, position);
+    }
+
+    private void move(int index, int position) {
+        heap[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,254 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Validator;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Validateur StAX (XMLStreamReader) pour les fichiers XML PadChest.
+ * <p>
+ * Mêmes résultats que {@link SAXValidator}. Sans XSD, le document est lu en mode pull et
+ * les sous-arbres inutiles ({@code <Report>}) sont sautés sans construire leur texte.
+ * Avec un XSD, un {@link Validator} lit le document au travers d'une {@link StAXSource}
+ * et l'analyse observe les événements au passage (un seul parcours).
+ */
+public class StAXValidator {
+
+    /** Éléments dont le contenu n'intervient pas dans l'analyse. */
+    private static final Set<String> SKIPPED = Set.of("Report");
+
+    public static void main(String[] args) {
+        String xmlPath = "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.xml";
+        String xsdPath = "src/main/java/org/example/structures/images.xsd";
+
+        System.out.println("=== VALIDATION StAX ===");
+        System.out.println("Fichier XML : " + xmlPath);
+        if (xsdPath != null) {
+            System.out.println("Fichier XSD/DTD fourni : " + xsdPath);
+        } else {
+            System.out.println("Mode de validation : DTD uniquement (aucun XSD fourni)");
+        }
+        System.out.println();
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            validate(xmlPath, xsdPath);
+
+            long endTime = System.currentTimeMillis();
+            System.out.println("\n✓ Validation et analyse terminées avec succès !");
+            System.out.println("Temps d'exécution : " + (endTime - startTime) + " ms");
+
+        } catch (Exception e) {
+            System.err.println("✗ Erreur lors de la validation : " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Valide le fichier XML avec DTD ou XSD et effectue les calculs statistiques.
+     *
+     * @param xmlPath Chemin vers le fichier XML
+     * @param xsdPath Chemin vers le fichier XSD ou DTD (null pour validation DTD uniquement)
+     */
+    public static void validate(String xmlPath, String xsdPath) throws Exception {
+        ValidationService service = ValidationService.forSchema(xsdPath);
+        if (service.schema() != null || service.staxValidating()) {
+            System.out.println("✓ " + service.mode());
+        } else {
+            System.out.println("⚠ DTD lue mais non validée : validation DTD non supportée par l'implémentation StAX");
+        }
+
+        ImageAnalyzer analyzer = new ImageAnalyzer();
+        ErrorCounter errors = new ErrorCounter();
+        analyze(service, xmlPath, analyzer, errors);
+
+        if (errors.getCount() > 0) {
+            System.out.println("✗ " + errors.getCount() + " erreur(s) de validation, la première : " + errors.getFirst());
+        }
+
+        // Afficher les résultats
+        System.out.println();
+        System.out.println("--- RÉSULTATS DE L'ANALYSE ---");
+        System.out.println();
+        LabelStatistics statistics = analyzer.statistics();
+        System.out.println("1. Images contenant 'loc right' : " + statistics.getLocRightCount());
+        System.out.println();
+        System.out.println("2. Top 10 des labels les plus fréquents :");
+        List<Map.Entry<String, Integer>> top10 = statistics.getTop10Labels();
+        int rank = 1;
+        for (Map.Entry<String, Integer> entry : top10) {
+            System.out.printf("   %2d. %-40s : %6d occurrences%n", rank++, entry.getKey(), entry.getValue());
+        }
+        System.out.println();
+        System.out.println("Total d'images traitées : " + statistics.getImageCount());
+        System.out.println("Total de labels différents : " + statistics.getTotalUniqueLabels());
+    }
+
+    /**
+     * Lit le document et alimente l'analyseur : validation XSD par un Validator si le service
+     * a un schéma, sinon lecture pull avec saut des sous-arbres inutiles.
+     *
+     * @param errors erreurs de validation XSD (ignorées si null)
+     */
+    static void analyze(ValidationService service, String xmlPath, ImageAnalyzer analyzer, DefaultHandler errors)
+            throws Exception {
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            XMLStreamReader reader = service.streamReader(in, xmlPath);
+            try {
+                if (service.schema() != null) {
+                    Validator validator = service.validator();
+                    validator.setErrorHandler(errors != null ? errors : new DefaultHandler());
+                    validator.validate(new StAXSource(new AnalyzingReader(reader, analyzer)));
+                } else {
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT && SKIPPED.contains(reader.getLocalName())) {
+                            skipElement(reader);
+                        } else {
+                            analyzer.event(reader, event);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Avance jusqu'à la fin de l'élément courant sans lire son texte.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Lecteur intercalé entre le document et le Validator : chaque événement lu par le
+     * Validator est aussi transmis à l'analyseur.
+     */
+    private static final class AnalyzingReader extends StreamReaderDelegate {
+        private final ImageAnalyzer analyzer;
+
+        AnalyzingReader(XMLStreamReader reader, ImageAnalyzer analyzer) {
+            super(reader);
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            analyzer.event(this, event);
+            return event;
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            // nextTag passe par next() : les blancs et commentaires sautés restent observés
+            int event = next();
+            while (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.COMMENT
+                    || event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                event = next();
+            }
+            if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+                throw new XMLStreamException("Balise attendue", getLocation());
+            }
+            return event;
+        }
+    }
+
+    /**
+     * Calculs statistiques sur les événements StAX (mêmes règles que l'ImageHandler SAX).
+     * Seul le texte des {@code <Label>} et {@code <Localization>} est conservé.
+     */
+    static class ImageAnalyzer {
+        private final LabelStatistics statistics = new LabelStatistics();
+
+        private final StringBuilder currentText = new StringBuilder();
+        private boolean capturing = false;
+        private boolean currentImageHasLocRight = false;
+        private boolean insideImage = false;
+
+        void event(XMLStreamReader reader, int event) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    currentText.setLength(0);
+                    String element = reader.getLocalName();
+                    if ("image".equalsIgnoreCase(element)) {
+                        statistics.addImage();
+                        currentImageHasLocRight = false;
+                        insideImage = true;
+                    }
+                    capturing = insideImage
+                            && ("label".equalsIgnoreCase(element) || "localization".equalsIgnoreCase(element));
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    if (capturing) {
+                        currentText.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    String element = reader.getLocalName();
+                    if (capturing) {
+                        String content = currentText.toString().trim();
+                        if ("localization".equalsIgnoreCase(element)) {
+                            if ("loc right".equalsIgnoreCase(content) && !currentImageHasLocRight) {
+                                statistics.addLocRight();
+                                currentImageHasLocRight = true;
+                            }
+                        } else if (!content.isEmpty()) {
+                            statistics.addLabel(content);
+                        }
+                        capturing = false;
+                    }
+                    if ("image".equalsIgnoreCase(element)) {
+                        insideImage = false;
+                        currentImageHasLocRight = false;
+                    }
+                }
+                default -> {
+                    // commentaires, DTD, instructions de traitement...
+                }
+            }
+        }
+
+        LabelStatistics statistics() { return statistics; }
+    }
+
+    /**
+     * Compte les erreurs de validation sans interrompre la lecture (comme le parser SAX).
+     */
+    static class ErrorCounter extends DefaultHandler {
+        private int count = 0;
+        private String first;
+
+        @Override
+        public void error(SAXParseException exception) {
+            if (count++ == 0) {
+                first = "ligne " + exception.getLineNumber() + " : " + exception.getMessage();
+            }
+        }
+
+        public int getCount() { return count; }
+        public String getFirst() { return first; }
+    }
+}
@@ -0,0 +1,515 @@
+package org.example.validation;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Agrégations déclarées à l'avance et évaluées ensemble en une seule lecture SAX.
+ * <p>
+ * Chaque agrégation porte sur un chemin d'éléments, par exemple
+ * {@code image/Localizations/Localization} ou {@code image//Label} : le dernier nom est
+ * l'élément dont le texte est agrégé, les précédents ses ancêtres, directs ({@code /}) ou à
+ * n'importe quelle profondeur ({@code //}). Le chemin n'est pas ancré à la racine. La valeur
+ * d'un élément est son texte (descendants compris), découpé comme {@link String#trim()} ; les
+ * valeurs vides sont ignorées.
+ * <pre>
+ * StreamingAggregator aggregator = new StreamingAggregator();
+ * Aggregation&lt;Integer&gt; locRight = aggregator.countRecordsWhere("image", "image//Localization",
+ *         value -&gt; value.equalsIgnoreCase("loc right"));
+ * Aggregation&lt;List&lt;Map.Entry&lt;String, Integer&gt;&gt;&gt; top10 = aggregator.topN("image//Label", 10);
+ * service.parse(xmlPath, aggregator);
+ * </pre>
+ */
+public final class StreamingAggregator extends DefaultHandler {
+
+    /**
+     * Une agrégation enregistrée ; son résultat est disponible après la lecture.
+     */
+    public interface Aggregation<T> {
+        String description();
+
+        T result();
+    }
+
+    /**
+     * Réception des éléments d'un chemin.
+     */
+    private interface Listener {
+        default void start() {
+        }
+
+        /**
+         * Fin d'un élément du chemin ; sa valeur est {@code chars[start, end)} (vide si start == end).
+         */
+        void end(char[] chars, int start, int end);
+
+        default boolean needsText() {
+            return true;
+        }
+    }
+
+    private final ErrorHandler errors;
+    private final List<PathState> paths = new ArrayList<>();
+    private final List<Aggregation<?>> aggregations = new ArrayList<>();
+
+    private String[] stack = new String[16];
+    private int depth = 0;
+    private char[] text = new char[256];
+    private int textLength = 0;
+    private int capturing = 0;
+
+    /**
+     * Agrégateur ignorant les erreurs de validation.
+     */
+    public StreamingAggregator() {
+        this(null);
+    }
+
+    /**
+     * @param errors erreurs de validation transmises pendant la lecture (null : ignorées)
+     */
+    public StreamingAggregator(ErrorHandler errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Nombre de valeurs du chemin satisfaisant la condition.
+     */
+    public Aggregation<Integer> countWhere(String path, Predicate<String> condition) {
+        CountWhere count = new CountWhere("nombre de " + path + " satisfaisant la condition", condition);
+        state(path).add(count);
+        return register(count);
+    }
+
+    /**
+     * Nombre d'éléments recordPath (une image, par exemple) contenant au moins une valeur du
+     * chemin path satisfaisant la condition.
+     */
+    public Aggregation<Integer> countRecordsWhere(String recordPath, String path, Predicate<String> condition) {
+        CountRecordsWhere count = new CountRecordsWhere("nombre de " + recordPath + " avec un " + path + " satisfaisant la condition",
+                condition);
+        state(recordPath).add(count.record);
+        state(path).add(count);
+        return register(count);
+    }
+
+    /**
+     * Nombre d'occurrences de chaque valeur du chemin, par fréquence décroissante.
+     */
+    public Aggregation<List<Map.Entry<String, Integer>>> groupByCount(String path) {
+        Group group = new Group("occurrences par valeur de " + path, Integer.MAX_VALUE);
+        state(path).add(group);
+        return register(group);
+    }
+
+    /**
+     * Les n valeurs les plus fréquentes du chemin (à égalité, ordre alphabétique).
+     */
+    public Aggregation<List<Map.Entry<String, Integer>>> topN(String path, int n) {
+        Group group = new Group("top " + n + " de " + path, n);
+        state(path).add(group);
+        return register(group);
+    }
+
+    /**
+     * Nombre de valeurs différentes du chemin (exact).
+     */
+    public Aggregation<Integer> distinctCount(String path) {
+        Distinct distinct = new Distinct("valeurs différentes de " + path);
+        state(path).add(distinct);
+        return register(distinct);
+    }
+
+    /**
+     * Les n valeurs les plus fréquentes du chemin en mémoire fixe ({@link SpaceSaving} à
+     * capacity compteurs) : comptes majorés d'au plus total / capacity.
+     */
+    public Aggregation<List<Map.Entry<String, Integer>>> approximateTopN(String path, int n, int capacity) {
+        ApproximateTop top = new ApproximateTop("top " + n + " approché de " + path, n, capacity);
+        state(path).add(top);
+        return register(top);
+    }
+
+    /**
+     * Nombre de valeurs différentes du chemin estimé en mémoire fixe ({@link HyperLogLog},
+     * erreur type 0,8 %).
+     */
+    public Aggregation<Long> approximateDistinctCount(String path) {
+        ApproximateDistinct distinct = new ApproximateDistinct("valeurs différentes de " + path + " (estimation)");
+        state(path).add(distinct);
+        return register(distinct);
+    }
+
+    /**
+     * Agrégations enregistrées, dans l'ordre d'enregistrement.
+     */
+    public List<Aggregation<?>> aggregations() {
+        return aggregations;
+    }
+
+    private <A extends Aggregation<?>> A register(A aggregation) {
+        aggregations.add(aggregation);
+        return aggregation;
+    }
+
+    /**
+     * État du chemin (partagé par les agrégations portant sur le même chemin).
+     */
+    private PathState state(String path) {
+        for (PathState state : paths) {
+            if (state.path.equals(path)) {
+                return state;
+            }
+        }
+        PathState state = new PathState(path);
+        paths.add(state);
+        return state;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = qName;
+        for (PathState state : paths) {
+            if (state.matches(stack, depth)) {
+                state.open(depth, textLength);
+                if (state.needsText) {
+                    capturing++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        for (PathState state : paths) {
+            if (state.isOpenAt(depth)) {
+                int start = state.close();
+                int end = textLength;
+                // Même découpage que String.trim()
+                while (start < end && text[start] <= ' ') {
+                    start++;
+                }
+                while (end > start && text[end - 1] <= ' ') {
+                    end--;
+                }
+                for (Listener listener : state.listeners) {
+                    listener.end(text, start, end);
+                }
+                if (state.needsText) {
+                    capturing--;
+                }
+            }
+        }
+        if (capturing == 0) {
+            textLength = 0;
+        }
+        depth--;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (capturing == 0) {
+            return;
+        }
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(textLength + length, text.length * 2));
+        }
+        System.arraycopy(ch, start, text, textLength, length);
+        textLength += length;
+    }
+
+    @Override
+    public void warning(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.warning(exception);
+        }
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.error(exception);
+        }
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+        if (errors != null) {
+            errors.fatalError(exception);
+        }
+        throw exception;
+    }
+
+    /**
+     * Chemin compilé : noms, séparateur avant chaque nom ({@code //} ou non) et éléments du
+     * chemin en cours de lecture (profondeur et début de leur texte).
+     */
+    private static final class PathState {
+        private final String path;
+        private final String[] names;
+        private final boolean[] anyDepth;
+        private final List<Listener> listeners = new ArrayList<>();
+        private boolean needsText;
+        private int[] depths = new int[4];
+        private int[] starts = new int[4];
+        private int open = 0;
+
+        PathState(String path) {
+            this.path = path;
+            List<String> names = new ArrayList<>();
+            List<Boolean> anyDepth = new ArrayList<>();
+            boolean descendant = false;
+            for (String name : path.split("/", -1)) {
+                if (name.isEmpty()) {
+                    descendant = true;
+                    continue;
+                }
+                names.add(name);
+                anyDepth.add(descendant);
+                descendant = false;
+            }
+            if (names.isEmpty() || path.endsWith("/")) {
+                throw new IllegalArgumentException("Chemin invalide : " + path);
+            }
+            this.names = names.toArray(new String[0]);
+            this.anyDepth = new boolean[names.size()];
+            for (int i = 0; i < this.anyDepth.length; i++) {
+                this.anyDepth[i] = anyDepth.get(i);
+            }
+        }
+
+        void add(Listener listener) {
+            listeners.add(listener);
+            needsText |= listener.needsText();
+        }
+
+        boolean matches(String[] stack, int depth) {
+            if (!names[names.length - 1].equals(stack[depth - 1])) {
+                return false;
+            }
+            return matches(stack, names.length - 1, depth - 1);
+        }
+
+        /**
+         * names[index] correspond à stack[position] ; les noms précédents correspondent-ils
+         * à des ancêtres ?
+         */
+        private boolean matches(String[] stack, int index, int position) {
+            if (index == 0) {
+                return true;
+            }
+            if (!anyDepth[index]) {
+                return position > 0 && names[index - 1].equals(stack[position - 1])
+                        && matches(stack, index - 1, position - 1);
+            }
+            for (int ancestor = position - 1; ancestor >= 0; ancestor--) {
+                if (names[index - 1].equals(stack[ancestor]) && matches(stack, index - 1, ancestor)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void open(int depth, int textStart) {
+            if (open == depths.length) {
+                depths = Arrays.copyOf(depths, open * 2);
+                starts = Arrays.copyOf(starts, open * 2);
+            }
+            depths[open] = depth;
+            starts[open++] = textStart;
+            for (Listener listener : listeners) {
+                listener.start();
+            }
+        }
+
+        boolean isOpenAt(int depth) {
+            return open > 0 && depths[open - 1] == depth;
+        }
+
+        int close() {
+            return starts[--open];
+        }
+    }
+
+    private static final class CountWhere implements Aggregation<Integer>, Listener {
+        private final String description;
+        private final Predicate<String> condition;
+        private int count;
+
+        CountWhere(String description, Predicate<String> condition) {
+            this.description = description;
+            this.condition = condition;
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (start < end && condition.test(new String(chars, start, end - start))) {
+                count++;
+            }
+        }
+
+        @Override
+        public String description() { return description; }
+
+        @Override
+        public Integer result() { return count; }
+    }
+
+    private static final class CountRecordsWhere implements Aggregation<Integer>, Listener {
+        private final String description;
+        private final Predicate<String> condition;
+        private int count;
+        private boolean found;
+
+        // Début et fin de chaque enregistrement ; son texte n'est pas conservé
+        private final Listener record = new Listener() {
+            @Override
+            public void start() {
+                found = false;
+            }
+
+            @Override
+            public void end(char[] chars, int start, int end) {
+                if (found) {
+                    count++;
+                }
+                found = false;
+            }
+
+            @Override
+            public boolean needsText() {
+                return false;
+            }
+        };
+
+        CountRecordsWhere(String description, Predicate<String> condition) {
+            this.description = description;
+            this.condition = condition;
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (!found && start < end && condition.test(new String(chars, start, end - start))) {
+                found = true;
+            }
+        }
+
+        @Override
+        public String description() { return description; }
+
+        @Override
+        public Integer result() { return count; }
+    }
+
+    private static final class Group implements Aggregation<List<Map.Entry<String, Integer>>>, Listener {
+        private final String description;
+        private final int limit;
+        private final LabelCounter counter = new LabelCounter();
+
+        Group(String description, int limit) {
+            this.description = description;
+            this.limit = limit;
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (start < end) {
+                counter.add(chars, start, end);
+            }
+        }
+
+        @Override
+        public String description() { return description; }
+
+        @Override
+        public List<Map.Entry<String, Integer>> result() {
+            return counter.top(Math.min(limit, counter.size()));
+        }
+    }
+
+    private static final class Distinct implements Aggregation<Integer>, Listener {
+        private final String description;
+        private final LabelCounter counter = new LabelCounter();
+
+        Distinct(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (start < end) {
+                counter.add(chars, start, end);
+            }
+        }
+
+        @Override
+        public String description() { return description; }
+
+        @Override
+        public Integer result() { return counter.size(); }
+    }
+
+    private static final class ApproximateTop implements Aggregation<List<Map.Entry<String, Integer>>>, Listener {
+        private final String description;
+        private final int limit;
+        private final SpaceSaving sketch;
+
+        ApproximateTop(String description, int limit, int capacity) {
+            this.description = description;
+            this.limit = limit;
+            this.sketch = new SpaceSaving(capacity);
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (start < end) {
+                sketch.add(chars, start, end);
+            }
+        }
+
+        @Override
+        public String description() { return description + " (erreur max " + sketch.errorBound() + ")"; }
+
+        @Override
+        public List<Map.Entry<String, Integer>> result() {
+            return sketch.top(limit).stream()
+                    .<Map.Entry<String, Integer>>map(e -> new AbstractMap.SimpleImmutableEntry<>(e.label(), (int) e.count()))
+                    .toList();
+        }
+    }
+
+    private static final class ApproximateDistinct implements Aggregation<Long>, Listener {
+        private final String description;
+        private final HyperLogLog sketch = new HyperLogLog();
+
+        ApproximateDistinct(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public void end(char[] chars, int start, int end) {
+            if (start < end) {
+                sketch.add(chars, start, end);
+            }
+        }
+
+        @Override
+        public String description() { return description; }
+
+        @Override
+        public Long result() { return sketch.estimate(); }
+    }
+}
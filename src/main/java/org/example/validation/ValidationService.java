@@ -0,0 +1,296 @@
+package org.example.validation;
+
+import org.example.io.CompressedFiles;
+import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Service de validation réutilisable, partagé entre threads.
+ * <p>
+ * Chaque XSD est compilé une seule fois ({@link Schema} est immuable et thread-safe) et les
+ * factories sont configurées une fois par schéma. Chaque thread garde son propre
+ * {@link SAXParser}, {@link DocumentBuilder} et {@link Validator}, remis à zéro
+ * ({@code reset()}) avant chaque document : seul le parsing est payé par document.
+ * <p>
+ * Même détection du mode que les validateurs : .xsd => XSD, .dtd => validation DTD,
+ * null => DTD via DOCTYPE. La DTD et le XSD sont servis depuis la mémoire par un
+ * {@link SchemaResolver} (dossier du schéma fourni, ou dossier par défaut).
+ */
+public final class ValidationService {
+
+    private static final ConcurrentMap<Path, Schema> SCHEMAS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ValidationService> SERVICES = new ConcurrentHashMap<>();
+    private static final DefaultHandler RELEASED = new DefaultHandler();
+
+    private final Schema schema;
+    private final String mode;
+    private final SchemaResolver resolver;
+    private final SAXParserFactory saxFactory;
+    private final DocumentBuilderFactory domFactory;
+    private final XMLInputFactory staxFactory;
+    private final boolean staxValidating;
+    private final ThreadLocal<SAXParser> saxParsers = new ThreadLocal<>();
+    private final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+    private final ThreadLocal<Validator> validators = new ThreadLocal<>();
+
+    private ValidationService(String xsdPath) throws SAXException {
+        boolean validating = true;
+        Schema compiled = null;
+        if (xsdPath != null) {
+            String lower = xsdPath.toLowerCase(Locale.ROOT);
+            File schemaFile = new File(xsdPath);
+            if (lower.endsWith(".xsd")) {
+                if (!schemaFile.exists()) {
+                    throw new IllegalArgumentException("Fichier XSD introuvable: " + xsdPath);
+                }
+                compiled = schema(schemaFile.toPath());
+                validating = false;
+                mode = "Validation XSD activée";
+            } else if (lower.endsWith(".dtd")) {
+                if (!schemaFile.exists()) {
+                    throw new IllegalArgumentException("Fichier DTD introuvable: " + xsdPath);
+                }
+                mode = "Validation DTD activée (fichier .dtd fourni)";
+            } else if (schemaFile.exists() && lower.contains(".dtd")) {
+                mode = "Validation DTD activée (fichier fourni détecté comme DTD)";
+            } else {
+                throw new IllegalArgumentException("Type de schéma non reconnu pour: " + xsdPath + ". Utiliser .xsd ou .dtd, ou passez null pour DTD via DOCTYPE.");
+            }
+        } else {
+            mode = "Validation DTD activée (aucun XSD fourni)";
+        }
+        this.schema = compiled;
+        this.resolver = SchemaResolver.forSchema(xsdPath);
+
+        saxFactory = SAXParserFactory.newInstance();
+        saxFactory.setNamespaceAware(true);
+        saxFactory.setValidating(validating);
+        saxFactory.setSchema(compiled);
+
+        domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(true);
+        domFactory.setValidating(validating);
+        domFactory.setSchema(compiled);
+
+        staxFactory = XMLInputFactory.newInstance();
+        staxFactory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        staxFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        staxFactory.setXMLResolver(resolver);
+        staxValidating = validating && enableStaxValidation(staxFactory);
+    }
+
+    /**
+     * Validation DTD en StAX : optionnelle dans la spécification, refusée par l'implémentation
+     * du JDK (acceptée par Woodstox, par exemple).
+     */
+    private static boolean enableStaxValidation(XMLInputFactory factory) {
+        try {
+            factory.setProperty(XMLInputFactory.IS_VALIDATING, true);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Service associé au schéma (créé au premier appel, puis partagé).
+     *
+     * @param xsdPath Chemin vers le fichier XSD ou DTD (null pour validation DTD uniquement)
+     */
+    public static ValidationService forSchema(String xsdPath) throws SAXException {
+        String key = xsdPath == null ? "" : Path.of(xsdPath).toAbsolutePath().normalize().toString();
+        ValidationService service = SERVICES.get(key);
+        if (service == null) {
+            ValidationService created = new ValidationService(xsdPath);
+            service = SERVICES.putIfAbsent(key, created);
+            if (service == null) {
+                service = created;
+            }
+        }
+        return service;
+    }
+
+    /**
+     * XSD compilé une seule fois par chemin, partagé par tous les services et threads.
+     */
+    public static Schema schema(Path xsdPath) throws SAXException {
+        Path key = xsdPath.toAbsolutePath().normalize();
+        Schema schema = SCHEMAS.get(key);
+        if (schema == null) {
+            // SchemaFactory n'est pas thread-safe : une instance par compilation
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schemaFactory.setResourceResolver(SchemaResolver.forDirectory(key.getParent()));
+            Schema compiled = schemaFactory.newSchema(key.toFile());
+            schema = SCHEMAS.putIfAbsent(key, compiled);
+            if (schema == null) {
+                schema = compiled;
+            }
+        }
+        return schema;
+    }
+
+    /** Description du mode de validation, pour l'affichage. */
+    public String mode() {
+        return mode;
+    }
+
+    public SchemaResolver resolver() {
+        return resolver;
+    }
+
+    /** true si le lecteur StAX valide lui-même contre la DTD. */
+    public boolean staxValidating() {
+        return staxValidating;
+    }
+
+    /** Schéma XSD compilé, ou null en mode DTD. */
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * Parser SAX du thread courant, remis à zéro.
+     */
+    public SAXParser saxParser() throws SAXException {
+        SAXParser parser = saxParsers.get();
+        if (parser == null) {
+            try {
+                synchronized (saxFactory) {
+                    parser = saxFactory.newSAXParser();
+                }
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Configuration SAX invalide", e);
+            }
+            saxParsers.set(parser);
+        } else {
+            parser.reset();
+        }
+        return parser;
+    }
+
+    /**
+     * DocumentBuilder du thread courant, remis à zéro (gestionnaire d'erreurs compris),
+     * DTD résolue en mémoire.
+     */
+    public DocumentBuilder documentBuilder() {
+        DocumentBuilder builder = documentBuilders.get();
+        if (builder == null) {
+            try {
+                synchronized (domFactory) {
+                    builder = domFactory.newDocumentBuilder();
+                }
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Configuration DOM invalide", e);
+            }
+            documentBuilders.set(builder);
+        } else {
+            builder.reset();
+        }
+        builder.setEntityResolver(resolver);
+        return builder;
+    }
+
+    /**
+     * Validator XSD du thread courant, remis à zéro.
+     */
+    public Validator validator() {
+        if (schema == null) {
+            throw new IllegalStateException("Aucun XSD : validation DTD par le parser uniquement");
+        }
+        Validator validator = validators.get();
+        if (validator == null) {
+            validator = schema.newValidator();
+            validators.set(validator);
+        } else {
+            validator.reset();
+        }
+        validator.setResourceResolver(resolver);
+        return validator;
+    }
+
+    /**
+     * Parse le fichier avec le parser SAX du thread (un .xml.gz est décompressé à la volée).
+     * Les entités externes passent par le {@link SchemaResolver}, pas par le handler.
+     */
+    public void parse(String xmlPath, DefaultHandler handler) throws SAXException, IOException {
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            parse(source(in, xmlPath), handler);
+        }
+    }
+
+    /**
+     * Parse une source quelconque (fragment, flux en mémoire...) avec le parser SAX du thread.
+     */
+    public void parse(InputSource source, DefaultHandler handler) throws SAXException, IOException {
+        XMLReader reader = saxParser().getXMLReader();
+        reader.setContentHandler(handler);
+        reader.setDTDHandler(handler);
+        reader.setErrorHandler(handler);
+        reader.setEntityResolver(resolver);
+        try {
+            reader.parse(source);
+        } finally {
+            // Le parser reste dans le pool : il ne doit pas retenir le handler (ni ce qu'il a construit)
+            reader.setContentHandler(RELEASED);
+            reader.setDTDHandler(RELEASED);
+            reader.setErrorHandler(RELEASED);
+        }
+    }
+
+    /**
+     * Construit l'arbre DOM du fichier avec le DocumentBuilder du thread.
+     *
+     * @param errorHandler gestionnaire d'erreurs de validation (peut être null)
+     */
+    public Document parseDocument(String xmlPath, ErrorHandler errorHandler) throws SAXException, IOException {
+        DocumentBuilder builder = documentBuilder();
+        builder.setErrorHandler(errorHandler);
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            return builder.parse(source(in, xmlPath));
+        }
+    }
+
+    /**
+     * Lecteur StAX sur le flux (DTD résolue en mémoire, texte non regroupé).
+     */
+    public XMLStreamReader streamReader(InputStream in, String xmlPath) throws XMLStreamException {
+        // XMLInputFactory n'est pas garantie thread-safe
+        synchronized (staxFactory) {
+            return staxFactory.createXMLStreamReader(new File(xmlPath).toURI().toString(), in);
+        }
+    }
+
+    /**
+     * Source avec identifiant système : la DTD référencée par le DOCTYPE est résolue
+     * par rapport au fichier XML.
+     */
+    static InputSource source(InputStream in, String xmlPath) {
+        InputSource source = new InputSource(in);
+        source.setSystemId(new File(xmlPath).toURI().toString());
+        return source;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.validation;
+
+import org.example.conversion.ShardManifest;
+import org.example.conversion.ShardedCsvToXmlConverter;
+import org.example.io.CompressedFiles;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coût fixe par document avec et sans {@link ValidationService}, sur beaucoup de petits
+ * documents (fragments produits par {@link ShardedCsvToXmlConverter}).
+ * <p>
+ * "Sans pool" reproduit l'ancien code : factory créée et XSD recompilé à chaque document.
+ * "Avec pool" : schéma compilé une fois, parser / builder / validator réutilisés.
+ * Les erreurs de validation sont ignorées : seul le coût est mesuré.
+ */
+public class ValidationServiceBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String csvPath = args.length > 0 ? args[0] : "src/main/java/org/example/data/PADCHEST_chest_x_ray_images_labels_160K_01.02.19.csv";
+        // Même niveau que structures/ : les fragments référencent ../structures/images.dtd
+        String outputDir = args.length > 1 ? args[1] : "src/main/java/org/example/shards-petits";
+        int imagesPerDocument = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int maxDocuments = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        String xsdPath = "src/main/java/org/example/structures/images.xsd";
+
+        Path manifestPath = Path.of(outputDir).resolve(ShardManifest.FILE_NAME);
+        if (!Files.exists(manifestPath)) {
+            ShardedCsvToXmlConverter.convert(csvPath, outputDir, "taille", imagesPerDocument, false);
+        }
+        List<String> documents = new ArrayList<>();
+        for (ShardManifest.Shard shard : ShardManifest.load(manifestPath).shards()) {
+            if (documents.size() == maxDocuments) {
+                break;
+            }
+            documents.add(ShardManifest.resolve(manifestPath, shard).toString());
+        }
+
+        System.out.println("=== COÛT PAR DOCUMENT : SANS / AVEC POOL ===");
+        System.out.println("Documents : " + documents.size() + " (" + outputDir + ")");
+        System.out.println();
+        System.out.println("┌──────────────────┬────────────────────┬────────────────────┬─────────┐");
+        System.out.println("│     Méthode      │ Sans pool (µs/doc) │ Avec pool (µs/doc) │  Gain   │");
+        System.out.println("├──────────────────┼────────────────────┼────────────────────┼─────────┤");
+        compare("SAX + DTD", documents, path -> saxWithoutPool(path, null), path -> saxWithPool(path, null));
+        compare("SAX + XSD", documents, path -> saxWithoutPool(path, xsdPath), path -> saxWithPool(path, xsdPath));
+        compare("DOM + XSD", documents, path -> domWithoutPool(path, xsdPath), path -> domWithPool(path, xsdPath));
+        compare("Validator XSD", documents, path -> validatorWithoutPool(path, xsdPath), path -> validatorWithPool(path, xsdPath));
+        System.out.println("└──────────────────┴────────────────────┴────────────────────┴─────────┘");
+    }
+
+    private interface Task {
+        void run(String xmlPath) throws Exception;
+    }
+
+    private static void compare(String name, List<String> documents, Task withoutPool, Task withPool) throws Exception {
+        // Warm-up de chaque variante avant la mesure
+        run(documents, withoutPool);
+        run(documents, withPool);
+        long without = run(documents, withoutPool);
+        long with = run(documents, withPool);
+        System.out.printf("│ %-16s │ %,18d │ %,18d │ %6.2fx │%n", name,
+                without / 1000 / documents.size(), with / 1000 / documents.size(), (double) without / with);
+    }
+
+    private static long run(List<String> documents, Task task) throws Exception {
+        long debut = System.nanoTime();
+        for (String document : documents) {
+            task.run(document);
+        }
+        return System.nanoTime() - debut;
+    }
+
+    private static void saxWithoutPool(String xmlPath, String xsdPath) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        if (xsdPath != null) {
+            factory.setSchema(newSchema(xsdPath));
+        } else {
+            factory.setValidating(true);
+        }
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            factory.newSAXParser().parse(ValidationService.source(in, xmlPath), new DefaultHandler());
+        }
+    }
+
+    private static void saxWithPool(String xmlPath, String xsdPath) throws Exception {
+        ValidationService.forSchema(xsdPath).parse(xmlPath, new DefaultHandler());
+    }
+
+    private static void domWithoutPool(String xmlPath, String xsdPath) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setSchema(newSchema(xsdPath));
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            builder.setErrorHandler(new DefaultHandler());
+            builder.parse(ValidationService.source(in, xmlPath));
+        }
+    }
+
+    private static void domWithPool(String xmlPath, String xsdPath) throws Exception {
+        ValidationService.forSchema(xsdPath).parseDocument(xmlPath, new DefaultHandler());
+    }
+
+    private static void validatorWithoutPool(String xmlPath, String xsdPath) throws Exception {
+        validate(newSchema(xsdPath).newValidator(), xmlPath);
+    }
+
+    private static void validatorWithPool(String xmlPath, String xsdPath) throws Exception {
+        validate(ValidationService.forSchema(xsdPath).validator(), xmlPath);
+    }
+
+    private static void validate(Validator validator, String xmlPath) throws Exception {
+        validator.setErrorHandler(new DefaultHandler());
+        try (InputStream in = CompressedFiles.newInputStream(Path.of(xmlPath))) {
+            validator.validate(new StreamSource(in, new File(xmlPath).toURI().toString()));
+        }
+    }
+
+    private static Schema newSchema(String xsdPath) throws SAXException {
+        return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new File(xsdPath));
+    }
+}